@@ -0,0 +1,115 @@
+package com.valven.ecommerce.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Timing loop shared by the opt-in benchmark tests: every case runs {@link #ROUNDS} times and
+ * only the last round is printed, the earlier ones warm up the JIT.
+ * <pre>{@code
+ * Benchmark.warmedUp(round -> {
+ *     round.measure("pre-bound counter", events, i -> metrics.recordOrderCreated());
+ * });
+ * }</pre>
+ */
+public final class Benchmark {
+
+    public static final int ROUNDS = 3;
+
+    @FunctionalInterface
+    public interface Body {
+        void run(Round round) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ThreadedOperation {
+        void run(int thread, int i);
+    }
+
+    private Benchmark() {
+    }
+
+    public static void warmedUp(Body body) throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            body.run(new Round(round == ROUNDS - 1));
+        }
+    }
+
+    /**
+     * Sorts {@code nanos} and formats its median, 99th percentile and mean in microseconds.
+     */
+    public static String latencies(long[] nanos) {
+        Arrays.sort(nanos);
+        return String.format("p50 %.1f us, p99 %.1f us, mean %.1f us",
+                nanos[nanos.length / 2] / 1_000.0,
+                nanos[(int) (nanos.length * 0.99)] / 1_000.0,
+                Arrays.stream(nanos).average().orElse(0) / 1_000.0);
+    }
+
+    public static final class Round {
+
+        private final boolean reported;
+
+        private Round(boolean reported) {
+            this.reported = reported;
+        }
+
+        /** True for the last round, the only one whose results are printed. */
+        public boolean isReported() {
+            return reported;
+        }
+
+        /**
+         * Calls {@code operation} with {@code 0 .. operations - 1} on the current thread and
+         * returns the elapsed nanoseconds.
+         */
+        public long measure(String name, int operations, IntConsumer operation) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                operation.accept(i);
+            }
+            long elapsed = System.nanoTime() - begin;
+            print(name, elapsed, operations, 1);
+            return elapsed;
+        }
+
+        /**
+         * Splits {@code operations} evenly over {@code threads} threads and returns the elapsed
+         * wall-clock nanoseconds. The printed per-operation time is per thread.
+         */
+        public long measure(String name, int threads, int operations, ThreadedOperation operation) throws Exception {
+            int perThread = operations / threads;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                Future<?>[] workers = new Future<?>[threads];
+                long begin = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    workers[t] = pool.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            operation.run(thread, i);
+                        }
+                    });
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+                long elapsed = System.nanoTime() - begin;
+                print(name, elapsed, perThread * threads, threads);
+                return elapsed;
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        private void print(String name, long elapsed, int operations, int threads) {
+            if (reported) {
+                System.out.printf("%-28s %10.3f us/op %12.0f ops/s%n", name,
+                        elapsed / 1_000.0 / operations * threads, operations / (elapsed / 1e9));
+            }
+        }
+    }
+}
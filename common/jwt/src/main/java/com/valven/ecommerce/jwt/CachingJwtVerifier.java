@@ -0,0 +1,145 @@
+package com.valven.ecommerce.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Verifies bearer tokens once and memoizes the result.
+ * <p>
+ * Verified claims are cached under a SHA-256 digest of the token until the token's {@code exp}
+ * (or {@code maxTtl} if sooner), bounded to {@code maxEntries} tokens. Rejected tokens are never
+ * cached. Each service subclasses this with its own token type and meter name.
+ */
+public class CachingJwtVerifier<T> {
+
+    /**
+     * Builds the service's token from verified claims; may throw {@link IllegalArgumentException}
+     * to reject claims it cannot use.
+     */
+    @FunctionalInterface
+    public interface ClaimsMapper<T> {
+        T map(Claims claims, long cacheUntilMillis);
+    }
+
+    private record Cached<T>(T token, long expiresAtMillis) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CachingJwtVerifier.class);
+
+    private final Function<String, Claims> parser;
+    private final ClaimsMapper<T> mapper;
+    private final int maxEntries;
+    private final long maxTtlMillis;
+    private final Map<String, Cached<T>> cache = new ConcurrentHashMap<>();
+    private final Counter cacheHits;
+    private final Counter verified;
+    private final Counter rejected;
+
+    /**
+     * @param parser verifies signature and expiry and returns the claims, throwing
+     *               {@link JwtException} otherwise
+     */
+    protected CachingJwtVerifier(Function<String, Claims> parser,
+                                 ClaimsMapper<T> mapper,
+                                 MeterRegistry meterRegistry,
+                                 String meterName,
+                                 String meterDescription,
+                                 int maxEntries,
+                                 Duration maxTtl) {
+        this.parser = parser;
+        this.mapper = mapper;
+        this.maxEntries = maxEntries;
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.cacheHits = verificationCounter(meterRegistry, meterName, meterDescription, "cache_hit");
+        this.verified = verificationCounter(meterRegistry, meterName, meterDescription, "verified");
+        this.rejected = verificationCounter(meterRegistry, meterName, meterDescription, "rejected");
+    }
+
+    public Optional<T> verify(String token) {
+        long now = System.currentTimeMillis();
+        String digest = digest(token);
+        Cached<T> cached = cache.get(digest);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                cacheHits.increment();
+                return Optional.of(cached.token());
+            }
+            cache.remove(digest, cached);
+        }
+
+        Cached<T> result;
+        try {
+            Claims claims = parser.apply(token);
+            if (claims.getSubject() == null) {
+                rejected.increment();
+                log.debug("Invalid JWT token: missing subject");
+                return Optional.empty();
+            }
+            Date expiration = claims.getExpiration();
+            long cacheUntil = expiration != null
+                    ? Math.min(expiration.getTime(), now + maxTtlMillis)
+                    : now + maxTtlMillis;
+            result = new Cached<>(mapper.map(claims, cacheUntil), cacheUntil);
+        } catch (JwtException | IllegalArgumentException e) {
+            rejected.increment();
+            log.debug("Invalid JWT token: {}", e.getMessage());
+            return Optional.empty();
+        }
+        verified.increment();
+        if (maxEntries > 0) {
+            evictIfFull(now);
+            cache.put(digest, result);
+        }
+        return Optional.of(result.token());
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private void evictIfFull(long now) {
+        if (cache.size() < maxEntries) {
+            return;
+        }
+        cache.values().removeIf(token -> token.expiresAtMillis() <= now);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().withoutPadding()
+                    .encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter verificationCounter(MeterRegistry meterRegistry, String name, String description,
+                                               String result) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.valven.ecommerce.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load seen by one service instance: a peak-sensitive EWMA of response latency and the number
+ * of requests outstanding. A sample above the average replaces it at once, lower samples pull it
+ * down with a time constant of {@code decayNanos}, so a pausing instance is avoided immediately
+ * and recovers gradually.
+ */
+class InstanceStats {
+
+    private final long firstSeen;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile double latencyNanos;
+    private volatile long lastActivity;
+    private long lastSample;
+
+    InstanceStats(long now) {
+        this.firstSeen = now;
+        this.lastActivity = now;
+    }
+
+    void start(long now) {
+        outstanding.incrementAndGet();
+        lastActivity = now;
+    }
+
+    synchronized void complete(long latency, long now, long decayNanos) {
+        if (outstanding.get() > 0) {
+            outstanding.decrementAndGet();
+        }
+        if (lastSample == 0 || latency > latencyNanos) {
+            latencyNanos = latency;
+        } else {
+            double weight = Math.exp(-(double) (now - lastSample) / decayNanos);
+            latencyNanos = latencyNanos * weight + latency * (1 - weight);
+        }
+        lastSample = now;
+        lastActivity = now;
+    }
+
+    /**
+     * Outstanding requests, forgetting them once nothing has started or completed for
+     * {@code staleNanos}: clients that cancel without reporting completion would otherwise leave
+     * the instance looking busy forever.
+     */
+    int outstanding(long now, long staleNanos) {
+        int current = outstanding.get();
+        if (current > 0 && now - lastActivity > staleNanos) {
+            outstanding.compareAndSet(current, 0);
+            return 0;
+        }
+        return current;
+    }
+
+    boolean sampled() {
+        return latencyNanos > 0;
+    }
+
+    double latencyNanos() {
+        return latencyNanos;
+    }
+
+    long firstSeen() {
+        return firstSeen;
+    }
+}
@@ -0,0 +1,155 @@
+package com.valven.ecommerce.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Power-of-two-choices balancer: picks two random instances and sends the request to the one
+ * with the lower cost, {@code latency EWMA * (outstanding + 1) / weight}. The weight ramps from
+ * 10% to 100% over {@code slowStart} after an instance is first seen, so new instances are not
+ * flooded before their caches and JIT are warm. Instances without a latency sample yet are
+ * costed at the average of those with one.
+ * <p>
+ * Latencies and outstanding counts are reported by {@link LatencyRecordingLifecycle}.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+    private static final double MIN_WEIGHT = 0.1;
+    private static final double DEFAULT_LATENCY_NANOS = 1_000_000;
+
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final long decayNanos;
+    private final long slowStartNanos;
+    private final long staleNanos;
+    private final LongSupplier clock;
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    public LatencyAwareLoadBalancer(String serviceId, ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                                    Duration decay, Duration slowStart, Duration staleOutstanding) {
+        this(serviceId, suppliers, decay, slowStart, staleOutstanding, System::nanoTime);
+    }
+
+    LatencyAwareLoadBalancer(String serviceId, ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                             Duration decay, Duration slowStart, Duration staleOutstanding, LongSupplier clock) {
+        this.serviceId = serviceId;
+        this.suppliers = suppliers;
+        this.decayNanos = Math.max(1, decay.toNanos());
+        this.slowStartNanos = slowStart.toNanos();
+        this.staleNanos = staleOutstanding.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        long now = clock.getAsLong();
+        prune(instances);
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        double fallbackLatency = averageLatency(instances);
+        return new DefaultResponse(cost(a, now, fallbackLatency) <= cost(b, now, fallbackLatency) ? a : b);
+    }
+
+    void started(ServiceInstance instance) {
+        long now = clock.getAsLong();
+        stats(instance, now).start(now);
+    }
+
+    void completed(ServiceInstance instance, long latencyNanos) {
+        long now = clock.getAsLong();
+        stats(instance, now).complete(latencyNanos, now, decayNanos);
+    }
+
+    long now() {
+        return clock.getAsLong();
+    }
+
+    private double cost(ServiceInstance instance, long now, double fallbackLatency) {
+        InstanceStats instanceStats = stats(instance, now);
+        double latency = instanceStats.sampled() ? instanceStats.latencyNanos() : fallbackLatency;
+        return latency * (instanceStats.outstanding(now, staleNanos) + 1) / weight(instanceStats, now);
+    }
+
+    private double weight(InstanceStats instanceStats, long now) {
+        if (slowStartNanos <= 0) {
+            return 1;
+        }
+        double ramp = (double) (now - instanceStats.firstSeen()) / slowStartNanos;
+        return Math.max(MIN_WEIGHT, Math.min(1, ramp));
+    }
+
+    private double averageLatency(List<ServiceInstance> instances) {
+        double sum = 0;
+        int sampled = 0;
+        for (ServiceInstance instance : instances) {
+            InstanceStats instanceStats = stats.get(key(instance));
+            if (instanceStats != null && instanceStats.sampled()) {
+                sum += instanceStats.latencyNanos();
+                sampled++;
+            }
+        }
+        return sampled > 0 ? sum / sampled : DEFAULT_LATENCY_NANOS;
+    }
+
+    private InstanceStats stats(ServiceInstance instance, long now) {
+        String key = key(instance);
+        InstanceStats existing = stats.get(key);
+        return existing != null ? existing : stats.computeIfAbsent(key, k -> new InstanceStats(now));
+    }
+
+    /** Drops stats of instances that left the registry. */
+    private void prune(List<ServiceInstance> instances) {
+        if (stats.size() <= instances.size()) {
+            return;
+        }
+        Set<String> live = new HashSet<>();
+        for (ServiceInstance instance : instances) {
+            live.add(key(instance));
+        }
+        stats.keySet().retainAll(live);
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId()
+                : instance.getHost() + ":" + instance.getPort();
+    }
+}
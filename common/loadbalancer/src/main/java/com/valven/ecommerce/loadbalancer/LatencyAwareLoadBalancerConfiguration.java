@@ -0,0 +1,42 @@
+package com.valven.ecommerce.loadbalancer;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Per-client LoadBalancer configuration, registered as the default for every load-balanced
+ * service. Deliberately not a {@code @Configuration}: it is instantiated in each client's child
+ * context, so every service gets its own balancer and stats. Child contexts have no Boot
+ * conversion service, hence the durations are parsed here rather than with {@code @Value}.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+    private static final String PREFIX = "loadbalancer.latency-aware.";
+
+    @Bean
+    public LatencyAwareLoadBalancer latencyAwareLoadBalancer(Environment environment,
+                                                             LoadBalancerClientFactory loadBalancerClientFactory) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(name,
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class),
+                duration(environment, "decay", "5s"),
+                duration(environment, "slow-start", "30s"),
+                duration(environment, "stale-outstanding", "1m"));
+    }
+
+    @Bean
+    public LatencyRecordingLifecycle latencyRecordingLifecycle(LatencyAwareLoadBalancer latencyAwareLoadBalancer,
+                                                               Environment environment) {
+        return new LatencyRecordingLifecycle(latencyAwareLoadBalancer,
+                duration(environment, "failure-penalty", "1s"));
+    }
+
+    private static Duration duration(Environment environment, String key, String defaultValue) {
+        return DurationStyle.detectAndParse(environment.getProperty(PREFIX + key, defaultValue));
+    }
+}
@@ -0,0 +1,70 @@
+package com.valven.ecommerce.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+import java.time.Duration;
+
+/**
+ * Reports request start and completion to {@link LatencyAwareLoadBalancer}. Failed requests and
+ * 5xx responses are recorded with at least {@code failurePenalty} latency, so an instance that
+ * fails fast does not look like the fastest one.
+ */
+public class LatencyRecordingLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final LatencyAwareLoadBalancer loadBalancer;
+    private final long failurePenaltyNanos;
+
+    public LatencyRecordingLifecycle(LatencyAwareLoadBalancer loadBalancer, Duration failurePenalty) {
+        this.loadBalancer = loadBalancer;
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse == null || lbResponse.getServer() == null) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(loadBalancer.now());
+        }
+        loadBalancer.started(lbResponse.getServer());
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD
+                || lbResponse == null || lbResponse.getServer() == null) {
+            return;
+        }
+        long latency = 0;
+        Request<Object> request = completionContext.getLoadBalancerRequest();
+        if (request != null && request.getContext() instanceof TimedRequestContext timed
+                && timed.getRequestStartTime() > 0) {
+            latency = loadBalancer.now() - timed.getRequestStartTime();
+        }
+        if (failed(completionContext)) {
+            latency = Math.max(latency, failurePenaltyNanos);
+        }
+        loadBalancer.completed(lbResponse.getServer(), latency);
+    }
+
+    private static boolean failed(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        return completionContext.getClientResponse() instanceof ResponseData response
+                && response.getHttpStatus() != null
+                && response.getHttpStatus().is5xxServerError();
+    }
+}
@@ -0,0 +1,186 @@
+package com.valven.ecommerce.loadbalancer;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyAwareLoadBalancerTest {
+
+    private final AtomicLong clock = new AtomicLong(1);
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopStubs() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void choose_ShouldAvoidSlowInstance() {
+        LatencyAwareLoadBalancer balancer = balancer(Duration.ZERO);
+        ServiceInstance fast1 = instance("fast-1", 8081);
+        ServiceInstance fast2 = instance("fast-2", 8082);
+        ServiceInstance slow = instance("slow", 8083);
+        List<ServiceInstance> instances = List.of(fast1, fast2, slow);
+
+        Map<String, Integer> picks = simulate(balancer, instances, 3_000,
+                Map.of("fast-1", 10L, "fast-2", 10L, "slow", 200L));
+
+        assertTrue(picks.getOrDefault("slow", 0) < 3_000 / 10, "slow instance got " + picks);
+        assertTrue(picks.get("fast-1") > 1_000 && picks.get("fast-2") > 1_000, "fast instances got " + picks);
+    }
+
+    @Test
+    void choose_ShouldRampUpNewInstanceDuringSlowStart() {
+        LatencyAwareLoadBalancer balancer = balancer(Duration.ofSeconds(30));
+        List<ServiceInstance> instances = new ArrayList<>(List.of(instance("a", 8081), instance("b", 8082)));
+        Map<String, Long> latencies = Map.of("a", 10L, "b", 10L, "new", 10L);
+        simulate(balancer, instances, 100, latencies);
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        instances.add(instance("new", 8083));
+        Map<String, Integer> early = simulate(balancer, instances, 300, latencies);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        Map<String, Integer> late = simulate(balancer, instances, 3_000, latencies);
+
+        assertTrue(early.getOrDefault("new", 0) < 300 / 6, "during slow start: " + early);
+        assertTrue(late.getOrDefault("new", 0) > 3_000 / 5, "after slow start: " + late);
+    }
+
+    @Test
+    void choose_ShouldPreferInstanceWithFewerOutstandingRequests() {
+        LatencyAwareLoadBalancer balancer = balancer(Duration.ZERO);
+        ServiceInstance busy = instance("busy", 8081);
+        ServiceInstance idle = instance("idle", 8082);
+        balancer.completed(busy, 10_000_000);
+        balancer.completed(idle, 10_000_000);
+        for (int i = 0; i < 5; i++) {
+            balancer.started(busy);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("idle", balancer.choose(List.of(busy, idle)).getServer().getInstanceId());
+        }
+    }
+
+    @Test
+    void choose_ShouldForgetOutstandingRequestsThatNeverCompleted() {
+        LatencyAwareLoadBalancer balancer = balancer(Duration.ZERO);
+        ServiceInstance leaked = instance("leaked", 8081);
+        ServiceInstance other = instance("other", 8082);
+        balancer.completed(leaked, 10_000_000);
+        balancer.completed(other, 10_000_000);
+        for (int i = 0; i < 5; i++) {
+            balancer.started(leaked);
+        }
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            picks.merge(balancer.choose(List.of(leaked, other)).getServer().getInstanceId(), 1, Integer::sum);
+        }
+        assertTrue(picks.getOrDefault("leaked", 0) > 50, "picks: " + picks);
+    }
+
+    @Test
+    void lifecycle_ShouldSteerTrafficAwayFromSlowStub() throws Exception {
+        Map<String, Integer> picks = drive(List.of(
+                stub("fast-1", 0, 200), stub("fast-2", 0, 200), stub("slow", 100, 200)));
+
+        assertTrue(picks.getOrDefault("slow", 0) < 200 / 10, "picks: " + picks);
+    }
+
+    @Test
+    void lifecycle_ShouldSteerTrafficAwayFromFailingStub() throws Exception {
+        Map<String, Integer> picks = drive(List.of(stub("healthy", 5, 200), stub("failing", 0, 500)));
+
+        assertTrue(picks.getOrDefault("failing", 0) < 200 / 10, "picks: " + picks);
+    }
+
+    /** Sends 200 requests to local stubs, reporting each through the lifecycle like a real client. */
+    private Map<String, Integer> drive(List<ServiceInstance> instances) throws Exception {
+        LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer("stub-service", null,
+                Duration.ofSeconds(1), Duration.ZERO, Duration.ofMinutes(1));
+        LatencyRecordingLifecycle lifecycle = new LatencyRecordingLifecycle(balancer, Duration.ofSeconds(1));
+        HttpClient client = HttpClient.newHttpClient();
+        for (ServiceInstance instance : instances) {
+            client.send(HttpRequest.newBuilder(instance.getUri()).build(), HttpResponse.BodyHandlers.discarding());
+        }
+
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            Request<Object> request = new DefaultRequest<>(new RequestDataContext());
+            Response<ServiceInstance> chosen = new DefaultResponse(balancer.choose(instances).getServer());
+            lifecycle.onStartRequest(request, chosen);
+            HttpResponse<Void> response = client.send(
+                    HttpRequest.newBuilder(chosen.getServer().getUri()).build(), HttpResponse.BodyHandlers.discarding());
+            lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, chosen,
+                    new ResponseData(HttpStatusCode.valueOf(response.statusCode()), new HttpHeaders(), null, null)));
+            picks.merge(chosen.getServer().getInstanceId(), 1, Integer::sum);
+        }
+        return picks;
+    }
+
+    private LatencyAwareLoadBalancer balancer(Duration slowStart) {
+        return new LatencyAwareLoadBalancer("catalog", null, Duration.ofSeconds(10), slowStart,
+                Duration.ofMinutes(1), clock::get);
+    }
+
+    /** Sends requests one after another, advancing the clock by each instance's latency. */
+    private Map<String, Integer> simulate(LatencyAwareLoadBalancer balancer, List<ServiceInstance> instances,
+                                          int requests, Map<String, Long> latencyMillis) {
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < requests; i++) {
+            ServiceInstance instance = balancer.choose(instances).getServer();
+            long latency = Duration.ofMillis(latencyMillis.get(instance.getInstanceId())).toNanos();
+            balancer.started(instance);
+            clock.addAndGet(latency);
+            balancer.completed(instance, latency);
+            picks.merge(instance.getInstanceId(), 1, Integer::sum);
+        }
+        return picks;
+    }
+
+    private ServiceInstance stub(String id, long delayMillis, int status) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        servers.add(server);
+        return new DefaultServiceInstance(id, "stub-service", "127.0.0.1", server.getAddress().getPort(), false);
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, "catalog", "10.0.0." + (port - 8080), port, false);
+    }
+}
@@ -0,0 +1,277 @@
+package com.valven.ecommerce.gateway.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * In-memory store for gateway-cached GET responses, bounded to {@code gateway.cache.max-size}.
+ * <p>
+ * Entries past their stale-while-revalidate window are dropped first when the bound is hit, then
+ * the least recently read ones. Lookups are lock-free; eviction scans the map and only runs when
+ * the bound is exceeded.
+ */
+@Component
+public class ResponseCache {
+
+    public enum Result { HIT, STALE, REVALIDATED, MISS, BYPASS }
+
+    public static final class Entry {
+
+        private static final int OVERHEAD_BYTES = 256;
+
+        final String routeId;
+        final String key;
+        final String path;
+        final HttpHeaders headers;
+        final byte[] body;
+        final String etag;
+        final boolean originEtag;
+        final long storedAt;
+        final long size;
+        volatile long freshUntil;
+        volatile long staleUntil;
+        volatile long lastRead;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        public Entry(String routeId, String key, String path, HttpHeaders headers, byte[] body, String etag,
+                     boolean originEtag, long now, long ttlMillis, long staleMillis) {
+            this.routeId = routeId;
+            this.key = key;
+            this.path = path;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.body = body;
+            this.etag = etag;
+            this.originEtag = originEtag;
+            this.storedAt = now;
+            this.freshUntil = now + ttlMillis;
+            this.staleUntil = now + ttlMillis + staleMillis;
+            this.lastRead = now;
+            long headerBytes = headers.entrySet().stream()
+                    .mapToLong(h -> h.getKey().length() + h.getValue().stream().mapToLong(String::length).sum())
+                    .sum();
+            this.size = body.length + headerBytes + key.length() * 2L + OVERHEAD_BYTES;
+        }
+
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+        /** Whether the ETag came from the origin, so it can be used to revalidate there. */
+        public boolean hasOriginEtag() {
+            return originEtag;
+        }
+
+        public long ageSeconds(long now) {
+            return Math.max(0, (now - storedAt) / 1000);
+        }
+
+        public boolean isFresh(long now) {
+            return now < freshUntil;
+        }
+
+        public boolean isUsable(long now) {
+            return now < staleUntil;
+        }
+
+        /** Claims the right to refresh this stale entry; only one request does at a time. */
+        public boolean tryStartRefresh() {
+            return refreshing.compareAndSet(false, true);
+        }
+
+        public void endRefresh() {
+            refreshing.set(false);
+        }
+
+        /** Marks the entry fresh again after the origin confirmed it with a 304. */
+        public void extend(long now, long ttlMillis, long staleMillis) {
+            freshUntil = now + ttlMillis;
+            staleUntil = now + ttlMillis + staleMillis;
+        }
+    }
+
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Map<String, RouteStats> stats = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${gateway.cache.max-size:64MB}") DataSize maxSize) {
+        this.meterRegistry = meterRegistry;
+        this.maxBytes = maxSize.toBytes();
+        Gauge.builder("gateway.cache.size", bytes, AtomicLong::get)
+                .description("Bytes held by the gateway response cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("gateway.cache.entries", entries, Map::size)
+                .description("Responses held by the gateway response cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.cache.evictions", evictions, AtomicLong::get)
+                .description("Responses evicted to stay within the size bound")
+                .register(meterRegistry);
+    }
+
+    public Entry get(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.isUsable(now)) {
+            remove(entry);
+            return null;
+        }
+        entry.lastRead = now;
+        return entry;
+    }
+
+    public void put(Entry entry) {
+        if (entry.size > maxBytes / 10) {
+            return;
+        }
+        Entry previous = entries.put(entry.key, entry);
+        bytes.addAndGet(entry.size - (previous != null ? previous.size : 0));
+        if (bytes.get() > maxBytes) {
+            evict(entry.storedAt);
+        }
+    }
+
+    /** Removes every entry whose path starts with {@code prefix}; returns how many were removed. */
+    public int purgeByPrefix(String prefix) {
+        return purgeIf(entry -> entry.path.startsWith(prefix));
+    }
+
+    /** Removes the entries for {@code path} and the paths below it, e.g. {@code /api/products/42/price-history}. */
+    public int purgePath(String path) {
+        String below = path.endsWith("/") ? path : path + "/";
+        return purgeIf(entry -> entry.path.equals(path) || entry.path.startsWith(below));
+    }
+
+    public int purgeRoute(String routeId) {
+        return purgeIf(entry -> entry.routeId.equals(routeId));
+    }
+
+    public void record(String routeId, Result result) {
+        stats.computeIfAbsent(routeId, RouteStats::new).record(result);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> routes = new LinkedHashMap<>();
+        stats.forEach((route, routeStats) -> routes.put(route, Map.of(
+                "hitRatio", routeStats.hitRatio(),
+                "requests", routeStats.total())));
+        return Map.of(
+                "entries", entries.size(),
+                "bytes", bytes.get(),
+                "maxBytes", maxBytes,
+                "evictions", evictions.get(),
+                "routes", routes);
+    }
+
+    private int purgeIf(Predicate<Entry> predicate) {
+        int removed = 0;
+        for (Entry entry : entries.values()) {
+            if (predicate.test(entry) && remove(entry)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private boolean remove(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            bytes.addAndGet(-entry.size);
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void evict(long now) {
+        if (bytes.get() <= maxBytes) {
+            return;
+        }
+        for (Entry entry : entries.values()) {
+            if (!entry.isUsable(now) && remove(entry)) {
+                evictions.incrementAndGet();
+            }
+        }
+        long target = maxBytes * 9 / 10;
+        if (bytes.get() <= target) {
+            return;
+        }
+        List<Entry> byLastRead = new ArrayList<>(entries.values());
+        byLastRead.sort(Comparator.comparingLong(entry -> entry.lastRead));
+        for (Entry entry : byLastRead) {
+            if (bytes.get() <= target) {
+                break;
+            }
+            if (remove(entry)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private final class RouteStats {
+
+        private final Counter[] counters = new Counter[Result.values().length];
+
+        RouteStats(String routeId) {
+            for (Result result : Result.values()) {
+                counters[result.ordinal()] = Counter.builder("gateway.cache.requests")
+                        .description("Requests on cached routes by cache result")
+                        .tag("route", routeId)
+                        .tag("result", result.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+            Gauge.builder("gateway.cache.hit.ratio", this, RouteStats::hitRatio)
+                    .description("Share of cacheable requests answered from the cache")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        void record(Result result) {
+            counters[result.ordinal()].increment();
+        }
+
+        double total() {
+            double total = 0;
+            for (Result result : Result.values()) {
+                if (result != Result.BYPASS) {
+                    total += counters[result.ordinal()].count();
+                }
+            }
+            return total;
+        }
+
+        double hitRatio() {
+            double total = total();
+            double served = counters[Result.HIT.ordinal()].count() + counters[Result.STALE.ordinal()].count()
+                    + counters[Result.REVALIDATED.ordinal()].count();
+            return total == 0 ? 0 : served / total;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.valven.ecommerce.gateway.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/responsecache}: GET for size and per-route hit ratios, DELETE with
+ * {@code ?prefix=/api/products/42} to purge cached responses under a path.
+ */
+@Component
+@Endpoint(id = "responsecache")
+public class ResponseCacheEndpoint {
+
+    private final ResponseCache cache;
+
+    public ResponseCacheEndpoint(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+
+    @DeleteOperation
+    public Map<String, Object> purge(String prefix) {
+        return Map.of("prefix", prefix, "purged", cache.purgeByPrefix(prefix));
+    }
+}
@@ -0,0 +1,82 @@
+package com.valven.ecommerce.gateway.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Purges {@link ResponseCache} entries for paths that services announce on the
+ * {@code gateway.cache.purge-channel} Redis channel. Product-service publishes
+ * {@code /api/products/{id}} when stock changes, since those writes come from order-service and
+ * never pass through the gateway. The subscription is re-established with backoff while Redis is
+ * unavailable; in the meantime entries only expire on their TTL.
+ */
+@Component
+public class ResponseCachePurgeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCachePurgeListener.class);
+
+    private final ReactiveRedisConnectionFactory connectionFactory;
+    private final ResponseCache cache;
+    private final String channel;
+    private Disposable subscription;
+    private volatile boolean failing;
+
+    public ResponseCachePurgeListener(ReactiveRedisConnectionFactory connectionFactory,
+                                      ResponseCache cache,
+                                      @Value("${gateway.cache.purge-channel:gateway:cache:purge}") String channel) {
+        this.connectionFactory = connectionFactory;
+        this.cache = cache;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (channel.isBlank()) {
+            return;
+        }
+        subscription = Flux.usingWhen(
+                        Mono.fromSupplier(() -> new ReactiveRedisMessageListenerContainer(connectionFactory)),
+                        container -> container.receive(ChannelTopic.of(channel)),
+                        ReactiveRedisMessageListenerContainer::destroyLater)
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnNext(path -> failing = false)
+                .doOnError(e -> {
+                    if (!failing) {
+                        failing = true;
+                        log.warn("Response cache purge subscription failed, retrying: {}", e.getMessage());
+                    }
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(this::purge);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    void purge(String path) {
+        if (path.startsWith("/")) {
+            int purged = cache.purgePath(path);
+            log.debug("Purged {} cached responses under {}", purged, path);
+        }
+    }
+}
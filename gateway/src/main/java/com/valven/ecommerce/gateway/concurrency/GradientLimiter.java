@@ -0,0 +1,138 @@
+package com.valven.ecommerce.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit that adapts to measured round-trip time, after the gradient algorithm.
+ * <p>
+ * RTT samples are averaged over a short window (at least {@link #MIN_WINDOW_SAMPLES} requests and
+ * {@link #MIN_WINDOW_NANOS}). The window average is compared with a slow moving average of past
+ * windows: when RTT rises above {@link #TOLERANCE} times the baseline, requests are queueing
+ * downstream and the limit shrinks in proportion; otherwise it grows by roughly
+ * {@code sqrt(limit)} per window. Windows in which more than {@link #MAX_DROP_RATIO} of the requests
+ * failed or were abandoned cut the limit by 10%; a lower error rate is noise, not overload.
+ * The limit only grows while the route actually uses at least half of it.
+ */
+public class GradientLimiter {
+
+    static final double TOLERANCE = 1.5;
+    static final double SMOOTHING = 0.2;
+    static final double BASELINE_WEIGHT = 0.05;
+    static final int MIN_WINDOW_SAMPLES = 10;
+    static final long MIN_WINDOW_NANOS = 100_000_000L;
+    static final double MAX_DROP_RATIO = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final LongSupplier clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Window state, guarded by this.
+    private long windowStart;
+    private int windowSamples;
+    private long windowRttSum;
+    private int windowDrops;
+    private int windowMaxInFlight;
+    private double baselineRtt;
+
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, System::nanoTime);
+    }
+
+    GradientLimiter(int initialLimit, int minLimit, int maxLimit, LongSupplier clock) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.clock = clock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowStart = clock.getAsLong();
+    }
+
+    /** Takes a slot if the route is below its limit. */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a slot. {@code dropped} marks requests that failed, timed out or were abandoned;
+     * their RTT is not a sample of healthy latency.
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int before = inFlight.getAndDecrement();
+        sample(rttNanos, dropped, before);
+    }
+
+    /**
+     * Returns a slot without taking a sample, for responses that never measured the service,
+     * such as requests rejected by a rate limiter further down the filter chain.
+     */
+    public void releaseUnsampled() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, boolean dropped, int inFlightAtRelease) {
+        if (dropped) {
+            windowDrops++;
+        } else {
+            windowSamples++;
+            windowRttSum += rttNanos;
+        }
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+
+        long now = clock.getAsLong();
+        int requests = windowSamples + windowDrops;
+        if (now - windowStart < MIN_WINDOW_NANOS || requests < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+        if (windowDrops > requests * MAX_DROP_RATIO) {
+            limit = clamp(limit * 0.9);
+        } else {
+            update((double) windowRttSum / windowSamples, windowMaxInFlight);
+        }
+        windowStart = now;
+        windowSamples = 0;
+        windowRttSum = 0;
+        windowDrops = 0;
+        windowMaxInFlight = 0;
+    }
+
+    private void update(double shortRtt, int maxInFlight) {
+        if (baselineRtt == 0) {
+            baselineRtt = shortRtt;
+            return;
+        }
+        baselineRtt = baselineRtt * (1 - BASELINE_WEIGHT) + shortRtt * BASELINE_WEIGHT;
+        // Let the baseline follow a lasting latency drop instead of staying inflated.
+        if (baselineRtt / shortRtt > 2) {
+            baselineRtt *= 0.95;
+        }
+        double current = limit;
+        if (maxInFlight < current / 2 && shortRtt <= baselineRtt * TOLERANCE) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        limit = clamp(current * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,52 @@
+package com.valven.ecommerce.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that caps extra requests (hedges, retries) at a percentage of regular traffic.
+ * Every regular request deposits {@code percent / 100} of a token, every extra request spends a
+ * whole one. The balance is capped at {@code maxTokens}, so a quiet period cannot save up a
+ * large burst of extra load.
+ */
+public class LoadBudget {
+
+    private static final long SCALE = 1_000;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    public LoadBudget(double percent, int maxTokens) {
+        this.depositPerRequest = Math.round(percent / 100 * SCALE);
+        this.maxBalance = maxTokens * SCALE;
+        this.balance = new AtomicLong(depositPerRequest > 0 ? maxBalance : 0);
+    }
+
+    public void deposit() {
+        if (depositPerRequest == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + depositPerRequest)));
+    }
+
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double tokens() {
+        return (double) balance.get() / SCALE;
+    }
+}
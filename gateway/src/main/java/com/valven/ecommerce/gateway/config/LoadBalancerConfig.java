@@ -0,0 +1,13 @@
+package com.valven.ecommerce.gateway.config;
+
+import com.valven.ecommerce.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces round-robin with the latency-aware balancer for all {@code lb://} routes.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -1,28 +1,38 @@
 package com.valven.ecommerce.gateway.config;
 
+import com.valven.ecommerce.gateway.filter.AuthFilter;
+import com.valven.ecommerce.gateway.security.JwtVerifier.VerifiedToken;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 @Configuration
 public class RateLimitingConfig {
 
+    /**
+     * Partitions by the user {@link AuthFilter} verified; unauthenticated requests are keyed by
+     * client address so they do not all share one bucket.
+     */
     @Bean
     @Primary
     public KeyResolver userKeyResolver() {
-        return exchange -> exchange.getRequest().getHeaders().getFirst("X-User-Id") != null
-                ? Mono.just(exchange.getRequest().getHeaders().getFirst("X-User-Id"))
-                : Mono.just("anonymous");
+        return exchange -> {
+            VerifiedToken verified = exchange.getAttribute(AuthFilter.VERIFIED_TOKEN_ATTR);
+            return Mono.just(verified != null ? "user:" + verified.userId() : "ip:" + clientAddress(exchange));
+        };
     }
 
     @Bean("ipKeyResolver")
     public KeyResolver ipKeyResolver() {
-        return exchange -> Mono.just(
-                exchange.getRequest().getRemoteAddress() != null
-                        ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress()
-                        : "unknown"
-        );
+        return exchange -> Mono.just(clientAddress(exchange));
     }
-}
\ No newline at end of file
+
+    private static String clientAddress(ServerWebExchange exchange) {
+        return exchange.getRequest().getRemoteAddress() != null
+                ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress()
+                : "unknown";
+    }
+}
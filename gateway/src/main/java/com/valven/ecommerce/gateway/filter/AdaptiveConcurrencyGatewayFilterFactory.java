@@ -0,0 +1,180 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.valven.ecommerce.gateway.concurrency.GradientLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bounds the requests a route has in flight with a {@link GradientLimiter}, so a slow service
+ * gets less concurrency instead of a growing queue. Requests over the limit are answered at once
+ * with 503 and {@code Retry-After}. Cancelled requests, timeouts, connection errors and
+ * 502/503/504 responses count as drops; other errors and 429s from the rate limiter release their
+ * slot without an RTT sample, and other 5xx responses are ordinary samples. Filters that send a
+ * request more than once set {@link #ATTEMPT_STARTED_ATTR} on each attempt, so the sample is the
+ * last downstream attempt rather than the whole exchange including retry backoff.
+ */
+@Component
+public class AdaptiveConcurrencyGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<AdaptiveConcurrencyGatewayFilterFactory.Config> {
+
+    /** {@link System#nanoTime()} at which the current downstream attempt started. */
+    public static final String ATTEMPT_STARTED_ATTR =
+            AdaptiveConcurrencyGatewayFilterFactory.class.getName() + ".attemptStarted";
+
+    private static final Set<Integer> DROP_STATUSES = Set.of(
+            HttpStatus.BAD_GATEWAY.value(), HttpStatus.SERVICE_UNAVAILABLE.value(), HttpStatus.GATEWAY_TIMEOUT.value());
+
+    private record RouteLimiter(GradientLimiter limiter, Counter rejected) {
+    }
+
+    private final Map<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public AdaptiveConcurrencyGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String retryAfter = String.valueOf(Math.max(1, config.getRetryAfter().toSeconds()));
+        return (exchange, chain) -> {
+            RouteLimiter routeLimiter = limiter(routeId(exchange), config);
+            GradientLimiter limiter = routeLimiter.limiter();
+            if (!limiter.tryAcquire()) {
+                routeLimiter.rejected().increment();
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+                return response.setComplete();
+            }
+            long start = System.nanoTime();
+            Throwable[] failure = {null};
+            return chain.filter(exchange).doOnError(error -> failure[0] = error).doFinally(signal -> {
+                int status = ResponseBodies.statusOf(exchange.getResponse());
+                boolean dropped = signal == SignalType.CANCEL
+                        || (signal == SignalType.ON_ERROR && isDrop(failure[0]))
+                        || (signal == SignalType.ON_COMPLETE && DROP_STATUSES.contains(status));
+                if (!dropped && (signal == SignalType.ON_ERROR || status == HttpStatus.TOO_MANY_REQUESTS.value())) {
+                    limiter.releaseUnsampled();
+                    return;
+                }
+                Long attemptStarted = exchange.getAttribute(ATTEMPT_STARTED_ATTR);
+                limiter.release(System.nanoTime() - (attemptStarted != null ? attemptStarted : start), dropped);
+            });
+        };
+    }
+
+    /** Errors that mean the service was overloaded or unreachable, not that the request was bad. */
+    private static boolean isDrop(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+            if (cause instanceof ResponseStatusException statusException
+                    && DROP_STATUSES.contains(statusException.getStatusCode().value())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Visible for tests and benchmarks that drive the filter without a route. */
+    GradientLimiter limiterFor(String routeId) {
+        RouteLimiter routeLimiter = limiters.get(routeId);
+        return routeLimiter != null ? routeLimiter.limiter() : null;
+    }
+
+    private RouteLimiter limiter(String routeId, Config config) {
+        RouteLimiter existing = limiters.get(routeId);
+        if (existing != null) {
+            return existing;
+        }
+        return limiters.computeIfAbsent(routeId, id -> {
+            GradientLimiter limiter = new GradientLimiter(config.getInitialLimit(), config.getMinLimit(),
+                    config.getMaxLimit());
+            Gauge.builder("gateway.concurrency.limit", limiter, GradientLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in_flight", limiter, GradientLimiter::getInFlight)
+                    .description("Requests in flight under the concurrency limit")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            Counter rejected = Counter.builder("gateway.concurrency.rejected")
+                    .description("Requests shed because the route was at its concurrency limit")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            return new RouteLimiter(limiter, rejected);
+        });
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    public static class Config {
+
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 500;
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public Config setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public Config setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public Config setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public Config setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+            return this;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.valven.ecommerce.gateway.filter;
 
+import com.valven.ecommerce.gateway.security.JwtVerifier;
+import com.valven.ecommerce.gateway.security.JwtVerifier.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -11,10 +16,22 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Verifies the bearer token at the edge and forwards the caller's id as {@code X-User-Id}.
+ * <p>
+ * Protected paths without a valid token are rejected with 401 before reaching a service. On
+ * whitelisted paths a valid token is still propagated, an invalid one is ignored. Any
+ * {@code X-User-Id} sent by the client is removed. The verified token is kept in the
+ * {@link #VERIFIED_TOKEN_ATTR} exchange attribute for later filters and key resolvers.
+ */
 @Component
 public class AuthFilter implements GlobalFilter, Ordered {
 
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String VERIFIED_TOKEN_ATTR = AuthFilter.class.getName() + ".verifiedToken";
+
     private static final List<String> AUTH_WHITELIST = List.of(
             "/api/auth/signup",
             "/api/auth/signin",
@@ -22,31 +39,77 @@ public class AuthFilter implements GlobalFilter, Ordered {
             "/actuator"
     );
 
+    private final JwtVerifier jwtVerifier;
+    private final Counter missingToken;
+    private final Counter invalidToken;
+
+    public AuthFilter(JwtVerifier jwtVerifier, MeterRegistry meterRegistry) {
+        this.jwtVerifier = jwtVerifier;
+        this.missingToken = rejectionCounter(meterRegistry, "missing");
+        this.invalidToken = rejectionCounter(meterRegistry, "invalid");
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         String path = request.getURI().getPath();
+        boolean whitelisted = isWhitelisted(path);
 
-        if (isWhitelisted(path)) {
-            return chain.filter(exchange);
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            if (!whitelisted) {
+                missingToken.increment();
+                return reject(exchange, "Bearer");
+            }
+            return chain.filter(withUserId(exchange, null));
         }
 
-        String authHeader = request.getHeaders().getFirst("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            ServerHttpResponse response = exchange.getResponse();
-            response.setStatusCode(HttpStatus.UNAUTHORIZED);
-            return response.setComplete();
+        Optional<VerifiedToken> verified = jwtVerifier.verify(authHeader.substring(7));
+        if (verified.isEmpty() && !whitelisted) {
+            invalidToken.increment();
+            return reject(exchange, "Bearer error=\"invalid_token\"");
         }
+        return chain.filter(withUserId(exchange, verified.orElse(null)));
+    }
 
-        return chain.filter(exchange);
+    private static ServerWebExchange withUserId(ServerWebExchange exchange, VerifiedToken verified) {
+        if (verified == null && !exchange.getRequest().getHeaders().containsKey(USER_ID_HEADER)) {
+            return exchange;
+        }
+        if (verified != null) {
+            exchange.getAttributes().put(VERIFIED_TOKEN_ATTR, verified);
+        }
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(USER_ID_HEADER);
+                    if (verified != null) {
+                        headers.set(USER_ID_HEADER, verified.userId());
+                    }
+                })
+                .build();
+        return exchange.mutate().request(request).build();
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, String challenge) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, challenge);
+        return response.setComplete();
     }
 
     private boolean isWhitelisted(String path) {
         return AUTH_WHITELIST.stream().anyMatch(path::startsWith);
     }
 
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("gateway.auth.rejections")
+                .description("Requests rejected at the gateway for missing or invalid tokens")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
     @Override
     public int getOrder() {
         return -100;
     }
-}
\ No newline at end of file
+}
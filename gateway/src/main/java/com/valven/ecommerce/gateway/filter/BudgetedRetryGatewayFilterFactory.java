@@ -0,0 +1,329 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.valven.ecommerce.gateway.concurrency.LoadBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retries failed requests within a per-route budget, replacing fixed retry counts that multiply
+ * load during an outage.
+ * <p>
+ * Every successful response adds {@code budget-percent / 100} of a retry to the route's
+ * {@link LoadBudget}; every retry spends one, so retries stay a bounded fraction of recent good
+ * traffic however many requests fail. Retries wait a fully jittered exponential backoff and go
+ * only for idempotent methods, or for requests carrying an {@code Idempotency-Key}. Request
+ * bodies up to {@code max-body-size} are kept to be sent again; larger or chunked ones are not
+ * retried.
+ * <p>
+ * A response already committed cannot be retried. Filters further down that write the response
+ * themselves, like {@link HedgingGatewayFilterFactory}, check {@link #RETRY_STATUSES_ATTR} and
+ * only set the status of a retryable failure, leaving the body unwritten.
+ */
+@Component
+public class BudgetedRetryGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<BudgetedRetryGatewayFilterFactory.Config> {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    /**
+     * Statuses this filter would retry the current attempt on, or absent if it would not retry.
+     * Filters that write the response themselves leave these uncommitted so a retry can replace them.
+     */
+    public static final String RETRY_STATUSES_ATTR =
+            BudgetedRetryGatewayFilterFactory.class.getName() + ".retryStatuses";
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.TRACE);
+    private static final Duration AMPLIFICATION_WINDOW = Duration.ofSeconds(30);
+
+    private final Map<String, RouteRetries> routes = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public BudgetedRetryGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            RouteRetries route = routes.computeIfAbsent(routeId(exchange), id -> new RouteRetries(id, config));
+            route.requests.increment();
+            ServerHttpRequest request = exchange.getRequest();
+            if (!retryable(request)) {
+                return attempt(exchange, chain, route, config, 0, false);
+            }
+            long contentLength = request.getHeaders().getContentLength();
+            if (contentLength <= 0 && !request.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING)) {
+                return attempt(exchange, chain, route, config, 0, true);
+            }
+            if (contentLength < 0 || contentLength > config.getMaxBodySize().toBytes()) {
+                return attempt(exchange, chain, route, config, 0, false);
+            }
+            return DataBufferUtils.join(request.getBody())
+                    .map(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(body -> attempt(exchange.mutate().request(replayable(exchange, body)).build(),
+                            chain, route, config, 0, true));
+        };
+    }
+
+    private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, RouteRetries route,
+                               Config config, int retry, boolean retryable) {
+        return Mono.defer(() -> {
+                    exchange.getAttributes().put(AdaptiveConcurrencyGatewayFilterFactory.ATTEMPT_STARTED_ATTR,
+                            System.nanoTime());
+                    if (retryable && retry < config.getRetries() && route.budget.tokens() >= 1) {
+                        exchange.getAttributes().put(RETRY_STATUSES_ATTR, config.getStatuses());
+                    } else {
+                        exchange.getAttributes().remove(RETRY_STATUSES_ATTR);
+                    }
+                    return chain.filter(exchange);
+                })
+                .thenReturn(Optional.<Throwable>empty())
+                .onErrorResume(error -> Mono.just(Optional.of(error)))
+                .flatMap(error -> {
+                    Mono<Void> giveUp = error.map(Mono::<Void>error).orElse(Mono.empty());
+                    if (error.isEmpty() && !retryableStatus(exchange, config)) {
+                        if (!failed(exchange)) {
+                            route.budget.deposit();
+                        }
+                        return giveUp;
+                    }
+                    if (error.isPresent() && !retryableError(error.get(), config)) {
+                        return giveUp;
+                    }
+                    if (!retryable || exchange.getResponse().isCommitted()) {
+                        return giveUp;
+                    }
+                    if (retry >= config.getRetries()) {
+                        route.maxAttempts.increment();
+                        return giveUp;
+                    }
+                    if (!route.budget.tryWithdraw()) {
+                        route.budgetExhausted.increment();
+                        return giveUp;
+                    }
+                    route.retries.increment();
+                    ServerWebExchangeUtils.reset(exchange);
+                    return Mono.delay(backoff(config, retry))
+                            .then(attempt(exchange, chain, route, config, retry + 1, true));
+                });
+    }
+
+    private static boolean retryable(ServerHttpRequest request) {
+        return IDEMPOTENT_METHODS.contains(request.getMethod())
+                || request.getHeaders().containsKey(IDEMPOTENCY_KEY_HEADER);
+    }
+
+    private static boolean retryableStatus(ServerWebExchange exchange, Config config) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && config.getStatuses().contains(status.value());
+    }
+
+    private static boolean failed(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && status.is5xxServerError();
+    }
+
+    private static boolean retryableError(Throwable error, Config config) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+            if (cause instanceof ResponseStatusException statusException
+                    && config.getStatuses().contains(statusException.getStatusCode().value())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Full jitter: uniformly random up to {@code first-backoff * 2^retry}, capped at {@code max-backoff}. */
+    static Duration backoff(Config config, int retry) {
+        long ceiling = Math.min(config.getMaxBackoff().toNanos(),
+                config.getFirstBackoff().toNanos() << Math.min(retry, 20));
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private static ServerHttpRequest replayable(ServerWebExchange exchange, byte[] body) {
+        return new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    private final class RouteRetries {
+
+        final LoadBudget budget;
+        final Counter requests;
+        final Counter retries;
+        final Counter budgetExhausted;
+        final Counter maxAttempts;
+        private long windowStart = System.nanoTime();
+        private double windowRequests;
+        private double windowRetries;
+        private volatile double amplification = 1;
+
+        RouteRetries(String routeId, Config config) {
+            this.budget = new LoadBudget(config.getBudgetPercent(), config.getBudgetBurst());
+            this.requests = attempts(routeId, "initial");
+            this.retries = attempts(routeId, "retry");
+            this.budgetExhausted = denied(routeId, "budget_exhausted");
+            this.maxAttempts = denied(routeId, "max_attempts");
+            Gauge.builder("gateway.retry.amplification", this, RouteRetries::amplification)
+                    .description("Downstream attempts per client request over the last 30s")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.retry.budget", budget, LoadBudget::tokens)
+                    .description("Retries the route may still send")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        /** Ratio over the last complete window; read by the metrics scrape, so it rolls the window too. */
+        synchronized double amplification() {
+            long now = System.nanoTime();
+            if (now - windowStart >= AMPLIFICATION_WINDOW.toNanos()) {
+                double currentRequests = requests.count();
+                double currentRetries = retries.count();
+                double windowed = currentRequests - windowRequests;
+                amplification = windowed > 0 ? (windowed + currentRetries - windowRetries) / windowed : 1;
+                windowRequests = currentRequests;
+                windowRetries = currentRetries;
+                windowStart = now;
+            }
+            return amplification;
+        }
+
+        private Counter attempts(String routeId, String kind) {
+            return Counter.builder("gateway.retry.attempts")
+                    .description("Downstream attempts by kind")
+                    .tag("route", routeId)
+                    .tag("kind", kind)
+                    .register(meterRegistry);
+        }
+
+        private Counter denied(String routeId, String reason) {
+            return Counter.builder("gateway.retry.denied")
+                    .description("Retryable failures that were not retried")
+                    .tag("route", routeId)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static class Config {
+
+        private int retries = 2;
+        private double budgetPercent = 10;
+        private int budgetBurst = 10;
+        private Duration firstBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private List<Integer> statuses = List.of(502, 503, 504);
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public Config setRetries(int retries) {
+            this.retries = retries;
+            return this;
+        }
+
+        public double getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public Config setBudgetPercent(double budgetPercent) {
+            this.budgetPercent = budgetPercent;
+            return this;
+        }
+
+        public int getBudgetBurst() {
+            return budgetBurst;
+        }
+
+        public Config setBudgetBurst(int budgetBurst) {
+            this.budgetBurst = budgetBurst;
+            return this;
+        }
+
+        public Duration getFirstBackoff() {
+            return firstBackoff;
+        }
+
+        public Config setFirstBackoff(Duration firstBackoff) {
+            this.firstBackoff = firstBackoff;
+            return this;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public Config setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public List<Integer> getStatuses() {
+            return statuses;
+        }
+
+        public Config setStatuses(List<Integer> statuses) {
+            this.statuses = statuses;
+            return this;
+        }
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public Config setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+    }
+}
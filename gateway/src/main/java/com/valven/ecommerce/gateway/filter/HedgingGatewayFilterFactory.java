@@ -0,0 +1,383 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.valven.ecommerce.gateway.concurrency.LoadBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hedges GET and HEAD requests on {@code lb://} routes: if the first attempt has not returned
+ * response headers after the route's observed latency percentile (p95 by default), a second
+ * attempt goes to a different instance. Whichever answers first is streamed to the client and
+ * the other is cancelled. When no attempt answers, the request fails with a 502
+ * {@link ResponseStatusException} caused by the first attempt's error; a first attempt that fails
+ * before the hedge delay fails the request at once instead of waiting for a hedge.
+ * <p>
+ * Hedges are paid from a {@link LoadBudget} of {@code max-percent} of the route's requests, so
+ * they cannot multiply load when the whole service is slow; {@code max-percent: 0} turns hedging
+ * off. Hedged requests are sent by this filter directly, through the gateway's HTTP client and
+ * load balancer, instead of by the routing filters. Other methods, and every request while the
+ * route has fewer than {@code min-samples} latencies or hedging is off, continue down the chain;
+ * their time to commit the response is still recorded, so the delay can be learned. A status that
+ * {@link BudgetedRetryGatewayFilterFactory} would retry is set without committing the response.
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+    public static final String HEDGED_HEADER = "X-Hedged";
+
+    private static final Duration DELAY_REFRESH = Duration.ofSeconds(1);
+    private static final String PASSED_THROUGH_ATTR = HedgingGatewayFilterFactory.class.getName() + ".passedThrough";
+
+    private final Map<String, RouteHedging> routes = new ConcurrentHashMap<>();
+    private final LoadBalancerClientFactory clientFactory;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final WebClient webClient;
+    private final MeterRegistry meterRegistry;
+
+    public HedgingGatewayFilterFactory(LoadBalancerClientFactory clientFactory,
+                                       ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                       HttpClient httpClient,
+                                       MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.clientFactory = clientFactory;
+        this.headersFilters = headersFilters;
+        this.webClient = WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (route == null || !"lb".equals(route.getUri().getScheme())
+                    || (method != HttpMethod.GET && method != HttpMethod.HEAD)) {
+                return chain.filter(exchange);
+            }
+            RouteHedging hedging = routes.computeIfAbsent(route.getId(), id -> new RouteHedging(id, config));
+            hedging.budget.deposit();
+            Duration delay = config.getMaxPercent() > 0 ? hedging.delay() : null;
+            if (delay == null) {
+                // Retries pass through here again; only the last attempt's time is recorded.
+                if (exchange.getAttributes().put(PASSED_THROUGH_ATTR, System.nanoTime()) == null) {
+                    exchange.getResponse().beforeCommit(() -> {
+                        long start = exchange.getRequiredAttribute(PASSED_THROUGH_ATTR);
+                        hedging.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        return Mono.empty();
+                    });
+                }
+                return chain.filter(exchange);
+            }
+            ServerWebExchangeUtils.setAlreadyRouted(exchange);
+            return send(exchange, route, hedging, delay);
+        };
+    }
+
+    private Mono<Void> send(ServerWebExchange exchange, Route route, RouteHedging hedging, Duration delay) {
+        String serviceId = route.getUri().getHost();
+        HttpHeaders headers = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(List::of), exchange);
+        long start = System.nanoTime();
+
+        return choose(serviceId, exchange).flatMap(primary -> {
+            Sinks.One<Boolean> firstFailed = Sinks.one();
+            Mono<Attempt> first = attempt(exchange, serviceId, primary, headers, false)
+                    .doOnError(e -> firstFailed.tryEmitValue(true));
+            // A first attempt that fails before the delay is reported at once, for the retry filter.
+            Mono<Attempt> hedge = Mono.delay(delay)
+                    .takeUntilOther(firstFailed.asMono())
+                    .filter(tick -> {
+                        if (hedging.budget.tryWithdraw()) {
+                            return true;
+                        }
+                        hedging.budgetExhausted.increment();
+                        return false;
+                    })
+                    .flatMap(tick -> chooseOther(serviceId, exchange, primary))
+                    .doOnNext(instance -> hedging.sent.increment())
+                    .flatMap(instance -> attempt(exchange, serviceId, instance, headers, true));
+            return Mono.firstWithValue(first, hedge)
+                    .onErrorMap(NoSuchElementException.class, HedgingGatewayFilterFactory::attemptsFailed);
+        }).flatMap(winner -> {
+            hedging.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (winner.hedge()) {
+                hedging.won.increment();
+            }
+            return write(exchange, winner);
+        });
+    }
+
+    /**
+     * Turns the composite error of {@link Mono#firstWithValue} into a 502 caused by the first
+     * attempt's error, so retries and the concurrency limiter see the transport failure.
+     */
+    private static ResponseStatusException attemptsFailed(NoSuchElementException error) {
+        List<Throwable> causes = error.getCause() != null ? Exceptions.unwrapMultiple(error.getCause()) : List.of();
+        ResponseStatusException failed = new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+                "All attempts failed", causes.isEmpty() ? error : causes.get(0));
+        causes.stream().skip(1).filter(cause -> !(cause instanceof NoSuchElementException))
+                .forEach(failed::addSuppressed);
+        return failed;
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, Attempt winner) {
+        ResponseEntity<Flux<DataBuffer>> entity = winner.entity();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(entity.getStatusCode());
+        Flux<DataBuffer> body = entity.getBody();
+        List<Integer> retryStatuses = exchange.getAttribute(BudgetedRetryGatewayFilterFactory.RETRY_STATUSES_ATTR);
+        if (retryStatuses != null && retryStatuses.contains(entity.getStatusCode().value())) {
+            // Left uncommitted for BudgetedRetry to retry; the body is drained to free the connection.
+            return body != null ? body.doOnNext(DataBufferUtils::release).then() : Mono.empty();
+        }
+        HttpHeaders filtered = HttpHeadersFilter.filter(headersFilters.getIfAvailable(List::of), entity.getHeaders(),
+                exchange, HttpHeadersFilter.Type.RESPONSE);
+        ResponseBodies.addMissing(filtered, response.getHeaders());
+        if (winner.hedge()) {
+            response.getHeaders().set(HEDGED_HEADER, "hedge");
+        }
+        return body != null ? response.writeWith(body) : response.setComplete();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Mono<Attempt> attempt(ServerWebExchange exchange, String serviceId, ServiceInstance instance,
+                                  HttpHeaders headers, boolean hedge) {
+        return Mono.defer(() -> {
+            Set<LoadBalancerLifecycle> lifecycles = lifecycles(serviceId);
+            DefaultRequest<RequestDataContext> lbRequest =
+                    new DefaultRequest<>(new RequestDataContext(new RequestData(exchange.getRequest())));
+            Response<ServiceInstance> lbResponse = new DefaultResponse(instance);
+            lifecycles.forEach(lifecycle -> lifecycle.onStartRequest(lbRequest, lbResponse));
+            URI target = LoadBalancerUriTools.reconstructURI(instance, exchange.getRequest().getURI());
+            return webClient.method(exchange.getRequest().getMethod())
+                    .uri(target)
+                    .headers(outgoing -> outgoing.addAll(headers))
+                    .retrieve()
+                    .onStatus(status -> true, clientResponse -> Mono.empty())
+                    .toEntityFlux(DataBuffer.class)
+                    .doOnNext(entity -> lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                            new CompletionContext<>(CompletionContext.Status.SUCCESS, lbRequest, lbResponse,
+                                    new ResponseData(entity.getStatusCode(), entity.getHeaders(), null,
+                                            lbRequest.getContext().getClientRequest())))))
+                    .doOnError(e -> lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                            new CompletionContext<>(CompletionContext.Status.FAILED, e, lbRequest, lbResponse))))
+                    // The losing attempt: report how long it had taken so far.
+                    .doOnCancel(() -> lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                            new CompletionContext<>(CompletionContext.Status.SUCCESS, lbRequest, lbResponse))))
+                    .map(entity -> new Attempt(entity, hedge));
+        });
+    }
+
+    private Mono<ServiceInstance> choose(String serviceId, ServerWebExchange exchange) {
+        DefaultRequest<RequestDataContext> lbRequest =
+                new DefaultRequest<>(new RequestDataContext(new RequestData(exchange.getRequest())));
+        return Mono.from(clientFactory.getInstance(serviceId).choose(lbRequest))
+                .filter(Response::hasServer)
+                .map(Response::getServer)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("No instances available for " + serviceId)));
+    }
+
+    /** Asks the balancer again, then falls back to any other instance; empty if there is none. */
+    private Mono<ServiceInstance> chooseOther(String serviceId, ServerWebExchange exchange, ServiceInstance primary) {
+        Mono<ServiceInstance> other = Flux.range(0, 2)
+                .concatMap(i -> choose(serviceId, exchange))
+                .filter(instance -> !sameInstance(instance, primary))
+                .next();
+        return other.switchIfEmpty(Mono.defer(() -> {
+            ServiceInstanceListSupplier supplier =
+                    clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class).getIfAvailable();
+            if (supplier == null) {
+                return Mono.empty();
+            }
+            return supplier.get().next().mapNotNull(instances -> {
+                List<ServiceInstance> others = instances.stream()
+                        .filter(instance -> !sameInstance(instance, primary))
+                        .toList();
+                return others.isEmpty() ? null : others.get(ThreadLocalRandom.current().nextInt(others.size()));
+            });
+        }));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Set<LoadBalancerLifecycle> lifecycles(String serviceId) {
+        return LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                clientFactory.getInstances(serviceId, LoadBalancerLifecycle.class),
+                RequestDataContext.class, ResponseData.class, ServiceInstance.class);
+    }
+
+    private static boolean sameInstance(ServiceInstance a, ServiceInstance b) {
+        return a.getHost().equals(b.getHost()) && a.getPort() == b.getPort();
+    }
+
+    private record Attempt(ResponseEntity<Flux<DataBuffer>> entity, boolean hedge) {
+    }
+
+    private final class RouteHedging {
+
+        final Config config;
+        final LoadBudget budget;
+        final Timer latency;
+        final Counter sent;
+        final Counter won;
+        final Counter budgetExhausted;
+        private volatile Duration delay;
+        private volatile long delayComputedAt;
+
+        RouteHedging(String routeId, Config config) {
+            this.config = config;
+            this.budget = new LoadBudget(config.getMaxPercent(), config.getMaxBurst());
+            this.latency = Timer.builder("gateway.hedge.latency")
+                    .description("Time to response headers for requests on hedged routes")
+                    .tag("route", routeId)
+                    .publishPercentiles(config.getPercentile(), 0.99)
+                    .register(meterRegistry);
+            this.sent = hedgeCounter(routeId, "sent");
+            this.won = hedgeCounter(routeId, "won");
+            this.budgetExhausted = hedgeCounter(routeId, "budget_exhausted");
+            Gauge.builder("gateway.hedge.budget", budget, LoadBudget::tokens)
+                    .description("Hedges the route may still send")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        /** The configured latency percentile, clamped and refreshed once a second; null before enough samples. */
+        Duration delay() {
+            long now = System.nanoTime();
+            if (delay != null && now - delayComputedAt < DELAY_REFRESH.toNanos()) {
+                return delay;
+            }
+            if (latency.count() < config.getMinSamples()) {
+                return null;
+            }
+            delayComputedAt = now;
+            for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+                if (value.percentile() == config.getPercentile()) {
+                    long nanos = (long) value.value(TimeUnit.NANOSECONDS);
+                    nanos = Math.max(config.getMinDelay().toNanos(), Math.min(config.getMaxDelay().toNanos(), nanos));
+                    delay = Duration.ofNanos(nanos);
+                }
+            }
+            return delay;
+        }
+
+        private Counter hedgeCounter(String routeId, String result) {
+            return Counter.builder("gateway.hedge.requests")
+                    .description("Hedged attempts by outcome")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static class Config {
+
+        private double percentile = 0.95;
+        private double maxPercent = 5;
+        private int maxBurst = 10;
+        private long minSamples = 100;
+        private Duration minDelay = Duration.ofMillis(5);
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public Config setPercentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        public double getMaxPercent() {
+            return maxPercent;
+        }
+
+        public Config setMaxPercent(double maxPercent) {
+            this.maxPercent = maxPercent;
+            return this;
+        }
+
+        public int getMaxBurst() {
+            return maxBurst;
+        }
+
+        public Config setMaxBurst(int maxBurst) {
+            this.maxBurst = maxBurst;
+            return this;
+        }
+
+        public long getMinSamples() {
+            return minSamples;
+        }
+
+        public Config setMinSamples(long minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public Config setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public Config setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+    }
+}
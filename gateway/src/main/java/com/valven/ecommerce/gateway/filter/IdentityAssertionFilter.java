@@ -0,0 +1,51 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.valven.ecommerce.gateway.security.IdentityAssertionSigner;
+import com.valven.ecommerce.gateway.security.JwtVerifier.VerifiedToken;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Forwards a signed identity assertion for requests whose bearer token {@link AuthFilter}
+ * verified, so services can skip their own JWT verification. Any assertion header sent by the
+ * client is always removed, whether or not the feature is enabled.
+ */
+@Component
+public class IdentityAssertionFilter implements GlobalFilter, Ordered {
+
+    private final IdentityAssertionSigner signer;
+
+    public IdentityAssertionFilter(IdentityAssertionSigner signer) {
+        this.signer = signer;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        VerifiedToken verified = exchange.getAttribute(AuthFilter.VERIFIED_TOKEN_ATTR);
+        String assertion = signer.isEnabled() && verified != null ? signer.sign(verified) : null;
+        if (assertion == null && !request.getHeaders().containsKey(IdentityAssertionSigner.HEADER)) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest mutated = request.mutate()
+                .headers(headers -> {
+                    headers.remove(IdentityAssertionSigner.HEADER);
+                    if (assertion != null) {
+                        headers.set(IdentityAssertionSigner.HEADER, assertion);
+                    }
+                })
+                .build();
+        return chain.filter(exchange.mutate().request(mutated).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return -90;
+    }
+}
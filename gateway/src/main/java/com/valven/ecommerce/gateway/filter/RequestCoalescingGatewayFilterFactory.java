@@ -0,0 +1,258 @@
+package com.valven.ecommerce.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collapses concurrent identical GET and HEAD requests into one downstream exchange.
+ * <p>
+ * Requests are identical when method, path, sorted query parameters and the {@code vary-headers}
+ * match. The first one goes downstream; others arriving while it is in flight wait for its
+ * response and get a copy, marked {@code X-Coalesced: true}. At most {@code max-waiters} wait on one
+ * request and at most {@code max-wait}; beyond that, or if the response is larger than
+ * {@code max-body-size} or fails, waiters make their own downstream call.
+ */
+@Component
+public class RequestCoalescingGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<RequestCoalescingGatewayFilterFactory.Config> {
+
+    public static final String COALESCED_HEADER = "X-Coalesced";
+
+    private enum Role { LEADER, FOLLOWER, OVERFLOW, FALLBACK }
+
+    private record Shared(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    private static final class InFlight {
+        final Sinks.One<Shared> result = Sinks.one();
+        final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, RouteStats> stats = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescingGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.coalesce.in_flight", inFlight, Map::size)
+                .description("Distinct requests currently being coalesced")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<String> varyHeaders = List.copyOf(config.getVaryHeaders());
+        // Must run inside NettyWriteResponseFilter so the leader's body passes through the decorator.
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            HttpMethod method = request.getMethod();
+            if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+                return chain.filter(exchange);
+            }
+            RouteStats routeStats = stats(exchange);
+            String key = key(request, varyHeaders);
+
+            InFlight mine = new InFlight();
+            InFlight existing = inFlight.putIfAbsent(key, mine);
+            if (existing == null) {
+                routeStats.record(Role.LEADER);
+                SharingResponse response = new SharingResponse(exchange.getResponse(), config, key, mine);
+                return chain.filter(exchange.mutate().response(response).build())
+                        .doFinally(signal -> response.share(null));
+            }
+            if (existing.waiters.incrementAndGet() > config.getMaxWaiters()) {
+                existing.waiters.decrementAndGet();
+                routeStats.record(Role.OVERFLOW);
+                return chain.filter(exchange);
+            }
+            routeStats.record(Role.FOLLOWER);
+            return existing.result.asMono()
+                    .timeout(config.getMaxWait())
+                    .map(Optional::of)
+                    .onErrorResume(e -> Mono.just(Optional.empty()))
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> {
+                        if (shared.isPresent()) {
+                            return replay(exchange, shared.get());
+                        }
+                        routeStats.record(Role.FALLBACK);
+                        return chain.filter(exchange);
+                    });
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private static Mono<Void> replay(ServerWebExchange exchange, Shared shared) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(shared.status());
+        HttpHeaders headers = response.getHeaders();
+        ResponseBodies.addMissing(shared.headers(), headers);
+        headers.set(COALESCED_HEADER, "true");
+        if (exchange.getRequest().getMethod() == HttpMethod.HEAD || shared.body().length == 0) {
+            return response.setComplete();
+        }
+        headers.setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    /** Lets the leader's response through while copying it for the waiters. */
+    private final class SharingResponse extends ServerHttpResponseDecorator {
+
+        private final Config config;
+        private final String key;
+        private final InFlight flight;
+
+        SharingResponse(ServerHttpResponse delegate, Config config, String key, InFlight flight) {
+            super(delegate);
+            this.config = config;
+            this.key = key;
+            this.flight = flight;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = HttpStatusCode.valueOf(ResponseBodies.statusOf(getDelegate()));
+            HttpHeaders headers = ResponseBodies.replayableHeaders(getHeaders());
+            return super.writeWith(ResponseBodies.copyWhileStreaming(body, config.getMaxBodySize().toBytes(),
+                    bytes -> share(bytes == null ? null : new Shared(status, headers, bytes))));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            share(new Shared(HttpStatusCode.valueOf(ResponseBodies.statusOf(getDelegate())),
+                    ResponseBodies.replayableHeaders(getHeaders()), new byte[0]));
+            return super.setComplete();
+        }
+
+        /** Publishes the response to the waiters, or releases them to call downstream themselves. */
+        void share(Shared shared) {
+            inFlight.remove(key, flight);
+            if (shared != null) {
+                flight.result.tryEmitValue(shared);
+            } else {
+                flight.result.tryEmitEmpty();
+            }
+        }
+    }
+
+    private static String key(ServerHttpRequest request, List<String> varyHeaders) {
+        StringBuilder key = new StringBuilder(request.getMethod().name()).append(' ')
+                .append(ResponseCacheGatewayFilterFactory.cacheKey(request));
+        HttpHeaders headers = request.getHeaders();
+        for (String name : varyHeaders) {
+            key.append('\n').append(name).append(':');
+            List<String> values = headers.get(name);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    private RouteStats stats(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return stats.computeIfAbsent(route != null ? route.getId() : "unknown", RouteStats::new);
+    }
+
+    private final class RouteStats {
+
+        private final Counter[] counters = new Counter[Role.values().length];
+
+        RouteStats(String routeId) {
+            for (Role role : Role.values()) {
+                counters[role.ordinal()] = Counter.builder("gateway.coalesce.requests")
+                        .description("Requests on coalescing routes by role")
+                        .tag("route", routeId)
+                        .tag("role", role.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+            Gauge.builder("gateway.coalesce.ratio", this, RouteStats::collapseRatio)
+                    .description("Share of requests answered from another request's response")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        void record(Role role) {
+            counters[role.ordinal()].increment();
+        }
+
+        double collapseRatio() {
+            double followers = counters[Role.FOLLOWER.ordinal()].count() - counters[Role.FALLBACK.ordinal()].count();
+            double total = counters[Role.LEADER.ordinal()].count() + counters[Role.FOLLOWER.ordinal()].count()
+                    + counters[Role.OVERFLOW.ordinal()].count();
+            return total == 0 ? 0 : followers / total;
+        }
+    }
+
+    public static class Config {
+
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+        private int maxWaiters = 1000;
+        private Duration maxWait = Duration.ofSeconds(10);
+        private List<String> varyHeaders = List.of(
+                HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.AUTHORIZATION);
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public Config setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        public int getMaxWaiters() {
+            return maxWaiters;
+        }
+
+        public Config setMaxWaiters(int maxWaiters) {
+            this.maxWaiters = maxWaiters;
+            return this;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public Config setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public List<String> getVaryHeaders() {
+            return varyHeaders;
+        }
+
+        public Config setVaryHeaders(List<String> varyHeaders) {
+            this.varyHeaders = varyHeaders;
+            return this;
+        }
+    }
+}
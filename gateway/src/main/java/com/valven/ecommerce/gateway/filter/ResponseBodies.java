@@ -0,0 +1,85 @@
+package com.valven.ecommerce.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Helpers for route filters that keep a copy of a downstream response to answer other requests.
+ */
+final class ResponseBodies {
+
+    private static final Set<String> UNREPLAYABLE_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT),
+            HttpHeaders.AGE.toLowerCase(Locale.ROOT),
+            ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+
+    private ResponseBodies() {
+    }
+
+    /**
+     * Passes {@code body} through unchanged while copying it. {@code onComplete} receives the
+     * copy once the body completes, or {@code null} if it exceeded {@code maxBytes}, failed or
+     * was cancelled.
+     */
+    static Flux<DataBuffer> copyWhileStreaming(Publisher<? extends DataBuffer> body, long maxBytes,
+                                               Consumer<byte[]> onComplete) {
+        ByteArrayOutputStream copy = new ByteArrayOutputStream(1024);
+        boolean[] overflow = {false};
+        return Flux.<DataBuffer>from(body)
+                .doOnNext(buffer -> {
+                    if (overflow[0] || copy.size() + buffer.readableByteCount() > maxBytes) {
+                        overflow[0] = true;
+                        return;
+                    }
+                    try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                        while (iterator.hasNext()) {
+                            ByteBuffer chunk = iterator.next();
+                            byte[] bytes = new byte[chunk.remaining()];
+                            chunk.get(bytes);
+                            copy.write(bytes, 0, bytes.length);
+                        }
+                    }
+                })
+                // Before the terminal signal travels downstream: whoever waits on the write must see the copy first.
+                .doOnComplete(() -> onComplete.accept(overflow[0] ? null : copy.toByteArray()))
+                .doOnError(e -> onComplete.accept(null))
+                .doOnCancel(() -> onComplete.accept(null));
+    }
+
+    /** Response headers worth replaying to another client: no hop-by-hop or per-request ones. */
+    static HttpHeaders replayableHeaders(HttpHeaders headers) {
+        HttpHeaders replayable = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!UNREPLAYABLE_HEADERS.contains(lower) && !lower.startsWith("x-ratelimit-")) {
+                replayable.put(name, new ArrayList<>(values));
+            }
+        });
+        return replayable;
+    }
+
+    /** Copies headers the response does not already have, keeping ones set for this request. */
+    static void addMissing(HttpHeaders from, HttpHeaders to) {
+        from.forEach((name, values) -> {
+            if (!to.containsKey(name)) {
+                to.put(name, values);
+            }
+        });
+    }
+
+    static int statusOf(ServerHttpResponse response) {
+        return response.getStatusCode() != null ? response.getStatusCode().value() : 200;
+    }
+}
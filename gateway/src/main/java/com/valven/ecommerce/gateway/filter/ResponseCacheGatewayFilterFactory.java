@@ -0,0 +1,344 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.valven.ecommerce.gateway.cache.ResponseCache;
+import com.valven.ecommerce.gateway.cache.ResponseCache.Entry;
+import com.valven.ecommerce.gateway.cache.ResponseCache.Result;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Caches successful GET responses of a route in {@link ResponseCache}.
+ * <p>
+ * The key is the path plus the query parameters sorted by name, so parameter order does not split
+ * the cache. Freshness comes from the origin's {@code Cache-Control} ({@code s-maxage},
+ * {@code max-age}, {@code stale-while-revalidate}) and falls back to the route's {@code ttl} and
+ * {@code stale-while-revalidate}; {@code no-store}, {@code no-cache}, {@code private} and
+ * {@code Set-Cookie} responses are never stored. Once an entry goes stale, the first request
+ * revalidates it against the origin (conditionally, with the entry's ETag) while concurrent requests
+ * are answered from the stale copy. Cached responses carry an ETag (the origin's, or a digest of
+ * the body) and clients sending a matching {@code If-None-Match} get a 304.
+ * <p>
+ * Successful non-GET requests on the route purge the route's entries; changes that do not pass
+ * through the gateway, such as stock reserved by order-service, arrive through
+ * {@link com.valven.ecommerce.gateway.cache.ResponseCachePurgeListener}. Paths matching
+ * {@code exclude-paths} are never cached.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private static final Set<HttpMethod> UNSAFE_METHODS = Set.of(
+            HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final ResponseCache cache;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCache cache) {
+        super(Config.class);
+        this.cache = cache;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> excluded = config.getExcludePaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+        // Must run inside NettyWriteResponseFilter so the body passes through the decorated response.
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String routeId = routeId(exchange);
+            HttpMethod method = request.getMethod();
+            if (UNSAFE_METHODS.contains(method)) {
+                return chain.filter(exchange).doOnSuccess(done -> {
+                    HttpStatus status = HttpStatus.resolve(ResponseBodies.statusOf(exchange.getResponse()));
+                    if (status != null && status.is2xxSuccessful()) {
+                        cache.purgeRoute(routeId);
+                    }
+                });
+            }
+            if (method != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            if (excluded.stream().anyMatch(pattern -> pattern.matches(request.getPath().pathWithinApplication()))) {
+                cache.record(routeId, Result.BYPASS);
+                return chain.filter(exchange);
+            }
+
+            String key = cacheKey(request);
+            long now = System.currentTimeMillis();
+            Entry entry = cache.get(key, now);
+            if (entry != null && entry.isFresh(now)) {
+                cache.record(routeId, Result.HIT);
+                return serve(exchange, entry, now, Result.HIT);
+            }
+            if (entry != null) {
+                if (!entry.tryStartRefresh()) {
+                    cache.record(routeId, Result.STALE);
+                    return serve(exchange, entry, now, Result.STALE);
+                }
+                Entry stale = entry;
+                return fetch(exchange, chain, config, routeId, key, stale)
+                        .doFinally(signal -> stale.endRefresh());
+            }
+            return fetch(exchange, chain, config, routeId, key, null);
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, Config config,
+                             String routeId, String key, Entry stale) {
+        ServerHttpRequest request = exchange.getRequest();
+        boolean conditional = stale != null && stale.hasOriginEtag()
+                && !request.getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH);
+        if (conditional) {
+            request = request.mutate()
+                    .headers(headers -> headers.setIfNoneMatch(stale.etag()))
+                    .build();
+        }
+        ServerHttpResponse original = exchange.getResponse();
+        CachingResponse response = new CachingResponse(original, config, routeId, key,
+                request.getPath().value(), conditional ? stale : null);
+        return chain.filter(exchange.mutate().request(request).response(response).build());
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, Entry entry, long now, Result result) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        ResponseBodies.addMissing(entry.headers(), headers);
+        headers.set(HttpHeaders.AGE, String.valueOf(entry.ageSeconds(now)));
+        headers.set(CACHE_STATUS_HEADER, result.name());
+        if (entry.etag() != null
+                && exchange.getRequest().getHeaders().getIfNoneMatch().contains(entry.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(entry.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(entry.body())));
+    }
+
+    /**
+     * Copies the origin's body into the cache while it streams to the client, or substitutes the
+     * cached body when a conditional revalidation comes back 304.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final Config config;
+        private final String routeId;
+        private final String key;
+        private final String path;
+        private final Entry revalidating;
+
+        CachingResponse(ServerHttpResponse delegate, Config config, String routeId, String key, String path,
+                        Entry revalidating) {
+            super(delegate);
+            this.config = config;
+            this.routeId = routeId;
+            this.key = key;
+            this.path = path;
+            this.revalidating = revalidating;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long now = System.currentTimeMillis();
+            int status = ResponseBodies.statusOf(getDelegate());
+            CacheControlDirectives directives = CacheControlDirectives.parse(getHeaders().getCacheControl());
+
+            if (revalidating != null && status == HttpStatus.NOT_MODIFIED.value()) {
+                revalidating.extend(now, directives.ttl(config).toMillis(), directives.stale(config).toMillis());
+                cache.record(routeId, Result.REVALIDATED);
+                setStatusCode(HttpStatus.OK);
+                HttpHeaders headers = getHeaders();
+                ResponseBodies.addMissing(revalidating.headers(), headers);
+                headers.setContentLength(revalidating.body().length);
+                headers.set(CACHE_STATUS_HEADER, Result.REVALIDATED.name());
+                return Flux.from(body).doOnNext(DataBufferUtils::release)
+                        .then(super.writeWith(Mono.just(bufferFactory().wrap(revalidating.body()))));
+            }
+
+            cache.record(routeId, Result.MISS);
+            if (status != HttpStatus.OK.value() || !directives.storable(getHeaders())) {
+                return super.writeWith(body);
+            }
+            long contentLength = getHeaders().getContentLength();
+            long maxBytes = config.getMaxEntrySize().toBytes();
+            if (contentLength > maxBytes) {
+                return super.writeWith(body);
+            }
+            HttpHeaders stored = ResponseBodies.replayableHeaders(getHeaders());
+            String etag = stored.getETag();
+            getHeaders().set(CACHE_STATUS_HEADER, Result.MISS.name());
+
+            Flux<DataBuffer> teed = ResponseBodies.copyWhileStreaming(body, maxBytes, bytes -> {
+                if (bytes == null) {
+                    return;
+                }
+                if (etag == null) {
+                    stored.setETag(weakEtag(bytes));
+                }
+                cache.put(new Entry(routeId, key, path, stored, bytes, stored.getETag(), etag != null, now,
+                        directives.ttl(config).toMillis(), directives.stale(config).toMillis()));
+            });
+            return super.writeWith(teed);
+        }
+    }
+
+    /** The subset of the origin's {@code Cache-Control} the cache acts on. */
+    record CacheControlDirectives(boolean noStore, Duration maxAge, Duration staleWhileRevalidate) {
+
+        static CacheControlDirectives parse(String cacheControl) {
+            boolean noStore = false;
+            Duration maxAge = null;
+            Duration sMaxAge = null;
+            Duration swr = null;
+            if (cacheControl != null) {
+                for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                    String[] parts = directive.trim().split("=", 2);
+                    switch (parts[0]) {
+                        case "no-store", "no-cache", "private" -> noStore = true;
+                        case "max-age" -> maxAge = seconds(parts);
+                        case "s-maxage" -> sMaxAge = seconds(parts);
+                        case "stale-while-revalidate" -> swr = seconds(parts);
+                        default -> {
+                        }
+                    }
+                }
+            }
+            Duration effective = sMaxAge != null ? sMaxAge : maxAge;
+            return new CacheControlDirectives(noStore || (effective != null && effective.isZero()), effective, swr);
+        }
+
+        boolean storable(HttpHeaders headers) {
+            return !noStore && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                    && !"*".equals(headers.getFirst(HttpHeaders.VARY));
+        }
+
+        Duration ttl(Config config) {
+            return maxAge != null ? maxAge : config.getTtl();
+        }
+
+        Duration stale(Config config) {
+            return staleWhileRevalidate != null ? staleWhileRevalidate : config.getStaleWhileRevalidate();
+        }
+
+        private static Duration seconds(String[] parts) {
+            if (parts.length < 2) {
+                return null;
+            }
+            try {
+                return Duration.ofSeconds(Long.parseLong(parts[1].trim().replace("\"", "")));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    static String cacheKey(ServerHttpRequest request) {
+        MultiValueMap<String, String> params = request.getQueryParams();
+        if (params.isEmpty()) {
+            return request.getPath().value();
+        }
+        StringBuilder key = new StringBuilder(request.getPath().value()).append('?');
+        new TreeMap<>(params).forEach((name, values) -> {
+            List<String> sorted = new ArrayList<>(values);
+            sorted.sort(null);
+            for (String value : sorted) {
+                key.append(name).append('=').append(value == null ? "" : value).append('&');
+            }
+        });
+        key.setLength(key.length() - 1);
+        return key.toString();
+    }
+
+    private static String weakEtag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    public static class Config {
+
+        private Duration ttl = Duration.ofSeconds(30);
+        private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+        private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+        private List<String> excludePaths = List.of();
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public Config setTtl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public Config setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            return this;
+        }
+
+        public DataSize getMaxEntrySize() {
+            return maxEntrySize;
+        }
+
+        public Config setMaxEntrySize(DataSize maxEntrySize) {
+            this.maxEntrySize = maxEntrySize;
+            return this;
+        }
+
+        public List<String> getExcludePaths() {
+            return excludePaths;
+        }
+
+        public Config setExcludePaths(List<String> excludePaths) {
+            this.excludePaths = excludePaths;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.valven.ecommerce.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter that decides in memory and reconciles with Redis in the background.
+ * <p>
+ * Each node keeps one bucket per (route, key) and answers {@link #isAllowed} without I/O. Every
+ * {@code rate-limiter.sync-interval} the tokens consumed locally are added to a per-window Redis
+ * counter shared by all nodes, and whatever the other nodes consumed since the last sync is debited
+ * from the local bucket. A sync pass is one Lua call per {@value #SYNC_BATCH_SIZE} active buckets,
+ * so Redis traffic grows with the number of keys per pass, not per request. Keys are only written
+ * (and given a TTL) when there is consumption to add; otherwise the counter is only read.
+ * Cluster-wide consumption therefore tracks the configured rate, overshooting by at most what other
+ * nodes admit during one sync interval. If Redis is slow or down, nodes keep enforcing their local
+ * buckets, and consumption that could not be synced is carried over to the next pass.
+ * <p>
+ * The key space is bounded by {@code rate-limiter.max-keys}; buckets idle for
+ * {@code rate-limiter.idle-timeout} are evicted, and keys beyond the bound share one overflow
+ * bucket per route. Route arguments use the {@code hybrid-rate-limiter.*} prefix with the same
+ * names as the Redis limiter.
+ */
+@Component
+@Primary
+public class HybridRateLimiter extends AbstractRateLimiter<HybridRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "hybrid-rate-limiter";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+
+    private static final Logger log = LoggerFactory.getLogger(HybridRateLimiter.class);
+    private static final String REDIS_PREFIX = "hybrid_rate_limiter:";
+    private static final String OVERFLOW_KEY = "\u0000overflow";
+    static final int SYNC_BATCH_SIZE = 500;
+
+    /** ARGV[1] is the key TTL in ms, ARGV[i + 1] the local consumption to add to KEYS[i]. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Long>> SYNC_SCRIPT = (RedisScript) RedisScript.of("""
+            local totals = {}
+            for i, key in ipairs(KEYS) do
+              local mine = tonumber(ARGV[i + 1])
+              if mine > 0 then
+                totals[i] = redis.call('INCRBY', key, mine)
+                redis.call('PEXPIRE', key, ARGV[1])
+              else
+                totals[i] = tonumber(redis.call('GET', key) or '0')
+              end
+            end
+            return totals
+            """, List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration syncInterval;
+    private final long windowMillis;
+    private final long idleTimeoutNanos;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> decisions = new ConcurrentHashMap<>();
+    private final Counter syncErrors;
+    private volatile boolean redisFailing;
+    private Disposable syncLoop;
+
+    @Autowired
+    public HybridRateLimiter(ConfigurationService configurationService,
+                             ReactiveStringRedisTemplate redisTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${rate-limiter.sync-interval:500ms}") Duration syncInterval,
+                             @Value("${rate-limiter.window:10s}") Duration window,
+                             @Value("${rate-limiter.idle-timeout:2m}") Duration idleTimeout,
+                             @Value("${rate-limiter.max-keys:100000}") int maxKeys) {
+        this(configurationService, redisTemplate, meterRegistry, syncInterval, window, idleTimeout, maxKeys,
+                System::nanoTime);
+    }
+
+    HybridRateLimiter(ConfigurationService configurationService,
+                      ReactiveStringRedisTemplate redisTemplate,
+                      MeterRegistry meterRegistry,
+                      Duration syncInterval,
+                      Duration window,
+                      Duration idleTimeout,
+                      int maxKeys,
+                      LongSupplier nanoClock) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.syncInterval = syncInterval;
+        this.windowMillis = window.toMillis();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+        this.syncErrors = Counter.builder("gateway.ratelimit.sync.errors")
+                .description("Failed reconciliations of a batch of rate-limit buckets with Redis")
+                .register(meterRegistry);
+        Gauge.builder("gateway.ratelimit.keys", buckets, Map::size)
+                .description("Rate-limit buckets held in memory")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        syncLoop = Flux.interval(syncInterval, syncInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> sync().onErrorResume(e -> {
+                    log.warn("Rate limiter sync pass failed: {}", e.getMessage());
+                    return Mono.empty();
+                }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (syncLoop != null) {
+            syncLoop.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            throw new IllegalArgumentException("No Configuration found for route " + routeId);
+        }
+        long now = nanoClock.getAsLong();
+        Bucket bucket = bucket(routeId, id, now);
+        long remaining = bucket.tryConsume(config, now);
+        boolean allowed = remaining >= 0;
+        decisionCounters(routeId)[allowed ? 0 : 1].increment();
+        return Mono.just(new Response(allowed, headers(config, Math.max(remaining, 0))));
+    }
+
+    /**
+     * Pushes local consumption to Redis and debits what other nodes consumed. Runs on the sync
+     * loop; one pass at a time.
+     */
+    Mono<Void> sync() {
+        long now = nanoClock.getAsLong();
+        long window = System.currentTimeMillis() / windowMillis;
+        buckets.values().removeIf(bucket -> now - bucket.lastUsed > idleTimeoutNanos && bucket.unsynced.sum() == 0);
+        return Flux.fromIterable(buckets.values())
+                .filter(bucket -> bucket.unsynced.sum() > 0 || now - bucket.lastUsed < windowMillis * 1_000_000L)
+                .buffer(SYNC_BATCH_SIZE)
+                .concatMap(batch -> reconcile(batch, window))
+                .then();
+    }
+
+    private Mono<Void> reconcile(List<Bucket> batch, long window) {
+        List<String> keys = new ArrayList<>(batch.size());
+        List<String> args = new ArrayList<>(batch.size() + 1);
+        long[] mine = new long[batch.size()];
+        args.add(String.valueOf(windowMillis * 2));
+        for (int i = 0; i < batch.size(); i++) {
+            Bucket bucket = batch.get(i);
+            if (bucket.window != window) {
+                bucket.window = window;
+                bucket.mineInWindow = 0;
+                bucket.othersSeen = 0;
+            }
+            mine[i] = bucket.unsynced.sumThenReset();
+            keys.add(REDIS_PREFIX + bucket.key + ":" + window);
+            args.add(String.valueOf(mine[i]));
+        }
+        return redisTemplate.execute(SYNC_SCRIPT, keys, args)
+                .reduce(new ArrayList<Long>(batch.size()), (totals, part) -> {
+                    totals.addAll(part);
+                    return totals;
+                })
+                .timeout(syncInterval)
+                .doOnNext(totals -> {
+                    for (int i = 0; i < batch.size() && i < totals.size(); i++) {
+                        Bucket bucket = batch.get(i);
+                        bucket.mineInWindow += mine[i];
+                        long others = totals.get(i) - bucket.mineInWindow;
+                        if (others > bucket.othersSeen) {
+                            bucket.debit(others - bucket.othersSeen);
+                            bucket.othersSeen = others;
+                        }
+                    }
+                    if (redisFailing) {
+                        redisFailing = false;
+                        log.info("Rate limiter reconciliation with Redis recovered");
+                    }
+                })
+                .onErrorResume(e -> {
+                    for (int i = 0; i < batch.size(); i++) {
+                        Bucket bucket = batch.get(i);
+                        if (bucket.window == window) {
+                            bucket.unsynced.add(mine[i]);
+                        }
+                    }
+                    syncErrors.increment();
+                    if (!redisFailing) {
+                        redisFailing = true;
+                        log.warn("Rate limiter reconciliation with Redis failed, enforcing local limits only: {}",
+                                e.getMessage());
+                    }
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Bucket bucket(String routeId, String id, long now) {
+        String key = routeId + ":" + id;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                key = routeId + ":" + OVERFLOW_KEY;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(k, now));
+        }
+        bucket.lastUsed = now;
+        return bucket;
+    }
+
+    private Counter[] decisionCounters(String routeId) {
+        return decisions.computeIfAbsent(routeId, route -> new Counter[]{
+                decisionCounter(route, "allowed"), decisionCounter(route, "denied")});
+    }
+
+    private Counter decisionCounter(String routeId, String outcome) {
+        return Counter.builder("gateway.ratelimit.decisions")
+                .description("Rate-limit decisions by route and outcome")
+                .tag("route", routeId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Map<String, String> headers(Config config, long remaining) {
+        return Map.of(
+                REMAINING_HEADER, String.valueOf(remaining),
+                REPLENISH_RATE_HEADER, String.valueOf(config.getReplenishRate()),
+                BURST_CAPACITY_HEADER, String.valueOf(config.getBurstCapacity()),
+                REQUESTED_TOKENS_HEADER, String.valueOf(config.getRequestedTokens()));
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    static final class Bucket {
+
+        private record State(double tokens, long refilledAt) {
+        }
+
+        final String key;
+        final AtomicReference<State> state;
+        final LongAdder unsynced = new LongAdder();
+        volatile long lastUsed;
+
+        // Only touched by the sync loop.
+        long window = -1;
+        long mineInWindow;
+        long othersSeen;
+
+        Bucket(String key, long now) {
+            this.key = key;
+            this.state = new AtomicReference<>(new State(Double.NaN, now));
+            this.lastUsed = now;
+        }
+
+        /**
+         * Takes the requested tokens if available and returns the whole tokens left, or -1 if
+         * the request is denied.
+         */
+        long tryConsume(Config config, long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = refill(current, config, now);
+                double left = tokens - config.getRequestedTokens();
+                boolean allowed = left >= 0;
+                State next = new State(allowed ? left : tokens, Math.max(now, current.refilledAt()));
+                if (state.compareAndSet(current, next)) {
+                    if (allowed) {
+                        unsynced.add(config.getRequestedTokens());
+                        return (long) left;
+                    }
+                    return -1;
+                }
+            }
+        }
+
+        void debit(long consumedElsewhere) {
+            state.updateAndGet(current -> Double.isNaN(current.tokens())
+                    ? current
+                    : new State(current.tokens() - consumedElsewhere, current.refilledAt()));
+        }
+
+        private static double refill(State current, Config config, long now) {
+            if (Double.isNaN(current.tokens())) {
+                return config.getBurstCapacity();
+            }
+            long elapsed = Math.max(0, now - current.refilledAt());
+            double tokens = current.tokens() + elapsed * config.getReplenishRate() / 1_000_000_000.0;
+            return Math.min(tokens, config.getBurstCapacity());
+        }
+    }
+
+    public static class Config {
+
+        private int replenishRate;
+        private int burstCapacity = 1;
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.valven.ecommerce.gateway.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Signs the identity the gateway verified so downstream services can trust it without repeating
+ * JWT verification.
+ * <p>
+ * The assertion is {@code <userId>.<expiresAtEpochSeconds>.<base64url(email)>.<base64url(mac)>},
+ * where the MAC is HMAC-SHA256 over the first three parts with the internal
+ * {@code identity.assertion.secret}. It expires with the token, but never later than
+ * {@code identity.assertion.ttl} from now, to bound replay of a captured header.
+ */
+@Component
+public class IdentityAssertionSigner {
+
+    public static final String HEADER = "X-Identity-Assertion";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Mac prototype;
+
+    public IdentityAssertionSigner(@Value("${identity.assertion.enabled:false}") boolean enabled,
+                                   @Value("${identity.assertion.secret:}") String secret,
+                                   @Value("${identity.assertion.ttl:5m}") Duration ttl) {
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        if (!enabled) {
+            this.prototype = null;
+            return;
+        }
+        if (secret.length() < 32) {
+            throw new IllegalStateException("identity.assertion.secret must be at least 32 characters when enabled");
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String sign(JwtVerifier.VerifiedToken token) {
+        long expiresAt = Math.min(token.expiresAtMillis(), System.currentTimeMillis() + ttlMillis) / 1000;
+        String email = token.email() == null ? "" : token.email();
+        String payload = token.userId() + "." + expiresAt + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(email.getBytes(StandardCharsets.UTF_8));
+        byte[] mac = newMac().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(mac);
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.valven.ecommerce.gateway.security;
+
+import com.valven.ecommerce.jwt.CachingJwtVerifier;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Verifies bearer tokens issued by user-service. The key and parser are built once; verification
+ * is pure CPU work and safe to run on the event loop. Verified tokens are cached as described on
+ * {@link CachingJwtVerifier}.
+ */
+@Component
+public class JwtVerifier extends CachingJwtVerifier<JwtVerifier.VerifiedToken> {
+
+    public record VerifiedToken(String userId, String email, long expiresAtMillis) {
+    }
+
+    public JwtVerifier(MeterRegistry meterRegistry,
+                       @Value("${jwt.secret}") String secret,
+                       @Value("${jwt.cache.max-entries:50000}") int maxEntries,
+                       @Value("${jwt.cache.max-ttl:15m}") Duration maxTtl) {
+        super(claimsParser(secret),
+                (claims, cacheUntil) -> new VerifiedToken(claims.getSubject(), claims.get("email", String.class), cacheUntil),
+                meterRegistry, "gateway.jwt.verifications", "Bearer tokens checked at the gateway, by result",
+                maxEntries, maxTtl);
+    }
+
+    private static Function<String, Claims> claimsParser(String secret) {
+        JwtParser parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        return token -> parser.parseClaimsJws(token).getBody();
+    }
+}
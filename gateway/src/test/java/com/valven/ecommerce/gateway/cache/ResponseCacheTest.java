@@ -0,0 +1,89 @@
+package com.valven.ecommerce.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private static final long NOW = 1_000_000L;
+    private static final long TTL = 10_000L;
+    private static final long STALE = 30_000L;
+
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(new SimpleMeterRegistry(), DataSize.ofKilobytes(20));
+    }
+
+    @Test
+    void put_BeyondBound_ShouldEvictLeastRecentlyReadEntries() {
+        for (int i = 0; i < 10; i++) {
+            cache.put(entry("/api/products/" + i, NOW + i, TTL));
+        }
+        cache.get("/api/products/0", NOW + 100);
+
+        for (int i = 10; i < 15; i++) {
+            cache.put(entry("/api/products/" + i, NOW + 200 + i, TTL));
+        }
+
+        assertThat((long) cache.stats().get("bytes")).isLessThanOrEqualTo(DataSize.ofKilobytes(20).toBytes());
+        assertThat((long) cache.stats().get("evictions")).isPositive();
+        assertThat(cache.get("/api/products/0", NOW + 300)).isNotNull();
+        assertThat(cache.get("/api/products/1", NOW + 300)).isNull();
+        assertThat(cache.get("/api/products/14", NOW + 300)).isNotNull();
+    }
+
+    @Test
+    void put_BeyondBound_ShouldEvictExpiredEntriesBeforeLeastRecentlyReadOnes() {
+        cache.put(entry("/api/products/expired", NOW, 0));
+        for (int i = 0; i < 10; i++) {
+            cache.put(entry("/api/products/" + i, NOW + 1, TTL));
+        }
+        cache.get("/api/products/expired", NOW + STALE - 1);
+
+        cache.put(entry("/api/products/new", NOW + STALE + 1, TTL));
+
+        assertThat(cache.purgePath("/api/products/expired")).isZero();
+        assertThat(cache.stats().get("entries")).isEqualTo(10);
+        assertThat(cache.get("/api/products/new", NOW + STALE + 1)).isNotNull();
+    }
+
+    @Test
+    void put_EntryAboveTenthOfBound_ShouldNotBeStored() {
+        cache.put(new ResponseCache.Entry("products", "/big", "/big", new HttpHeaders(), new byte[3_000], null,
+                false, NOW, TTL, STALE));
+
+        assertThat(cache.get("/big", NOW)).isNull();
+        assertThat(cache.stats().get("bytes")).isEqualTo(0L);
+    }
+
+    @Test
+    void get_PastStaleWindow_ShouldDropEntry() {
+        cache.put(entry("/api/products/1", NOW, TTL));
+
+        assertThat(cache.get("/api/products/1", NOW + TTL + 1).isFresh(NOW + TTL + 1)).isFalse();
+        assertThat(cache.get("/api/products/1", NOW + TTL + STALE)).isNull();
+        assertThat(cache.stats().get("entries")).isEqualTo(0);
+    }
+
+    @Test
+    void purgePath_ShouldRemovePathAndSubpathsOnly() {
+        cache.put(entry("/api/products/4", NOW, TTL));
+        cache.put(entry("/api/products/4/price-history", NOW, TTL));
+        cache.put(entry("/api/products/42", NOW, TTL));
+
+        assertThat(cache.purgePath("/api/products/4")).isEqualTo(2);
+        assertThat(cache.get("/api/products/42", NOW)).isNotNull();
+    }
+
+    private static ResponseCache.Entry entry(String path, long now, long ttl) {
+        return new ResponseCache.Entry("products", path, path, new HttpHeaders(), new byte[1_500], null, false,
+                now, ttl, STALE);
+    }
+}
@@ -0,0 +1,134 @@
+package com.valven.ecommerce.gateway.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimiterTest {
+
+    private static final long WINDOW = GradientLimiter.MIN_WINDOW_NANOS;
+
+    private final AtomicLong clock = new AtomicLong();
+    private GradientLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new GradientLimiter(20, 4, 100, clock::get);
+    }
+
+    @Test
+    void tryAcquire_ShouldAdmitUpToLimitAndFreeSlotsOnRelease() {
+        for (int i = 0; i < 20; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(Duration.ofMillis(10).toNanos(), false);
+        limiter.releaseUnsampled();
+
+        assertThat(limiter.getInFlight()).isEqualTo(18);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void steadyLatencyAtFullUse_ShouldGrowLimit() {
+        window(10, limiter.getLimit());
+        for (int i = 0; i < 5; i++) {
+            window(10, limiter.getLimit());
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    void risingLatency_ShouldShrinkLimit() {
+        for (int i = 0; i < 5; i++) {
+            window(10, limiter.getLimit());
+        }
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 5; i++) {
+            window(40, limiter.getLimit());
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(before);
+    }
+
+    @Test
+    void underusedLimit_ShouldNotGrow() {
+        window(10, 20);
+        for (int i = 0; i < 10; i++) {
+            window(10, 5);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void droppedRequests_ShouldCutLimitDownToMinimum() {
+        window(10, 10, 10);
+
+        assertThat(limiter.getLimit()).isEqualTo(18);
+
+        for (int i = 0; i < 30; i++) {
+            window(10, 10, 10);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void lowDropRate_ShouldNotCutLimit() {
+        window(10, 20);
+        for (int i = 0; i < 5; i++) {
+            window(10, limiter.getLimit(), 1);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    void dropRateAboveThreshold_ShouldCutLimit() {
+        window(10, 20, 3);
+
+        assertThat(limiter.getLimit()).isEqualTo(18);
+    }
+
+    @Test
+    void unsampledReleases_ShouldNotCloseWindows() {
+        window(10, 20);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            clock.addAndGet(WINDOW);
+            limiter.releaseUnsampled();
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    private void window(long rttMillis, int concurrency) {
+        window(rttMillis, concurrency, 0);
+    }
+
+    /**
+     * Holds {@code concurrency} requests, then releases them with the given RTT, the first
+     * {@code drops} of them as dropped; the window can only close on the last release, so every
+     * sample lands in it.
+     */
+    private void window(long rttMillis, int concurrency, int drops) {
+        int acquired = 0;
+        while (acquired < concurrency && limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            if (i == acquired - 1) {
+                clock.addAndGet(WINDOW);
+            }
+            limiter.release(Duration.ofMillis(rttMillis).toNanos(), i < drops);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.valven.ecommerce.gateway.concurrency.GradientLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a slow stub through {@link AdaptiveConcurrencyGatewayFilterFactory} at about three
+ * times its capacity and compares goodput (responses within the client timeout) with and without
+ * the limit. The stub has a fixed number of workers and a FIFO queue, and keeps working on
+ * requests whose clients already gave up, like a real overloaded service.
+ * <p>
+ * A short run of the limited side is part of the regular build. The comparison with no limit is
+ * too noisy on a busy machine over two seconds, so it only runs in the full-length test, which is
+ * disabled by default; run it with
+ * {@code mvn test -pl gateway -Dtest=AdaptiveConcurrencyOverloadTest -Dconcurrency.benchmark=true}.
+ */
+class AdaptiveConcurrencyOverloadTest {
+
+    private static final int WORKERS = 20;
+    private static final Duration SERVICE_TIME = Duration.ofMillis(20);
+    private static final Duration CLIENT_TIMEOUT = Duration.ofMillis(500);
+    private static final int REQUESTS_PER_MS = 3;
+    private static final Duration SHORT_LOAD = Duration.ofSeconds(2);
+    private static final Duration LOAD = Duration.ofSeconds(6);
+
+    @Test
+    void goodputHoldsUnderShortOverload() {
+        assertGoodputHolds(SHORT_LOAD);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "concurrency.benchmark", matches = "true")
+    void goodputHoldsUnderOverload() {
+        Result unlimited = run(null, LOAD);
+        System.out.printf("capacity %d, unlimited: %s%n", capacity(LOAD), unlimited);
+
+        Result limited = assertGoodputHolds(LOAD);
+
+        assertThat(limited.ok()).isGreaterThan(unlimited.ok());
+    }
+
+    private Result assertGoodputHolds(Duration load) {
+        AdaptiveConcurrencyGatewayFilterFactory factory =
+                new AdaptiveConcurrencyGatewayFilterFactory(new SimpleMeterRegistry());
+        Result limited = run(factory, load);
+        GradientLimiter limiter = factory.limiterFor("stub");
+        System.out.printf("capacity %d, adaptive:  %s, final limit %d%n",
+                capacity(load), limited, limiter.getLimit());
+
+        assertThat(limited.ok()).isGreaterThan(capacity(load) * 8 / 10);
+        assertThat(limited.timedOut()).isLessThan(limited.ok() / 100);
+        return limited;
+    }
+
+    private static long capacity(Duration load) {
+        return WORKERS * load.toMillis() / SERVICE_TIME.toMillis();
+    }
+
+    private Result run(AdaptiveConcurrencyGatewayFilterFactory factory, Duration load) {
+        SlowStub stub = new SlowStub();
+        GatewayFilter filter = factory != null
+                ? factory.apply(new AdaptiveConcurrencyGatewayFilterFactory.Config())
+                : (exchange, chain) -> chain.filter(exchange);
+        GatewayFilterChain chain = exchange -> stub.call()
+                .doOnSuccess(ignored -> exchange.getResponse().setStatusCode(HttpStatus.OK));
+        Route route = Route.async().id("stub").uri("http://stub").predicate(exchange -> true).build();
+
+        AtomicLong ok = new AtomicLong();
+        AtomicLong shed = new AtomicLong();
+        AtomicLong timedOut = new AtomicLong();
+        try {
+            Flux.interval(Duration.ofMillis(1))
+                    .take(load.toMillis())
+                    .flatMap(tick -> Flux.range(0, REQUESTS_PER_MS), Integer.MAX_VALUE)
+                    .flatMap(i -> {
+                        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/stub"));
+                        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+                        return filter.filter(exchange, chain)
+                                .timeout(CLIENT_TIMEOUT)
+                                .doOnSuccess(ignored -> {
+                                    if (exchange.getResponse().getStatusCode() == HttpStatus.OK) {
+                                        ok.incrementAndGet();
+                                    } else {
+                                        shed.incrementAndGet();
+                                    }
+                                })
+                                .onErrorResume(e -> {
+                                    timedOut.incrementAndGet();
+                                    return Mono.empty();
+                                });
+                    }, Integer.MAX_VALUE)
+                    .blockLast(load.plus(CLIENT_TIMEOUT).plusSeconds(30));
+        } finally {
+            stub.shutdown();
+        }
+        return new Result(ok.get(), shed.get(), timedOut.get());
+    }
+
+    private record Result(long ok, long shed, long timedOut) {
+        @Override
+        public String toString() {
+            return "ok " + ok + ", shed " + shed + ", timed out " + timedOut;
+        }
+    }
+
+    /** Fixed worker pool with an unbounded FIFO queue; each request takes {@link #SERVICE_TIME}. */
+    private static final class SlowStub {
+
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        private final Deque<MonoSink<Void>> queue = new ArrayDeque<>();
+        private int busy;
+
+        Mono<Void> call() {
+            return Mono.create(sink -> {
+                synchronized (this) {
+                    if (busy >= WORKERS) {
+                        queue.add(sink);
+                        return;
+                    }
+                    busy++;
+                }
+                serve(sink);
+            });
+        }
+
+        private void serve(MonoSink<Void> sink) {
+            timer.schedule(() -> {
+                sink.success();
+                MonoSink<Void> next;
+                synchronized (this) {
+                    next = queue.poll();
+                    if (next == null) {
+                        busy--;
+                    }
+                }
+                if (next != null) {
+                    serve(next);
+                }
+            }, SERVICE_TIME.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        void shutdown() {
+            timer.shutdownNow();
+        }
+    }
+}
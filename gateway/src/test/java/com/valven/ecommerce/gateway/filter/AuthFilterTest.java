@@ -0,0 +1,138 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.valven.ecommerce.gateway.config.RateLimitingConfig;
+import com.valven.ecommerce.gateway.security.JwtVerifier;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthFilterTest {
+
+    private static final String SECRET = "test-secret-key-for-the-gateway-auth-filter-tests";
+    private static final String USER = "3fa85f64-5717-4562-b3fc-2c963f66afa6";
+
+    private final AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.set(exchange);
+        return Mono.empty();
+    };
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuthFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AuthFilter(new JwtVerifier(meterRegistry, SECRET, 100, Duration.ofMinutes(15)), meterRegistry);
+    }
+
+    @Test
+    void protectedPathWithoutToken_ShouldBeRejectedWithChallenge() {
+        MockServerWebExchange exchange = run(MockServerHttpRequest.get("/api/orders"));
+
+        assertRejected(exchange, "Bearer");
+        assertThat(meterRegistry.get("gateway.auth.rejections").tag("reason", "missing").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void protectedPathWithInvalidOrExpiredToken_ShouldBeRejectedWithInvalidTokenChallenge() {
+        MockServerWebExchange forged = run(MockServerHttpRequest.get("/api/orders")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("another-secret-key-that-is-long-enough-for-hmac",
+                        USER, Duration.ofMinutes(5))));
+        MockServerWebExchange expired = run(MockServerHttpRequest.get("/api/orders")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(SECRET, USER, Duration.ofMinutes(-1))));
+        MockServerWebExchange garbage = run(MockServerHttpRequest.get("/api/orders")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-jwt"));
+
+        assertRejected(forged, "Bearer error=\"invalid_token\"");
+        assertRejected(expired, "Bearer error=\"invalid_token\"");
+        assertRejected(garbage, "Bearer error=\"invalid_token\"");
+        assertThat(meterRegistry.get("gateway.auth.rejections").tag("reason", "invalid").counter().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void spoofedUserIdHeader_ShouldBeReplacedByVerifiedSubject() {
+        run(MockServerHttpRequest.get("/api/orders")
+                .header(AuthFilter.USER_ID_HEADER, "00000000-0000-0000-0000-000000000000")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(SECRET, USER, Duration.ofMinutes(5))));
+
+        assertThat(forwarded.get()).isNotNull();
+        assertThat(forwarded.get().getRequest().getHeaders().get(AuthFilter.USER_ID_HEADER)).containsExactly(USER);
+        assertThat(forwarded.get().<JwtVerifier.VerifiedToken>getAttribute(AuthFilter.VERIFIED_TOKEN_ATTR).userId())
+                .isEqualTo(USER);
+    }
+
+    @Test
+    void whitelistedPathWithBadToken_ShouldPassThroughUnauthenticated() {
+        MockServerWebExchange exchange = run(MockServerHttpRequest.get("/api/products/42")
+                .header(AuthFilter.USER_ID_HEADER, USER)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-jwt"));
+
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+        assertThat(forwarded.get()).isNotNull();
+        assertThat(forwarded.get().getRequest().getHeaders().containsKey(AuthFilter.USER_ID_HEADER)).isFalse();
+        assertThat(forwarded.get().<Object>getAttribute(AuthFilter.VERIFIED_TOKEN_ATTR)).isNull();
+    }
+
+    @Test
+    void userKeyResolver_ShouldGiveDistinctUsersDistinctKeys() {
+        KeyResolver resolver = new RateLimitingConfig().userKeyResolver();
+        InetSocketAddress sharedAddress = new InetSocketAddress("10.0.0.7", 40000);
+
+        run(MockServerHttpRequest.get("/api/orders").remoteAddress(sharedAddress)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(SECRET, USER, Duration.ofMinutes(5))));
+        String first = resolver.resolve(forwarded.get()).block();
+        run(MockServerHttpRequest.get("/api/orders").remoteAddress(sharedAddress)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(SECRET, "7c9e6679-7425-40de-944b-e07fc1f90ae7",
+                        Duration.ofMinutes(5))));
+        String second = resolver.resolve(forwarded.get()).block();
+        run(MockServerHttpRequest.get("/api/products").remoteAddress(sharedAddress));
+        String anonymous = resolver.resolve(forwarded.get()).block();
+
+        assertThat(first).isEqualTo("user:" + USER);
+        assertThat(second).isEqualTo("user:7c9e6679-7425-40de-944b-e07fc1f90ae7");
+        assertThat(anonymous).isEqualTo("ip:10.0.0.7");
+    }
+
+    private MockServerWebExchange run(MockServerHttpRequest.BaseBuilder<?> request) {
+        forwarded.set(null);
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    private void assertRejected(MockServerWebExchange exchange, String challenge) {
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.WWW_AUTHENTICATE)).isEqualTo(challenge);
+        assertThat(forwarded.get()).isNull();
+    }
+
+    private static String token(String secret, String subject, Duration ttl) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("email", "user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + ttl.toMillis()))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
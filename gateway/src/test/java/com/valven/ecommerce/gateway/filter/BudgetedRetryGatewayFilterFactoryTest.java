@@ -0,0 +1,211 @@
+package com.valven.ecommerce.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BudgetedRetryGatewayFilterFactoryTest {
+
+    private static final String PATH = "/api/products/42";
+
+    /** Retry statuses offered to each downstream attempt, "none" when it was the last one. */
+    private final List<Object> attempts = new CopyOnWriteArrayList<>();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+    private BudgetedRetryGatewayFilterFactory.Config config;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new BudgetedRetryGatewayFilterFactory.Config()
+                .setFirstBackoff(Duration.ofMillis(1))
+                .setMaxBackoff(Duration.ofMillis(5));
+    }
+
+    @Test
+    void retryableStatus_ShouldBeRetriedUntilSuccess() {
+        MockServerWebExchange exchange = run(filter(config), MockServerHttpRequest.get(PATH),
+                failing(2, HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(attempts).hasSize(3);
+        assertThat(count("gateway.retry.attempts", "kind", "retry")).isEqualTo(2);
+    }
+
+    @Test
+    void lastAllowedAttempt_ShouldNotOfferRetryStatuses() {
+        run(filter(config.setRetries(1)), MockServerHttpRequest.get(PATH), failing(2, HttpStatus.BAD_GATEWAY));
+
+        assertThat(attempts).containsExactly(List.of(502, 503, 504), "none");
+        assertThat(count("gateway.retry.denied", "reason", "max_attempts")).isEqualTo(1);
+    }
+
+    @Test
+    void budget_ShouldBeSpentByRetriesAndRefilledBySuccesses() {
+        GatewayFilter filter = filter(config.setRetries(1).setBudgetPercent(50).setBudgetBurst(1));
+
+        run(filter, MockServerHttpRequest.get(PATH), failing(2, HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(budget()).isZero();
+        run(filter, MockServerHttpRequest.get(PATH), failing(2, HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(count("gateway.retry.denied", "reason", "budget_exhausted")).isEqualTo(1);
+
+        run(filter, MockServerHttpRequest.get(PATH), succeeding());
+        run(filter, MockServerHttpRequest.get(PATH), failing(1, HttpStatus.INTERNAL_SERVER_ERROR));
+        assertThat(budget()).isEqualTo(0.5);
+        run(filter, MockServerHttpRequest.get(PATH), succeeding());
+        assertThat(budget()).isEqualTo(1);
+
+        attempts.clear();
+        MockServerWebExchange retried = run(filter, MockServerHttpRequest.get(PATH),
+                failing(1, HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(retried.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(attempts).hasSize(2);
+    }
+
+    @Test
+    void nonIdempotentMethod_ShouldOnlyBeRetriedWithIdempotencyKey() {
+        GatewayFilter filter = filter(config);
+
+        MockServerWebExchange plain = run(filter, MockServerHttpRequest.post(PATH),
+                failing(1, HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(plain.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(attempts).hasSize(1);
+
+        attempts.clear();
+        MockServerWebExchange keyed = run(filter, MockServerHttpRequest.post(PATH)
+                        .header(BudgetedRetryGatewayFilterFactory.IDEMPOTENCY_KEY_HEADER, "order-7"),
+                failing(1, HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(keyed.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(attempts).hasSize(2);
+    }
+
+    @Test
+    void requestBody_ShouldBeReplayedOnRetryUpToMaxBodySize() {
+        GatewayFilter filter = filter(config.setMaxBodySize(DataSize.ofBytes(16)));
+
+        run(filter, MockServerHttpRequest.put(PATH).contentLength(9).body("{\"qty\":3}"),
+                readingBody(failing(1, HttpStatus.SERVICE_UNAVAILABLE)));
+        assertThat(bodies).containsExactly("{\"qty\":3}", "{\"qty\":3}");
+
+        bodies.clear();
+        String large = "{\"name\":\"far too long\"}";
+        MockServerWebExchange unbuffered = run(filter, MockServerHttpRequest.put(PATH)
+                        .contentLength(large.length()).body(large),
+                readingBody(failing(1, HttpStatus.SERVICE_UNAVAILABLE)));
+        assertThat(bodies).containsExactly(large);
+        assertThat(unbuffered.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void connectionErrors_ShouldBeRetriedButOtherErrorsNot() {
+        GatewayFilter filter = filter(config);
+        List<RuntimeException> errors = new ArrayList<>(List.of(
+                new IllegalStateException("refused", new IOException("Connection refused"))));
+        GatewayFilterChain flaky = exchange -> {
+            attempts.add("attempt");
+            if (!errors.isEmpty()) {
+                return Mono.error(errors.remove(0));
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return Mono.empty();
+        };
+
+        MockServerWebExchange exchange = run(filter, MockServerHttpRequest.get(PATH), flaky);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(attempts).hasSize(2);
+
+        attempts.clear();
+        errors.add(new IllegalArgumentException("bad route"));
+        assertThatThrownBy(() -> run(filter, MockServerHttpRequest.get(PATH), flaky))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(attempts).hasSize(1);
+    }
+
+    @Test
+    void backoff_ShouldBeJitteredUpToCappedExponentialCeiling() {
+        config.setFirstBackoff(Duration.ofMillis(50)).setMaxBackoff(Duration.ofSeconds(1));
+
+        for (int retry = 0; retry < 8; retry++) {
+            Duration ceiling = Duration.ofMillis(Math.min(1_000, 50L << retry));
+            Duration shortest = ceiling;
+            Duration longest = Duration.ZERO;
+            for (int i = 0; i < 1_000; i++) {
+                Duration backoff = BudgetedRetryGatewayFilterFactory.backoff(config, retry);
+                shortest = backoff.compareTo(shortest) < 0 ? backoff : shortest;
+                longest = backoff.compareTo(longest) > 0 ? backoff : longest;
+            }
+            assertThat(longest).isLessThanOrEqualTo(ceiling);
+            assertThat(longest).isGreaterThan(ceiling.multipliedBy(9).dividedBy(10));
+            assertThat(shortest).isLessThan(ceiling.dividedBy(10));
+        }
+    }
+
+    private GatewayFilter filter(BudgetedRetryGatewayFilterFactory.Config config) {
+        return new BudgetedRetryGatewayFilterFactory(meterRegistry).apply(config);
+    }
+
+    private static MockServerWebExchange run(GatewayFilter filter, MockServerHttpRequest.BaseBuilder<?> request,
+                                             GatewayFilterChain chain) {
+        return run(filter, request.build(), chain);
+    }
+
+    private static MockServerWebExchange run(GatewayFilter filter, MockServerHttpRequest request,
+                                             GatewayFilterChain chain) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    /** Answers {@code status} to the first {@code failures} attempts and 200 after that, without committing. */
+    private GatewayFilterChain failing(int failures, HttpStatus status) {
+        int[] calls = {0};
+        return exchange -> {
+            List<Integer> offered = exchange.getAttribute(BudgetedRetryGatewayFilterFactory.RETRY_STATUSES_ATTR);
+            attempts.add(offered != null ? offered : "none");
+            exchange.getResponse().setStatusCode(calls[0]++ < failures ? status : HttpStatus.OK);
+            return Mono.empty();
+        };
+    }
+
+    private GatewayFilterChain succeeding() {
+        return failing(0, HttpStatus.OK);
+    }
+
+    private GatewayFilterChain readingBody(GatewayFilterChain next) {
+        return exchange -> DataBufferUtils.join(exchange.getRequest().getBody())
+                .map(buffer -> {
+                    String body = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return body;
+                })
+                .doOnNext(bodies::add)
+                .then(next.filter(exchange));
+    }
+
+    private double count(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+
+    private double budget() {
+        return meterRegistry.get("gateway.retry.budget").gauge().value();
+    }
+}
@@ -0,0 +1,313 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HedgingGatewayFilterFactoryTest {
+
+    private static final String ROUTE = "product-service";
+    private static final Duration SLOW = Duration.ofMillis(400);
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    /** "instance:status" for every attempt the lifecycle saw end; cancelled ones have no status. */
+    private final List<String> completions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger picks = new AtomicInteger();
+    private final AtomicInteger fastFailures = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoadBalancerClientFactory clientFactory;
+    private HedgingGatewayFilterFactory.Config config;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        List<ServiceInstance> instances = List.of(
+                stub("slow", SLOW, new AtomicInteger()), stub("fast", Duration.ZERO, fastFailures));
+        // The slow instance is always picked first, the fast one when asked for another.
+        ReactiveLoadBalancer<ServiceInstance> balancer = (Request request) ->
+                Mono.just(new DefaultResponse(instances.get(picks.getAndIncrement() % 2)));
+        clientFactory = mock(LoadBalancerClientFactory.class);
+        when(clientFactory.getInstance("catalog")).thenReturn(balancer);
+        doReturn(Map.of("recorder", new RecordingLifecycle()))
+                .when(clientFactory).getInstances("catalog", LoadBalancerLifecycle.class);
+        config = new HedgingGatewayFilterFactory.Config()
+                .setMinSamples(0)
+                .setMinDelay(Duration.ofMillis(50))
+                .setMaxDelay(Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void stopStubs() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void slowPrimary_ShouldBeHedgedAndLoserCancelled() {
+        MockServerWebExchange exchange = run(filter(config), unreachable());
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+        assertThat(exchange.getResponse().getHeaders().getFirst(HedgingGatewayFilterFactory.HEDGED_HEADER))
+                .isEqualTo("hedge");
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("won")).isEqualTo(1);
+        assertThat(completions).containsExactlyInAnyOrder("fast:200", "slow:cancelled");
+    }
+
+    @Test
+    void fastPrimary_ShouldNotBeHedged() {
+        picks.set(1);
+
+        MockServerWebExchange exchange = run(filter(config), unreachable());
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+        assertThat(exchange.getResponse().getHeaders().containsKey(HedgingGatewayFilterFactory.HEDGED_HEADER))
+                .isFalse();
+        assertThat(hedges("sent")).isZero();
+        assertThat(completions).containsExactly("fast:200");
+    }
+
+    @Test
+    void exhaustedBudget_ShouldLetPrimaryFinish() {
+        GatewayFilter filter = filter(config.setMaxPercent(1).setMaxBurst(1));
+        run(filter, unreachable());
+
+        MockServerWebExchange exchange = run(filter, unreachable());
+
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("slow");
+        assertThat(exchange.getResponse().getHeaders().containsKey(HedgingGatewayFilterFactory.HEDGED_HEADER))
+                .isFalse();
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("budget_exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void retryableFailure_ShouldBeLeftUncommittedForBudgetedRetry() {
+        fastFailures.set(1);
+        picks.set(1);
+        GatewayFilter retry = new BudgetedRetryGatewayFilterFactory(meterRegistry)
+                .apply(new BudgetedRetryGatewayFilterFactory.Config().setFirstBackoff(Duration.ofMillis(1)));
+        GatewayFilter hedging = filter(config);
+
+        MockServerWebExchange exchange = run((ex, chain) -> retry.filter(ex, e -> hedging.filter(e, chain)),
+                unreachable());
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+        assertThat(completions).contains("fast:503");
+        assertThat(meterRegistry.get("gateway.retry.attempts").tag("kind", "retry").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failureWithoutRetry_ShouldBeWrittenAsIs() {
+        fastFailures.set(1);
+        picks.set(1);
+
+        MockServerWebExchange exchange = run(filter(config), unreachable());
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("unavailable");
+    }
+
+    @Test
+    void deadPrimary_ShouldFailFastWithBadGatewayAndBeRetried() throws Exception {
+        List<ServiceInstance> instances = List.of(dead(), stub("fast", Duration.ZERO, fastFailures));
+        when(clientFactory.getInstance("catalog")).thenReturn((Request request) ->
+                Mono.just(new DefaultResponse(instances.get(picks.getAndIncrement() % 2))));
+        GatewayFilter hedging = filter(config.setMinDelay(Duration.ofSeconds(2)).setMaxDelay(Duration.ofSeconds(2)));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> run(hedging, unreachable()))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_GATEWAY))
+                .hasRootCauseInstanceOf(ConnectException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(hedges("sent")).isZero();
+
+        picks.set(0);
+        GatewayFilter retry = new BudgetedRetryGatewayFilterFactory(meterRegistry)
+                .apply(new BudgetedRetryGatewayFilterFactory.Config().setFirstBackoff(Duration.ofMillis(1)));
+        MockServerWebExchange exchange = run((ex, chain) -> retry.filter(ex, e -> hedging.filter(e, chain)),
+                unreachable());
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("fast");
+    }
+
+    @Test
+    void hedgingOff_ShouldLeaveRequestToRoutingFilters() {
+        AtomicInteger chainCalls = new AtomicInteger();
+
+        MockServerWebExchange exchange = run(filter(config.setMaxPercent(0)), routed(chainCalls));
+
+        assertThat(chainCalls).hasValue(1);
+        assertThat(ServerWebExchangeUtils.isAlreadyRouted(exchange)).isFalse();
+        verify(clientFactory, never()).getInstance(any());
+    }
+
+    @Test
+    void tooFewSamples_ShouldPassThroughAndRecordLatency() {
+        AtomicInteger chainCalls = new AtomicInteger();
+        GatewayFilter filter = filter(config.setMinSamples(2));
+
+        run(filter, routed(chainCalls));
+        run(filter, routed(chainCalls));
+
+        assertThat(chainCalls).hasValue(2);
+        assertThat(meterRegistry.get("gateway.hedge.latency").tag("route", ROUTE).timer().count()).isEqualTo(2);
+        verify(clientFactory, never()).getInstance(any());
+
+        MockServerWebExchange hedged = run(filter, unreachable());
+        assertThat(hedged.getResponse().getBodyAsString().block()).isEqualTo("fast");
+        assertThat(chainCalls).hasValue(2);
+    }
+
+    @Test
+    void nonIdempotentMethods_ShouldContinueDownTheChain() {
+        AtomicInteger chainCalls = new AtomicInteger();
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("http://localhost/api/products/42"));
+
+        filter(config).filter(exchange, routed(chainCalls)).block(Duration.ofSeconds(5));
+
+        assertThat(chainCalls).hasValue(1);
+        verify(clientFactory, never()).getInstance(any());
+    }
+
+    private GatewayFilter filter(HedgingGatewayFilterFactory.Config config) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = mock(ObjectProvider.class);
+        when(headersFilters.getIfAvailable(any())).thenReturn(List.of());
+        return new HedgingGatewayFilterFactory(clientFactory, headersFilters, HttpClient.create(), meterRegistry)
+                .apply(config);
+    }
+
+    private MockServerWebExchange run(GatewayFilter filter, GatewayFilterChain chain) {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("http://localhost/api/products/42"));
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id(ROUTE)
+                .uri(URI.create("lb://catalog"))
+                .predicate(e -> true)
+                .build());
+        return exchange;
+    }
+
+    private static GatewayFilterChain routed(AtomicInteger calls) {
+        return exchange -> {
+            calls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    private static GatewayFilterChain unreachable() {
+        return exchange -> Mono.error(new AssertionError("hedged requests must not reach the routing filters"));
+    }
+
+    private double hedges(String result) {
+        return meterRegistry.get("gateway.hedge.requests").tag("route", ROUTE).tag("result", result).counter().count();
+    }
+
+    /** Answers its id after {@code delay}, or 503 while {@code failures} is positive. */
+    private ServiceInstance stub(String id, Duration delay, AtomicInteger failures) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(delay.toMillis());
+                boolean fail = failures.getAndDecrement() > 0;
+                byte[] body = (fail ? "unavailable" : id).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(fail ? 503 : 200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (Exception e) {
+                // The gateway gave up on this attempt.
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        servers.add(server);
+        return new DefaultServiceInstance(id, "catalog", "127.0.0.1", server.getAddress().getPort(), false);
+    }
+
+    /** An instance whose port refuses connections. */
+    private static ServiceInstance dead() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return new DefaultServiceInstance("dead", "catalog", "127.0.0.1", socket.getLocalPort(), false);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private class RecordingLifecycle implements LoadBalancerLifecycle {
+
+        @Override
+        public void onStart(Request request) {
+        }
+
+        @Override
+        public void onStartRequest(Request request, Response lbResponse) {
+        }
+
+        @Override
+        public void onComplete(CompletionContext completionContext) {
+            String instance = ((ServiceInstance) completionContext.getLoadBalancerResponse().getServer()).getInstanceId();
+            Object response = completionContext.getClientResponse();
+            completions.add(instance + ":" + (response != null
+                    ? ((ResponseData) response).getHttpStatus().value()
+                    : "cancelled"));
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.valven.ecommerce.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescingGatewayFilterFactoryTest {
+
+    private static final String PATH = "/api/products/42";
+    private static final String BODY = "{\"id\":42}";
+
+    private final AtomicInteger originCalls = new AtomicInteger();
+    private final Sinks.Empty<Void> leaderReleased = Sinks.empty();
+    private final AtomicReference<Throwable> leaderFailure = new AtomicReference<>();
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescingGatewayFilterFactory.Config config;
+
+    /** Holds the first downstream call until {@link #leaderReleased} fires; later ones answer at once. */
+    private final GatewayFilterChain origin = exchange -> {
+        if (originCalls.incrementAndGet() > 1) {
+            return respond(exchange.getResponse());
+        }
+        return leaderReleased.asMono().then(Mono.defer(() -> leaderFailure.get() != null
+                ? Mono.error(leaderFailure.get())
+                : respond(exchange.getResponse())));
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        config = new RequestCoalescingGatewayFilterFactory.Config();
+    }
+
+    @Test
+    void concurrentIdenticalGets_ShouldShareOneDownstreamResponse() {
+        GatewayFilter filter = filter();
+        MockServerWebExchange leader = start(filter, PATH + "?b=2&a=1");
+        List<MockServerWebExchange> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(start(filter, PATH + "?a=1&b=2"));
+        }
+
+        leaderReleased.tryEmitEmpty();
+
+        assertThat(originCalls).hasValue(1);
+        assertThat(leader.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(leader.getResponse().getHeaders().containsKey(RequestCoalescingGatewayFilterFactory.COALESCED_HEADER))
+                .isFalse();
+        for (MockServerWebExchange follower : followers) {
+            assertThat(follower.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(follower.getResponse().getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+            assertThat(follower.getResponse().getHeaders().getFirst(RequestCoalescingGatewayFilterFactory.COALESCED_HEADER))
+                    .isEqualTo("true");
+            assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        }
+        assertThat(requests("follower")).isEqualTo(3);
+        assertThat(start(filter, PATH).getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(originCalls).hasValue(2);
+    }
+
+    @Test
+    void waitersBeyondLimit_ShouldCallDownstreamThemselves() {
+        GatewayFilter filter = filter(config.setMaxWaiters(1));
+        start(filter, PATH);
+        MockServerWebExchange follower = start(filter, PATH);
+        MockServerWebExchange overflow = start(filter, PATH);
+
+        assertThat(originCalls).hasValue(2);
+        assertThat(overflow.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(requests("overflow")).isEqualTo(1);
+
+        leaderReleased.tryEmitEmpty();
+        assertThat(follower.getResponse().getHeaders().getFirst(RequestCoalescingGatewayFilterFactory.COALESCED_HEADER))
+                .isEqualTo("true");
+    }
+
+    @Test
+    void waiterPastMaxWait_ShouldFallBackToDownstream() {
+        GatewayFilter filter = filter(config.setMaxWait(Duration.ofMillis(50)));
+        start(filter, PATH);
+
+        MockServerWebExchange follower = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        filter.filter(follower, origin).block(Duration.ofSeconds(5));
+
+        assertThat(originCalls).hasValue(2);
+        assertThat(follower.getResponse().getHeaders().containsKey(RequestCoalescingGatewayFilterFactory.COALESCED_HEADER))
+                .isFalse();
+        assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(requests("fallback")).isEqualTo(1);
+    }
+
+    @Test
+    void oversizedLeaderBody_ShouldReleaseWaitersToDownstream() {
+        GatewayFilter filter = filter(config.setMaxBodySize(DataSize.ofBytes(4)));
+        MockServerWebExchange leader = start(filter, PATH);
+        MockServerWebExchange follower = start(filter, PATH);
+
+        leaderReleased.tryEmitEmpty();
+
+        assertThat(originCalls).hasValue(2);
+        assertThat(leader.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(follower.getResponse().getHeaders().containsKey(RequestCoalescingGatewayFilterFactory.COALESCED_HEADER))
+                .isFalse();
+        assertThat(requests("fallback")).isEqualTo(1);
+    }
+
+    @Test
+    void leaderFailure_ShouldReleaseWaitersToDownstream() {
+        GatewayFilter filter = filter();
+        AtomicReference<Throwable> leaderError = new AtomicReference<>();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get(PATH)), origin)
+                .subscribe(null, leaderError::set);
+        MockServerWebExchange follower = start(filter, PATH);
+
+        leaderFailure.set(new IllegalStateException("connection reset"));
+        leaderReleased.tryEmitEmpty();
+
+        assertThat(leaderError.get()).hasMessage("connection reset");
+        assertThat(originCalls).hasValue(2);
+        assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(requests("fallback")).isEqualTo(1);
+    }
+
+    @Test
+    void differentVaryHeadersOrMethods_ShouldNotBeCoalesced() {
+        GatewayFilter filter = filter();
+        start(filter, PATH);
+        MockServerWebExchange otherLanguage = MockServerWebExchange.from(
+                MockServerHttpRequest.get(PATH).header("Accept-Language", "tr"));
+        filter.filter(otherLanguage, origin).block(Duration.ofSeconds(5));
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post(PATH)), origin).block(Duration.ofSeconds(5));
+
+        assertThat(originCalls).hasValue(3);
+        assertThat(requests("follower")).isZero();
+    }
+
+    private GatewayFilter filter() {
+        return filter(config);
+    }
+
+    private GatewayFilter filter(RequestCoalescingGatewayFilterFactory.Config config) {
+        return new RequestCoalescingGatewayFilterFactory(meterRegistry).apply(config);
+    }
+
+    private MockServerWebExchange start(GatewayFilter filter, String uri) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+        filter.filter(exchange, origin).subscribe();
+        return exchange;
+    }
+
+    private double requests(String role) {
+        return meterRegistry.get("gateway.coalesce.requests").tag("role", role).counter().count();
+    }
+
+    private static Mono<Void> respond(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
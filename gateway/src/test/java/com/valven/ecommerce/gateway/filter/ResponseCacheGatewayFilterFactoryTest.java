@@ -0,0 +1,183 @@
+package com.valven.ecommerce.gateway.filter;
+
+import com.valven.ecommerce.gateway.cache.ResponseCache;
+import com.valven.ecommerce.gateway.filter.ResponseCacheGatewayFilterFactory.CacheControlDirectives;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final String PATH = "/api/products/42";
+    private static final String BODY = "{\"id\":42,\"stock\":7}";
+
+    private final AtomicInteger originCalls = new AtomicInteger();
+    private final List<String> originIfNoneMatch = new ArrayList<>();
+
+    private ResponseCache cache;
+    private ResponseCacheGatewayFilterFactory.Config config;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(new SimpleMeterRegistry(), DataSize.ofMegabytes(1));
+        config = new ResponseCacheGatewayFilterFactory.Config()
+                .setTtl(Duration.ofSeconds(10))
+                .setStaleWhileRevalidate(Duration.ofSeconds(30));
+        filter = new ResponseCacheGatewayFilterFactory(cache).apply(config);
+    }
+
+    @Test
+    void cacheKey_ShouldSortParametersAndValues() {
+        assertThat(ResponseCacheGatewayFilterFactory.cacheKey(
+                MockServerHttpRequest.get("/api/products?sort=name&category=b&category=a&q=").build()))
+                .isEqualTo("/api/products?category=a&category=b&q=&sort=name");
+        assertThat(ResponseCacheGatewayFilterFactory.cacheKey(MockServerHttpRequest.get(PATH).build()))
+                .isEqualTo(PATH);
+    }
+
+    @Test
+    void cacheControl_ShouldPreferSharedMaxAgeAndRespectNoStore() {
+        CacheControlDirectives shared = CacheControlDirectives.parse(
+                "public, max-age=60, S-MAXAGE=\"120\", stale-while-revalidate=5");
+        CacheControlDirectives defaults = CacheControlDirectives.parse("public, max-age=abc");
+
+        assertThat(shared.ttl(config)).isEqualTo(Duration.ofSeconds(120));
+        assertThat(shared.stale(config)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(shared.storable(new HttpHeaders())).isTrue();
+        assertThat(defaults.ttl(config)).isEqualTo(config.getTtl());
+        assertThat(defaults.stale(config)).isEqualTo(config.getStaleWhileRevalidate());
+        assertThat(CacheControlDirectives.parse("no-store").noStore()).isTrue();
+        assertThat(CacheControlDirectives.parse("private, max-age=60").noStore()).isTrue();
+        assertThat(CacheControlDirectives.parse("max-age=0").noStore()).isTrue();
+        HttpHeaders withCookie = new HttpHeaders();
+        withCookie.add(HttpHeaders.SET_COOKIE, "session=1");
+        assertThat(CacheControlDirectives.parse(null).storable(withCookie)).isFalse();
+    }
+
+    @Test
+    void repeatedGet_ShouldBeServedFromCacheWithEtag() {
+        MockServerWebExchange miss = run(MockServerHttpRequest.get(PATH), origin(HttpStatus.OK, null));
+        MockServerWebExchange hit = run(MockServerHttpRequest.get(PATH), origin(HttpStatus.OK, null));
+        String etag = hit.getResponse().getHeaders().getETag();
+        MockServerWebExchange notModified = run(MockServerHttpRequest.get(PATH).ifNoneMatch(etag),
+                origin(HttpStatus.OK, null));
+
+        assertThat(originCalls).hasValue(1);
+        assertThat(miss.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("MISS");
+        assertThat(hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("HIT");
+        assertThat(hit.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(etag).startsWith("W/\"");
+        assertThat(notModified.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void staleEntry_ShouldBeRefreshedByOneRequestWhileOthersGetTheStaleCopy() {
+        cache.put(staleEntry(null));
+        Sinks.Empty<Void> originDone = Sinks.empty();
+        GatewayFilterChain slowOrigin = exchange -> {
+            originCalls.incrementAndGet();
+            return originDone.asMono().then(respond(exchange, HttpStatus.OK, null));
+        };
+
+        MockServerWebExchange refreshing = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        filter.filter(refreshing, slowOrigin).subscribe();
+        MockServerWebExchange first = run(MockServerHttpRequest.get(PATH), slowOrigin);
+        MockServerWebExchange second = run(MockServerHttpRequest.get(PATH), slowOrigin);
+        originDone.tryEmitEmpty();
+        MockServerWebExchange afterRefresh = run(MockServerHttpRequest.get(PATH), slowOrigin);
+
+        assertThat(originCalls).hasValue(1);
+        assertThat(first.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("STALE");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("old");
+        assertThat(refreshing.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(afterRefresh.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+    }
+
+    @Test
+    void staleEntryWithOriginEtag_ShouldBeRevalidatedWith304() {
+        cache.put(staleEntry("\"v1\""));
+
+        MockServerWebExchange revalidated = run(MockServerHttpRequest.get(PATH), origin(HttpStatus.NOT_MODIFIED, null));
+        MockServerWebExchange hit = run(MockServerHttpRequest.get(PATH), origin(HttpStatus.OK, null));
+
+        assertThat(originIfNoneMatch).containsExactly("\"v1\"");
+        assertThat(revalidated.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(revalidated.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("REVALIDATED");
+        assertThat(revalidated.getResponse().getBodyAsString().block()).isEqualTo("old");
+        assertThat(hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER))
+                .isEqualTo("HIT");
+        assertThat(originCalls).hasValue(1);
+    }
+
+    @Test
+    void uncacheableResponsesAndWrites_ShouldNotBeServedFromCache() {
+        run(MockServerHttpRequest.get(PATH), origin(HttpStatus.OK, "no-store"));
+        run(MockServerHttpRequest.get(PATH), origin(HttpStatus.OK, null));
+        run(MockServerHttpRequest.post(PATH + "/stock/reduce"), origin(HttpStatus.OK, null));
+        run(MockServerHttpRequest.get(PATH), origin(HttpStatus.OK, null));
+
+        assertThat(originCalls).hasValue(4);
+    }
+
+    private MockServerWebExchange run(MockServerHttpRequest.BaseBuilder<?> request, GatewayFilterChain chain) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    private GatewayFilterChain origin(HttpStatus status, String cacheControl) {
+        return exchange -> {
+            originCalls.incrementAndGet();
+            originIfNoneMatch.addAll(exchange.getRequest().getHeaders().getIfNoneMatch());
+            return respond(exchange, status, cacheControl);
+        };
+    }
+
+    private static Mono<Void> respond(ServerWebExchange exchange, HttpStatus status, String cacheControl) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        if (cacheControl != null) {
+            response.getHeaders().setCacheControl(cacheControl);
+        }
+        if (status == HttpStatus.NOT_MODIFIED) {
+            return response.writeWith(Flux.empty());
+        }
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static ResponseCache.Entry staleEntry(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        long storedAt = System.currentTimeMillis() - 20_000;
+        return new ResponseCache.Entry("unknown", PATH, PATH, headers, "old".getBytes(StandardCharsets.UTF_8),
+                etag != null ? etag : "W/\"old\"", etag != null, storedAt, 10_000, 30_000);
+    }
+}
@@ -0,0 +1,170 @@
+package com.valven.ecommerce.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter.Response;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HybridRateLimiterTest {
+
+    private static final String ROUTE = "test-route";
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(2);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Long> redisCounters = new HashMap<>();
+    private final List<List<String>> scriptArgs = new ArrayList<>();
+
+    private ReactiveStringRedisTemplate redisTemplate;
+    private HybridRateLimiter limiter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenAnswer(this::runScript);
+        limiter = limiter(100);
+    }
+
+    @Test
+    void isAllowed_ShouldConsumeBurstAndRefillOverTime() {
+        assertThat(allowed("alice")).isTrue();
+        assertThat(allowed("alice")).isTrue();
+        assertThat(allowed("alice")).isFalse();
+
+        clock.addAndGet(Duration.ofMillis(100).toNanos());
+
+        Response response = limiter.isAllowed(ROUTE, "alice").block();
+        assertThat(response.isAllowed()).isTrue();
+        assertThat(response.getHeaders()).containsEntry(HybridRateLimiter.REMAINING_HEADER, "0");
+        assertThat(allowed("alice")).isFalse();
+        assertThat(allowed("bob")).isTrue();
+    }
+
+    @Test
+    void debit_ShouldRemoveTokensConsumedElsewhere() {
+        HybridRateLimiter.Bucket bucket = new HybridRateLimiter.Bucket("k", 0);
+        HybridRateLimiter.Config config = config();
+
+        assertThat(bucket.tryConsume(config, 0)).isEqualTo(1);
+        bucket.debit(1);
+
+        assertThat(bucket.tryConsume(config, 0)).isEqualTo(-1);
+        assertThat(bucket.unsynced.sum()).isEqualTo(1);
+    }
+
+    @Test
+    void keysBeyondBound_ShouldShareOneOverflowBucket() {
+        limiter = limiter(2);
+
+        assertThat(allowed("alice")).isTrue();
+        assertThat(allowed("bob")).isTrue();
+        assertThat(allowed("carol")).isTrue();
+        assertThat(allowed("dave")).isTrue();
+
+        assertThat(limiter.size()).isEqualTo(3);
+        assertThat(allowed("erin")).isFalse();
+        assertThat(allowed("alice")).isTrue();
+    }
+
+    @Test
+    void sync_ShouldReconcileAllActiveKeysInOneScriptCallAndDebitOtherNodes() {
+        allowed("alice");
+        allowed("bob");
+        limiter.sync().block();
+
+        assertThat(scriptArgs).hasSize(1);
+        assertThat(scriptArgs.get(0)).containsExactly("20000", "1", "1");
+
+        redisCounters.replaceAll((key, total) -> key.contains(":alice:") ? total + 1 : total);
+        limiter.sync().block();
+
+        assertThat(scriptArgs).hasSize(2);
+        assertThat(scriptArgs.get(1)).containsExactly("20000", "0", "0");
+        assertThat(allowed("alice")).isFalse();
+        assertThat(allowed("bob")).isTrue();
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), anyList(), anyList());
+    }
+
+    @Test
+    void sync_ShouldEvictIdleBucketsOnlyOnceTheirConsumptionIsPushed() {
+        allowed("alice");
+        clock.addAndGet(IDLE_TIMEOUT.toNanos() + 1);
+
+        limiter.sync().block();
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(scriptArgs).hasSize(1);
+
+        limiter.sync().block();
+        assertThat(limiter.size()).isZero();
+        assertThat(scriptArgs).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sync_ShouldCarryConsumptionOverAFailedRedisCall() {
+        allowed("alice");
+        allowed("alice");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.error(new IllegalStateException("connection refused")))
+                .thenAnswer(this::runScript);
+
+        limiter.sync().block();
+        limiter.sync().block();
+
+        assertThat(scriptArgs).hasSize(1);
+        assertThat(scriptArgs.get(0)).containsExactly("20000", "2");
+    }
+
+    @Test
+    void sync_WithoutActiveKeys_ShouldNotCallRedis() {
+        limiter.sync().block();
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), anyList());
+    }
+
+    private Flux<List<Long>> runScript(InvocationOnMock invocation) {
+        List<String> keys = invocation.getArgument(1);
+        List<String> args = invocation.getArgument(2);
+        scriptArgs.add(args);
+        List<Long> totals = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            totals.add(redisCounters.merge(keys.get(i), Long.parseLong(args.get(i + 1)), Long::sum));
+        }
+        return Flux.just(totals);
+    }
+
+    private HybridRateLimiter limiter(int maxKeys) {
+        HybridRateLimiter limiter = new HybridRateLimiter(null, redisTemplate, new SimpleMeterRegistry(),
+                Duration.ofMillis(500), Duration.ofSeconds(10), IDLE_TIMEOUT, maxKeys, clock::get);
+        limiter.getConfig().put(ROUTE, config());
+        return limiter;
+    }
+
+    private boolean allowed(String id) {
+        return limiter.isAllowed(ROUTE, id).block().isAllowed();
+    }
+
+    private static HybridRateLimiter.Config config() {
+        return new HybridRateLimiter.Config().setReplenishRate(10).setBurstCapacity(2);
+    }
+}
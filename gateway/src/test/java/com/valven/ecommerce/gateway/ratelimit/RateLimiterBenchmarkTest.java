@@ -0,0 +1,95 @@
+package com.valven.ecommerce.gateway.ratelimit;
+
+import com.valven.ecommerce.benchmark.Benchmark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the per-request cost of a rate-limit decision with {@link HybridRateLimiter} (in-memory
+ * buckets, Redis reconciled in the background) against the {@link RedisRateLimiter} it replaces
+ * (one Lua script round trip per request). The Redis limiter is only measured when Redis answers
+ * at {@code ratelimit.benchmark.redis-host}; the hybrid limiter runs either way.
+ * <p>
+ * Disabled by default, run with
+ * {@code mvn test -pl gateway -Dtest=RateLimiterBenchmarkTest -Dratelimit.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "ratelimit.benchmark", matches = "true")
+class RateLimiterBenchmarkTest {
+
+    private static final String ROUTE = "bench";
+    private static final int KEYS = 1_000;
+    private static final int THREADS = 8;
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void comparePerRequestOverhead() throws Exception {
+        int requests = Integer.getInteger("ratelimit.benchmark.requests", 200_000);
+        String host = System.getProperty("ratelimit.benchmark.redis-host", "localhost");
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(host, 6379);
+        connectionFactory.afterPropertiesSet();
+        ReactiveStringRedisTemplate redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+        boolean redisUp = redisAvailable(redisTemplate);
+
+        HybridRateLimiter hybrid = new HybridRateLimiter(null, redisTemplate, new SimpleMeterRegistry(),
+                Duration.ofMillis(500), Duration.ofSeconds(10), Duration.ofMinutes(2), 100_000);
+        hybrid.getConfig().put(ROUTE, new HybridRateLimiter.Config()
+                .setReplenishRate(100).setBurstCapacity(200));
+        hybrid.start();
+
+        RedisRateLimiter redis = new RedisRateLimiter(redisTemplate,
+                (RedisScript) RedisScript.of(new ClassPathResource("META-INF/scripts/request_rate_limiter.lua"), List.class),
+                null);
+        redis.getConfig().put(ROUTE, new RedisRateLimiter.Config().setReplenishRate(100).setBurstCapacity(200));
+
+        try {
+            Benchmark.warmedUp(round -> {
+                measure(round, "hybrid, 1 thread", hybrid, requests, 1);
+                measure(round, "hybrid, " + THREADS + " threads", hybrid, requests, THREADS);
+                if (redisUp) {
+                    measure(round, "redis, 1 thread", redis, requests / 20, 1);
+                    measure(round, "redis, " + THREADS + " threads", redis, requests / 20, THREADS);
+                }
+            });
+            if (!redisUp) {
+                System.out.println("Redis not reachable at " + host + ":6379, RedisRateLimiter not measured");
+            }
+        } finally {
+            hybrid.stop();
+            connectionFactory.destroy();
+        }
+    }
+
+    private static boolean redisAvailable(ReactiveStringRedisTemplate redisTemplate) {
+        try {
+            redisTemplate.opsForValue().get("ratelimit-benchmark").block(Duration.ofSeconds(2));
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void measure(Benchmark.Round round, String name, RateLimiter<?> limiter, int requests, int threads)
+            throws Exception {
+        AtomicLong allowed = new AtomicLong();
+        round.measure(name, threads, requests, (thread, i) -> {
+            RateLimiter.Response response = limiter.isAllowed(ROUTE, "user-" + ((i + thread) % KEYS)).block();
+            if (response.isAllowed()) {
+                allowed.incrementAndGet();
+            }
+        });
+        if (round.isReported()) {
+            System.out.printf("%-28s %5.1f%% of requests allowed%n", name, 100.0 * allowed.get() / (requests / threads * threads));
+        }
+    }
+}
@@ -1,39 +1,76 @@
 package com.valven.ecommerce.orderservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.Locale;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
+/**
+ * Executors for blocking background work.
+ * <p>
+ * With {@code async.executor.mode=virtual} (the default) every task gets its own virtual thread
+ * and concurrency towards each downstream is capped by a
+ * {@link com.valven.ecommerce.orderservice.service.Bulkhead} instead of by the pool size.
+ * {@code platform} restores the bounded thread pools.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    public enum Mode { PLATFORM, VIRTUAL }
+
+    private final Mode mode;
+
+    public AsyncConfig(@Value("${async.executor.mode:virtual}") String mode) {
+        this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+    }
+
     @Bean(name = "orderTaskExecutor")
     public Executor orderTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("OrderAsync-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        executor.initialize();
-        return executor;
+        return executor(mode, "OrderAsync-", 2, 5, 100, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs the concurrent product-service calls of a checkout. When saturated the calling
+     * request thread runs the call itself rather than dropping it.
+     */
+    @Bean(name = "checkoutTaskExecutor")
+    public Executor checkoutTaskExecutor() {
+        return executor(mode, "Checkout-", 8, 32, 200, new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
+    /**
+     * Runs outbox deliveries; the dispatcher limits them per channel.
+     */
     @Bean(name = "notificationTaskExecutor")
     public Executor notificationTaskExecutor() {
+        return executor(mode, "NotificationAsync-", 1, 3, 50, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static Executor executor(Mode mode, String threadNamePrefix, int corePoolSize, int maxPoolSize,
+                                    int queueCapacity, RejectedExecutionHandler rejectedExecutionHandler) {
+        if (mode == Mode.VIRTUAL) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            executor.setTaskTerminationTimeout(30_000);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(1);
-        executor.setMaxPoolSize(3);
-        executor.setQueueCapacity(50);
-        executor.setThreadNamePrefix("NotificationAsync-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler);
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.valven.ecommerce.orderservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+@Configuration
+public class CatalogClientConfig {
+
+    @Bean
+    @LoadBalanced
+    public RestClient.Builder catalogRestClientBuilder(
+            @Value("${catalog.client.connect-timeout:500ms}") Duration connectTimeout,
+            @Value("${catalog.client.read-timeout:2s}") Duration readTimeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        return RestClient.builder().requestFactory(requestFactory);
+    }
+}
@@ -0,0 +1,14 @@
+package com.valven.ecommerce.orderservice.config;
+
+import com.valven.ecommerce.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces round-robin with the latency-aware balancer for the {@code @LoadBalanced} clients,
+ * such as the catalog client. Same balancer as the gateway's.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
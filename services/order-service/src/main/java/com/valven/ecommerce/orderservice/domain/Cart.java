@@ -13,7 +13,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "carts", indexes = {
-    @Index(name = "idx_cart_user_id", columnList = "user_id")
+    @Index(name = "idx_cart_user_id", columnList = "user_id", unique = true)
 })
 @Data
 @NoArgsConstructor
@@ -28,8 +28,9 @@ public class Cart {
     @Column(nullable = false)
     private UUID userId;
 
-    @ElementCollection
-    @CollectionTable(name = "cart_items", joinColumns = @JoinColumn(name = "cart_id"))
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "cart_id", nullable = false)
+    @OrderBy("id")
     @Builder.Default
     private List<CartItem> items = new ArrayList<>();
     
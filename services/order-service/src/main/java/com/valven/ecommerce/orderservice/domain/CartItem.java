@@ -1,14 +1,35 @@
 package com.valven.ecommerce.orderservice.domain;
 
-import jakarta.persistence.Embeddable;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Positive;
 
-@Embeddable
+@Entity
+@Table(name = "cart_items", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_cart_item_cart_product", columnNames = {"cart_id", "product_id"})
+})
 public class CartItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+
+    @Column(name = "cart_id", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long cartId;
+
+    @Column(name = "product_id", nullable = false)
     private Long productId;
     private String productName;
     private Double price;
+    @Positive
     private Integer quantity;
 
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getCartId() { return cartId; }
+
     public Long getProductId() { return productId; }
     public void setProductId(Long productId) { this.productId = productId; }
     
@@ -20,6 +41,18 @@ public class CartItem {
     
     public Integer getQuantity() { return quantity; }
     public void setQuantity(Integer quantity) { this.quantity = quantity; }
-}
-
 
+    /**
+     * Quantity an add request contributes: one when omitted. Every cart store goes through
+     * this, so stores cannot disagree on what a missing or non-positive quantity means.
+     */
+    public int quantityToAdd() {
+        if (quantity == null) {
+            return 1;
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        return quantity;
+    }
+}
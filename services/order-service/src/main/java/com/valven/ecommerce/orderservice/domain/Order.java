@@ -14,7 +14,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "orders", indexes = {
-    @Index(name = "idx_order_user_id", columnList = "user_id"),
+    @Index(name = "idx_order_user_created_at", columnList = "user_id, created_at"),
     @Index(name = "idx_order_created_at", columnList = "created_at"),
     @Index(name = "idx_order_total_amount", columnList = "total_amount")
 })
@@ -43,7 +43,7 @@ public class Order {
     @ElementCollection
     @CollectionTable(name = "order_items", joinColumns = @JoinColumn(name = "order_id"))
     @Builder.Default
-    private List<CartItem> items = new ArrayList<>();
+    private List<OrderItem> items = new ArrayList<>();
     
     @PrePersist
     protected void onCreate() {
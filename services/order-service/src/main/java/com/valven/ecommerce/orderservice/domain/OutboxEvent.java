@@ -0,0 +1,77 @@
+package com.valven.ecommerce.orderservice.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A notification waiting to be delivered, written in the same transaction as the change that
+ * caused it. For {@code IN_FLIGHT} events {@code nextAttemptAt} is the end of the dispatcher's
+ * lease, after which another dispatcher may claim the event again. Events sharing a
+ * {@code coalesceKey} are due together and only the latest of them is delivered.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_due", columnList = "channel, status, next_attempt_at"),
+    @Index(name = "idx_outbox_claim_token", columnList = "claim_token"),
+    @Index(name = "idx_outbox_coalesce_key", columnList = "coalesce_key, status")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_outbox_dedup_key", columnNames = "dedup_key")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    public enum Channel { EMAIL, ALERT }
+
+    public enum Status { PENDING, IN_FLIGHT, SENT, DEAD }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Channel channel;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    @Column(name = "dedup_key", nullable = false)
+    private String dedupKey;
+
+    @Column(name = "coalesce_key")
+    private String coalesceKey;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+}
@@ -0,0 +1,17 @@
+package com.valven.ecommerce.orderservice.dto;
+
+import com.valven.ecommerce.orderservice.domain.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPage {
+    private List<Order> items;
+    private String nextCursor;
+    private int size;
+}
@@ -0,0 +1,19 @@
+package com.valven.ecommerce.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields of a product-service product that checkout needs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductQuote {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+}
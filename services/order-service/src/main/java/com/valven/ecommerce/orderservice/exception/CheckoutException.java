@@ -0,0 +1,27 @@
+package com.valven.ecommerce.orderservice.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * A checkout that could not complete. Any stock reserved for it has been released and the
+ * cart contents restored before this is thrown.
+ */
+public class CheckoutException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final String errorCode;
+
+    public CheckoutException(HttpStatus status, String errorCode, String message) {
+        super(message);
+        this.status = status;
+        this.errorCode = errorCode;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+}
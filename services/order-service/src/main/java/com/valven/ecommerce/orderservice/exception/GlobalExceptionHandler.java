@@ -1,6 +1,7 @@
 package com.valven.ecommerce.orderservice.exception;
 
 import com.valven.ecommerce.orderservice.dto.ApiResponse;
+import com.valven.ecommerce.orderservice.service.OrderMetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -18,6 +19,11 @@ import java.util.Map;
 public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    private final OrderMetricsService orderMetricsService;
+
+    public GlobalExceptionHandler(OrderMetricsService orderMetricsService) {
+        this.orderMetricsService = orderMetricsService;
+    }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationExceptions(
@@ -31,15 +37,27 @@ public class GlobalExceptionHandler {
         });
 
         log.warn("Validation error: {}", errors);
+        orderMetricsService.recordError("validation");
         return ResponseEntity.badRequest()
                 .body(ApiResponse.<Map<String, String>>success("Validation failed", errors));
     }
 
+    @ExceptionHandler(CheckoutException.class)
+    public ResponseEntity<ApiResponse<Void>> handleCheckoutException(
+            CheckoutException ex, WebRequest request) {
+
+        log.warn("Checkout failed: {}", ex.getMessage());
+        orderMetricsService.recordError(ex.getErrorCode());
+        return ResponseEntity.status(ex.getStatus())
+                .body(ApiResponse.<Void>error(ex.getMessage(), ex.getErrorCode()));
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiResponse<Void>> handleIllegalArgumentException(
             IllegalArgumentException ex, WebRequest request) {
         
         log.warn("Illegal argument: {}", ex.getMessage());
+        orderMetricsService.recordError("illegal_argument");
         return ResponseEntity.badRequest()
                 .body(ApiResponse.<Void>error(ex.getMessage()));
     }
@@ -49,6 +67,7 @@ public class GlobalExceptionHandler {
             RuntimeException ex, WebRequest request) {
         
         log.error("Runtime error: {}", ex.getMessage(), ex);
+        orderMetricsService.recordError(ex.getClass().getSimpleName());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.<Void>error("An unexpected error occurred"));
     }
@@ -58,6 +77,7 @@ public class GlobalExceptionHandler {
             Exception ex, WebRequest request) {
         
         log.error("Unexpected error: {}", ex.getMessage(), ex);
+        orderMetricsService.recordError(ex.getClass().getSimpleName());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.<Void>error("An unexpected error occurred"));
     }
@@ -0,0 +1,55 @@
+package com.valven.ecommerce.orderservice.repository;
+
+import com.valven.ecommerce.orderservice.domain.CartItem;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+
+    /**
+     * Inserts the item into the user's cart or adds to its quantity, in one statement.
+     * Returns 0 when the user has no cart row yet.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+            MERGE INTO cart_items t
+            USING (SELECT c.id AS cart_id FROM carts c WHERE c.user_id = :userId) s
+            ON (t.cart_id = s.cart_id AND t.product_id = :productId)
+            WHEN MATCHED THEN UPDATE SET
+                quantity = t.quantity + :quantity,
+                product_name = COALESCE(CAST(:productName AS VARCHAR(255)), t.product_name),
+                price = COALESCE(CAST(:price AS DOUBLE PRECISION), t.price)
+            WHEN NOT MATCHED THEN INSERT (cart_id, product_id, product_name, price, quantity)
+                VALUES (s.cart_id, :productId, CAST(:productName AS VARCHAR(255)), CAST(:price AS DOUBLE PRECISION), :quantity)
+            """, nativeQuery = true)
+    int upsert(@Param("userId") UUID userId,
+               @Param("productId") Long productId,
+               @Param("productName") String productName,
+               @Param("price") Double price,
+               @Param("quantity") int quantity);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from CartItem i where i.productId = :productId " +
+           "and i.cartId in (select c.id from Cart c where c.userId = :userId)")
+    int deleteByUserIdAndProductId(@Param("userId") UUID userId, @Param("productId") Long productId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from CartItem i where i.cartId in (select c.id from Cart c where c.userId = :userId)")
+    int deleteAllByUserId(@Param("userId") UUID userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from CartItem i where i.cartId in (select c.id from Cart c where c.userId = :userId) order by i.id")
+    List<CartItem> findAllForUpdateByUserId(@Param("userId") UUID userId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("delete from CartItem i where i.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -2,12 +2,15 @@ package com.valven.ecommerce.orderservice.repository;
 
 import com.valven.ecommerce.orderservice.domain.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.UUID;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(UUID userId);
-}
-
 
+    @Query("select c from Cart c left join fetch c.items where c.userId = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") UUID userId);
+}
@@ -1,13 +1,33 @@
 package com.valven.ecommerce.orderservice.repository;
 
 import com.valven.ecommerce.orderservice.domain.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(UUID userId);
-}
 
+    @Query("select o from Order o left join fetch o.items where o.userId = :userId order by o.createdAt desc, o.id desc")
+    List<Order> findWithItemsByUserId(@Param("userId") UUID userId);
+
+    @Query("select o.id from Order o where o.userId = :userId order by o.createdAt desc, o.id desc")
+    List<Long> findPageIds(@Param("userId") UUID userId, Pageable pageable);
 
+    @Query("select o.id from Order o where o.userId = :userId " +
+           "and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) " +
+           "order by o.createdAt desc, o.id desc")
+    List<Long> findPageIdsAfter(@Param("userId") UUID userId,
+                                @Param("createdAt") Instant createdAt,
+                                @Param("id") Long id,
+                                Pageable pageable);
+
+    @Query("select o from Order o left join fetch o.items where o.id in :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+}
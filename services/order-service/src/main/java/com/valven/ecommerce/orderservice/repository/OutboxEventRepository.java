@@ -0,0 +1,78 @@
+package com.valven.ecommerce.orderservice.repository;
+
+import com.valven.ecommerce.orderservice.domain.OutboxEvent;
+import com.valven.ecommerce.orderservice.domain.OutboxEvent.Channel;
+import com.valven.ecommerce.orderservice.domain.OutboxEvent.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    boolean existsByDedupKey(String dedupKey);
+
+    Optional<OutboxEvent> findByDedupKey(String dedupKey);
+
+    List<OutboxEvent> findByClaimToken(String claimToken);
+
+    Optional<OutboxEvent> findFirstByCoalesceKeyAndStatusOrderByIdAsc(String coalesceKey, Status status);
+
+    long countByStatus(Status status);
+
+    @Query("select e.id from OutboxEvent e where e.channel = :channel and e.status in :statuses "
+            + "and e.nextAttemptAt <= :now order by e.nextAttemptAt")
+    List<Long> findDueIds(@Param("channel") Channel channel, @Param("statuses") Collection<Status> statuses,
+                          @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Claims the given events unless another dispatcher claimed them since they were selected.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update OutboxEvent e set e.status = 'IN_FLIGHT', e.claimToken = :token, e.nextAttemptAt = :leaseUntil "
+            + "where e.id in :ids and e.status in :statuses and e.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("statuses") Collection<Status> statuses,
+              @Param("now") Instant now, @Param("token") String token, @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Adds the remaining due events of the given coalesce keys to a claim, so a coalescing group
+     * is never split across claims.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update OutboxEvent e set e.status = 'IN_FLIGHT', e.claimToken = :token, e.nextAttemptAt = :leaseUntil "
+            + "where e.coalesceKey in :keys and e.status in :statuses and e.nextAttemptAt <= :now")
+    int claimCoalesced(@Param("keys") Collection<String> keys, @Param("statuses") Collection<Status> statuses,
+                       @Param("now") Instant now, @Param("token") String token, @Param("leaseUntil") Instant leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.status = 'SENT', e.sentAt = :sentAt, e.attempts = e.attempts + 1 "
+            + "where e.id in :ids and e.claimToken = :token and e.status = 'IN_FLIGHT'")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("sentAt") Instant sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.status = :status, e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, "
+            + "e.lastError = :error where e.id in :ids and e.claimToken = :token and e.status = 'IN_FLIGHT'")
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("status") Status status,
+                   @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+
+    @Query("select min(e.createdAt) from OutboxEvent e where e.status in :statuses")
+    Optional<Instant> findOldestCreatedAt(@Param("statuses") Collection<Status> statuses);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.status = 'SENT' and e.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,113 @@
+package com.valven.ecommerce.orderservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Accepts the signed identity assertion forwarded by the gateway in place of the JWT.
+ * <p>
+ * Opt-in with {@code identity.assertion.enabled}; the secret must match the gateway's. The header
+ * is {@code <userId>.<expiresAtEpochSeconds>.<base64url(email)>.<base64url(mac)>} with an
+ * HMAC-SHA256 over the first three parts. Anything malformed, expired or with a bad MAC is
+ * ignored, and the caller falls back to verifying the bearer token.
+ */
+@Component
+public class IdentityAssertionVerifier {
+
+    public static final String HEADER = "X-Identity-Assertion";
+
+    private static final Logger log = LoggerFactory.getLogger(IdentityAssertionVerifier.class);
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final Mac prototype;
+    private final Counter accepted;
+    private final Counter rejected;
+
+    public IdentityAssertionVerifier(MeterRegistry meterRegistry,
+                                     @Value("${identity.assertion.enabled:false}") boolean enabled,
+                                     @Value("${identity.assertion.secret:}") String secret) {
+        this.enabled = enabled;
+        this.accepted = assertionCounter(meterRegistry, "accepted");
+        this.rejected = assertionCounter(meterRegistry, "rejected");
+        if (!enabled) {
+            this.prototype = null;
+            return;
+        }
+        if (secret.length() < 32) {
+            throw new IllegalStateException("identity.assertion.secret must be at least 32 characters when enabled");
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Optional<JwtVerifier.VerifiedToken> verify(String assertion) {
+        if (!enabled || assertion == null) {
+            return Optional.empty();
+        }
+        Optional<JwtVerifier.VerifiedToken> result = parse(assertion);
+        (result.isPresent() ? accepted : rejected).increment();
+        return result;
+    }
+
+    private Optional<JwtVerifier.VerifiedToken> parse(String assertion) {
+        int macStart = assertion.lastIndexOf('.');
+        if (macStart < 0) {
+            return Optional.empty();
+        }
+        String payload = assertion.substring(0, macStart);
+        String[] parts = payload.split("\\.", -1);
+        if (parts.length != 3) {
+            return Optional.empty();
+        }
+        try {
+            byte[] expected = newMac().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            byte[] actual = Base64.getUrlDecoder().decode(assertion.substring(macStart + 1));
+            if (!MessageDigest.isEqual(expected, actual)) {
+                log.warn("Identity assertion with invalid MAC");
+                return Optional.empty();
+            }
+            long expiresAtMillis = Long.parseLong(parts[1]) * 1000;
+            if (expiresAtMillis <= System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            String email = new String(Base64.getUrlDecoder().decode(parts[2]), StandardCharsets.UTF_8);
+            return Optional.of(new JwtVerifier.VerifiedToken(UUID.fromString(parts[0]),
+                    email.isEmpty() ? null : email, expiresAtMillis));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter assertionCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("identity.assertions")
+                .description("Gateway identity assertions by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
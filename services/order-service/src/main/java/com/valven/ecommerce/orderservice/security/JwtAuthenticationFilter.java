@@ -14,13 +14,15 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
-    private final JwtUtil jwtUtil;
+    private final JwtVerifier jwtVerifier;
+    private final IdentityAssertionVerifier identityAssertionVerifier;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -34,34 +36,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        String authHeader = request.getHeader("Authorization");
-        
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            
-            try {
-                if (jwtUtil.validateToken(token)) {
-                    String userId = jwtUtil.getUserIdFromToken(token).toString();
-                    String email = jwtUtil.getEmailFromToken(token);
-                    
-                    
-                    request.setAttribute("userId", userId);
-                    request.setAttribute("userEmail", email);
-                    
-                    
-                    UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(userId, null, new ArrayList<>());
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    log.debug("User authenticated: {}", email);
-                } else {
-                    log.warn("Invalid JWT token");
-                }
-            } catch (Exception e) {
-                log.error("JWT authentication failed: {}", e.getMessage());
+        Optional<JwtVerifier.VerifiedToken> identity =
+            identityAssertionVerifier.verify(request.getHeader(IdentityAssertionVerifier.HEADER));
+        if (identity.isEmpty()) {
+            String authHeader = request.getHeader("Authorization");
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                identity = jwtVerifier.verify(authHeader.substring(7));
             }
         }
-        
+
+        identity.ifPresent(verified -> {
+            String userId = verified.userId().toString();
+            request.setAttribute("userId", userId);
+            request.setAttribute("userEmail", verified.email());
+
+            UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(userId, null, new ArrayList<>());
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+
+            log.debug("User authenticated: {}", verified.email());
+        });
+
         filterChain.doFilter(request, response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.valven.ecommerce.orderservice.security;
+
+import com.valven.ecommerce.jwt.CachingJwtVerifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Verifies bearer tokens once and memoizes the result, as described on {@link CachingJwtVerifier},
+ * so a client reusing its token pays for the signature check once. A subject that is not a UUID
+ * is rejected.
+ */
+@Component
+public class JwtVerifier extends CachingJwtVerifier<JwtVerifier.VerifiedToken> {
+
+    public record VerifiedToken(UUID userId, String email, long expiresAtMillis) {
+    }
+
+    public JwtVerifier(JwtUtil jwtUtil,
+                       MeterRegistry meterRegistry,
+                       @Value("${jwt.cache.max-entries:10000}") int maxEntries,
+                       @Value("${jwt.cache.max-ttl:15m}") Duration maxTtl) {
+        super(jwtUtil::parseClaims,
+                (claims, cacheUntil) -> new VerifiedToken(UUID.fromString(claims.getSubject()),
+                        claims.get("email", String.class), cacheUntil),
+                meterRegistry, "jwt.verifications", "Bearer token verifications by result", maxEntries, maxTtl);
+    }
+}
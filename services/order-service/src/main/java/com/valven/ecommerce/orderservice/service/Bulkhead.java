@@ -0,0 +1,71 @@
+package com.valven.ecommerce.orderservice.service;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent calls to one downstream. With virtual threads the executor no
+ * longer bounds concurrency, so this is what keeps a slow dependency from being flooded.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int limit;
+    private final Semaphore permits;
+
+    public Bulkhead(String name, int limit) {
+        this.name = name;
+        this.limit = limit;
+        this.permits = new Semaphore(limit);
+    }
+
+    /**
+     * Runs the call once a permit is free, waiting at most {@code maxWait}.
+     *
+     * @throws RejectedExecutionException if no permit became free in time
+     */
+    public <T> T call(Duration maxWait, Supplier<T> call) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for " + name, e);
+        }
+        if (!acquired) {
+            throw new RejectedExecutionException(name + " is at its limit of " + limit + " concurrent calls");
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void acquire() {
+        permits.acquireUninterruptibly();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int available() {
+        return permits.availablePermits();
+    }
+
+    public int inUse() {
+        return limit - permits.availablePermits();
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public String name() {
+        return name;
+    }
+}
@@ -0,0 +1,30 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Cart;
+import com.valven.ecommerce.orderservice.domain.CartItem;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per-user shopping cart storage. The implementation is selected with {@code cart.store}
+ * ({@code jpa} by default, or {@code redis}).
+ */
+public interface CartStore {
+
+    Optional<Cart> getCart(UUID userId);
+
+    /**
+     * Adds the item, or increases its quantity if the product is already in the cart.
+     */
+    Cart addItem(UUID userId, CartItem item);
+
+    Optional<Cart> removeItem(UUID userId, Long productId);
+
+    Optional<Cart> clear(UUID userId);
+
+    /**
+     * Atomically returns the current cart contents and empties the cart.
+     */
+    Optional<Cart> checkout(UUID userId);
+}
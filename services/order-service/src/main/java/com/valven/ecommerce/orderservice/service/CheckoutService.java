@@ -0,0 +1,298 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Cart;
+import com.valven.ecommerce.orderservice.domain.CartItem;
+import com.valven.ecommerce.orderservice.domain.Order;
+import com.valven.ecommerce.orderservice.domain.OrderItem;
+import com.valven.ecommerce.orderservice.dto.ProductQuote;
+import com.valven.ecommerce.orderservice.exception.CheckoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Turns a user's cart, or an explicit list of products, into an order using prices and stock
+ * from product-service.
+ * <p>
+ * The cart is taken atomically, then every line is priced and its stock reserved concurrently.
+ * The order total is computed here from the current prices. If any call fails or the whole
+ * checkout exceeds {@code checkout.budget}, reserved stock is released (including reservations
+ * that complete after the deadline) and the lines are put back into the cart.
+ * <p>
+ * Each line is reserved under its own key, which product-service applies at most once. That
+ * makes it safe to release every reservation whose outcome is unknown, such as one that timed
+ * out here after product-service already took the stock; only a definite rejection is skipped.
+ */
+@Service
+public class CheckoutService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutService.class);
+    private static final Duration RELEASE_MAX_WAIT = Duration.ofSeconds(30);
+    static final List<String> STAGES = List.of("cart", "price", "reserve", "fanout", "persist");
+
+    private final CartStore cartStore;
+    private final ProductCatalogClient catalogClient;
+    private final OrderPlacementService orderPlacementService;
+    private final Executor executor;
+    private final Bulkhead catalogBulkhead;
+    private final MeterRegistry meterRegistry;
+    private final Duration budget;
+    private final Map<String, Timer> stageTimers = new HashMap<>();
+    private final Counter released;
+    private final Counter releaseFailed;
+
+    public CheckoutService(CartStore cartStore,
+                           ProductCatalogClient catalogClient,
+                           OrderPlacementService orderPlacementService,
+                           @Qualifier("checkoutTaskExecutor") Executor executor,
+                           DownstreamLimits downstreamLimits,
+                           MeterRegistry meterRegistry,
+                           @Value("${checkout.budget:3s}") Duration budget) {
+        this.cartStore = cartStore;
+        this.catalogClient = catalogClient;
+        this.orderPlacementService = orderPlacementService;
+        this.executor = executor;
+        this.catalogBulkhead = downstreamLimits.get(DownstreamLimits.PRODUCT_SERVICE);
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+        for (String stage : STAGES) {
+            stageTimers.put(stage, Timer.builder("orders.checkout.stage")
+                    .description("Checkout latency per stage")
+                    .tag("stage", stage)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        this.released = compensationCounter("released");
+        this.releaseFailed = compensationCounter("failed");
+    }
+
+    public Order checkout(UUID userId) {
+        return recordCheckout(userId, deadline -> {
+            Cart cart = timed("cart", () -> cartStore.checkout(userId))
+                    .filter(c -> c.getItems() != null && !c.getItems().isEmpty())
+                    .orElseThrow(() -> new CheckoutException(HttpStatus.BAD_REQUEST, "EMPTY_CART", "Cart is empty"));
+            return placeOrder(userId, new ArrayList<>(cart.getItems()), deadline, true);
+        });
+    }
+
+    /**
+     * Places an order for explicitly listed products without going through the cart. Only product
+     * ids and quantities are taken from the request; names, prices and the total come from
+     * product-service, and stock is reserved, exactly as for a cart checkout.
+     */
+    public Order placeOrder(UUID userId, List<OrderItem> requested) {
+        return recordCheckout(userId, deadline -> placeOrder(userId, toLines(requested), deadline, false));
+    }
+
+    private Order recordCheckout(UUID userId, LongFunction<Order> work) {
+        Timer.Sample total = Timer.start(meterRegistry);
+        long deadline = System.nanoTime() + budget.toNanos();
+        String outcome = "failed";
+        try {
+            Order order = work.apply(deadline);
+            outcome = "success";
+            log.info("Checkout completed for user: {}, order: {}, total: {}", userId, order.getId(), order.getTotalAmount());
+            return order;
+        } catch (CheckoutException e) {
+            outcome = e.getErrorCode().toLowerCase(Locale.ROOT);
+            throw e;
+        } finally {
+            total.stop(Timer.builder("orders.checkout.duration")
+                    .description("End-to-end checkout latency")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static List<CartItem> toLines(List<OrderItem> requested) {
+        if (requested == null || requested.isEmpty()) {
+            throw new CheckoutException(HttpStatus.BAD_REQUEST, "INVALID_ORDER", "Order has no items");
+        }
+        List<CartItem> lines = new ArrayList<>(requested.size());
+        for (OrderItem item : requested) {
+            if (item == null || item.getProductId() == null || item.getQuantity() == null || item.getQuantity() < 1) {
+                throw new CheckoutException(HttpStatus.BAD_REQUEST, "INVALID_ORDER",
+                        "Every item needs a productId and a positive quantity");
+            }
+            CartItem line = new CartItem();
+            line.setProductId(item.getProductId());
+            line.setProductName(item.getProductName());
+            line.setQuantity(item.getQuantity());
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private Order placeOrder(UUID userId, List<CartItem> lines, long deadline, boolean fromCart) {
+        List<CompletableFuture<ProductQuote>> quotes = new ArrayList<>(lines.size());
+        List<CompletableFuture<Void>> reservations = new ArrayList<>(lines.size());
+        List<String> reservationKeys = new ArrayList<>(lines.size());
+        String checkoutId = UUID.randomUUID().toString();
+        try {
+            Timer.Sample fanout = Timer.start(meterRegistry);
+            CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+            for (CartItem line : lines) {
+                String reservationKey = checkoutId + ":" + reservationKeys.size();
+                reservationKeys.add(reservationKey);
+                quotes.add(watch(CompletableFuture.supplyAsync(
+                        () -> timed("price", () -> catalogCall(deadline, () -> catalogClient.getProduct(line.getProductId()))),
+                        executor), firstFailure));
+                reservations.add(watch(CompletableFuture.runAsync(
+                        () -> timed("reserve", () -> catalogCall(deadline, () -> {
+                            catalogClient.reserveStock(line.getProductId(), line.getQuantity(), reservationKey);
+                            return null;
+                        })), executor), firstFailure));
+            }
+            List<CompletableFuture<?>> calls = new ArrayList<>(quotes);
+            calls.addAll(reservations);
+            await(CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)), firstFailure, deadline);
+            fanout.stop(stageTimers.get("fanout"));
+
+            Order order = buildOrder(userId, lines, quotes);
+            return timed("persist", () -> orderPlacementService.place(order));
+        } catch (RuntimeException e) {
+            compensate(userId, lines, reservationKeys, reservations, fromCart);
+            throw e;
+        }
+    }
+
+    private static <T> CompletableFuture<T> watch(CompletableFuture<T> call, CompletableFuture<Void> firstFailure) {
+        call.whenComplete((result, error) -> {
+            if (error != null) {
+                firstFailure.completeExceptionally(error);
+            }
+        });
+        return call;
+    }
+
+    private void await(CompletableFuture<Void> all, CompletableFuture<Void> firstFailure, long deadline) {
+        try {
+            CompletableFuture.anyOf(all, firstFailure).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new CheckoutException(HttpStatus.GATEWAY_TIMEOUT, "CHECKOUT_TIMEOUT",
+                    "Checkout did not complete within " + budget.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CheckoutException checkoutException) {
+                throw checkoutException;
+            }
+            throw new CheckoutException(HttpStatus.SERVICE_UNAVAILABLE, "CATALOG_UNAVAILABLE",
+                    "Checkout failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CheckoutException(HttpStatus.SERVICE_UNAVAILABLE, "CATALOG_UNAVAILABLE", "Checkout interrupted");
+        }
+    }
+
+    private static Order buildOrder(UUID userId, List<CartItem> lines, List<CompletableFuture<ProductQuote>> quotes) {
+        List<OrderItem> items = new ArrayList<>(lines.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines.size(); i++) {
+            CartItem line = lines.get(i);
+            ProductQuote quote = quotes.get(i).join();
+            OrderItem item = new OrderItem();
+            item.setProductId(line.getProductId());
+            item.setProductName(quote.getName() != null ? quote.getName() : line.getProductName());
+            item.setPrice(quote.getPrice().doubleValue());
+            item.setQuantity(line.getQuantity());
+            items.add(item);
+            total = total.add(quote.getPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        return Order.builder()
+                .userId(userId)
+                .totalAmount(total.setScale(2, RoundingMode.HALF_UP).doubleValue())
+                .items(items)
+                .build();
+    }
+
+    /**
+     * Releases every reservation that was not definitely rejected, once its call has finished, and
+     * restores the cart if the lines came from it.
+     */
+    private void compensate(UUID userId, List<CartItem> lines, List<String> reservationKeys,
+                            List<CompletableFuture<Void>> reservations, boolean restoreCart) {
+        for (int i = 0; i < reservations.size(); i++) {
+            CartItem line = lines.get(i);
+            String reservationKey = reservationKeys.get(i);
+            reservations.get(i).whenCompleteAsync((ignored, error) -> {
+                if (!isRejected(error)) {
+                    release(line, reservationKey);
+                }
+            }, executor);
+        }
+        if (!restoreCart) {
+            return;
+        }
+        for (CartItem line : lines) {
+            try {
+                cartStore.addItem(userId, line);
+            } catch (RuntimeException e) {
+                log.error("Could not restore product {} to cart of user {}: {}", line.getProductId(), userId, e.getMessage());
+            }
+        }
+    }
+
+    private <T> T catalogCall(long deadline, Supplier<T> call) {
+        return catalogBulkhead.call(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())), call);
+    }
+
+    /**
+     * True when product-service answered the reservation with a 4xx, so no stock was taken.
+     */
+    private static boolean isRejected(Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        return cause instanceof CheckoutException rejection && rejection.getStatus().is4xxClientError();
+    }
+
+    private void release(CartItem line, String reservationKey) {
+        try {
+            catalogBulkhead.call(RELEASE_MAX_WAIT, () -> {
+                catalogClient.releaseStock(line.getProductId(), line.getQuantity(), reservationKey);
+                return null;
+            });
+            released.increment();
+        } catch (RuntimeException e) {
+            releaseFailed.increment();
+            log.error("Could not release {} units of product {}: {}", line.getQuantity(), line.getProductId(), e.getMessage());
+        }
+    }
+
+    private <T> T timed(String stage, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return work.get();
+        } finally {
+            sample.stop(stageTimers.get(stage));
+        }
+    }
+
+    private Counter compensationCounter(String result) {
+        return Counter.builder("orders.checkout.compensations")
+                .description("Stock reservations released after a failed checkout")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,43 @@
+package com.valven.ecommerce.orderservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link Bulkhead} per downstream, sized by {@code downstream.limits.<name>}.
+ */
+@Component
+public class DownstreamLimits {
+
+    public static final String PRODUCT_SERVICE = "product-service";
+
+    private static final int DEFAULT_LIMIT = 16;
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public DownstreamLimits(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Bulkhead get(String downstream) {
+        return bulkheads.computeIfAbsent(downstream, this::create);
+    }
+
+    private Bulkhead create(String downstream) {
+        int limit = environment.getProperty("downstream.limits." + downstream, Integer.class, DEFAULT_LIMIT);
+        Bulkhead bulkhead = new Bulkhead(downstream, limit);
+        Gauge.builder("downstream.in_flight", bulkhead, Bulkhead::inUse)
+                .description("Calls in progress per downstream")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        return bulkhead;
+    }
+}
@@ -0,0 +1,163 @@
+package com.valven.ecommerce.orderservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores responses of idempotent requests for {@code idempotency.ttl}.
+ * <p>
+ * Redis is the shared store, so replays and in-progress locks work across instances. If Redis
+ * is unreachable the store falls back to a bounded in-memory map and retries Redis after
+ * {@code idempotency.redis.retry-after}; during that window guarantees only hold per instance.
+ */
+@Component
+public class IdempotencyStore {
+
+    public record StoredResponse(int status, String contentType, String location, String fingerprint, byte[] body) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final String RESULT_PREFIX = "idem:";
+    private static final String LOCK_PREFIX = "idem-lock:";
+    private static final String LOCK_VALUE = "1";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration lockTtl;
+    private final long redisRetryAfterNanos;
+    private final int maxLocalEntries;
+    private final Map<String, LocalEntry> local = new ConcurrentHashMap<>();
+    private volatile boolean redisDown;
+    private volatile long redisRetryAt;
+
+    public IdempotencyStore(StringRedisTemplate redisTemplate,
+                            @Value("${idempotency.ttl:24h}") Duration ttl,
+                            @Value("${idempotency.lock-ttl:30s}") Duration lockTtl,
+                            @Value("${idempotency.redis.retry-after:30s}") Duration redisRetryAfter,
+                            @Value("${idempotency.local.max-entries:10000}") int maxLocalEntries) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.lockTtl = lockTtl;
+        this.redisRetryAfterNanos = redisRetryAfter.toNanos();
+        this.maxLocalEntries = maxLocalEntries;
+    }
+
+    public Optional<StoredResponse> find(String key) {
+        if (redisAvailable()) {
+            try {
+                return Optional.ofNullable(redisTemplate.opsForValue().get(RESULT_PREFIX + key)).map(IdempotencyStore::decode);
+            } catch (DataAccessException e) {
+                markRedisDown(e);
+            }
+        }
+        LocalEntry entry = local.get(RESULT_PREFIX + key);
+        return entry != null && !entry.expired() ? Optional.of(entry.response()) : Optional.empty();
+    }
+
+    /**
+     * Claims the key for execution; returns false if another execution holds it.
+     */
+    public boolean tryLock(String key) {
+        if (redisAvailable()) {
+            try {
+                return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_PREFIX + key, LOCK_VALUE, lockTtl));
+            } catch (DataAccessException e) {
+                markRedisDown(e);
+            }
+        }
+        evictLocal();
+        long expiresAt = System.nanoTime() + lockTtl.toNanos();
+        LocalEntry lock = new LocalEntry(null, expiresAt);
+        LocalEntry existing = local.compute(LOCK_PREFIX + key, (k, current) ->
+                current == null || current.expired() ? lock : current);
+        return existing == lock;
+    }
+
+    public void save(String key, StoredResponse response) {
+        if (redisAvailable()) {
+            try {
+                redisTemplate.opsForValue().set(RESULT_PREFIX + key, encode(response), ttl);
+                redisTemplate.delete(LOCK_PREFIX + key);
+                return;
+            } catch (DataAccessException e) {
+                markRedisDown(e);
+            }
+        }
+        evictLocal();
+        local.put(RESULT_PREFIX + key, new LocalEntry(response, System.nanoTime() + ttl.toNanos()));
+        local.remove(LOCK_PREFIX + key);
+    }
+
+    public void unlock(String key) {
+        if (redisAvailable()) {
+            try {
+                redisTemplate.delete(LOCK_PREFIX + key);
+                return;
+            } catch (DataAccessException e) {
+                markRedisDown(e);
+            }
+        }
+        local.remove(LOCK_PREFIX + key);
+    }
+
+    private boolean redisAvailable() {
+        return !redisDown || System.nanoTime() - redisRetryAt >= 0;
+    }
+
+    private void markRedisDown(DataAccessException e) {
+        redisRetryAt = System.nanoTime() + redisRetryAfterNanos;
+        redisDown = true;
+        log.warn("Idempotency store falling back to local memory: {}", e.getMessage());
+    }
+
+    private void evictLocal() {
+        if (local.size() < maxLocalEntries) {
+            return;
+        }
+        local.values().removeIf(LocalEntry::expired);
+        Iterator<String> keys = local.keySet().iterator();
+        while (local.size() >= maxLocalEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    static String encode(StoredResponse response) {
+        Base64.Encoder base64 = Base64.getEncoder();
+        return response.status() + "|" + field(response.contentType()) + "|" + field(response.location()) + "|"
+                + field(response.fingerprint()) + "|" + base64.encodeToString(response.body());
+    }
+
+    static StoredResponse decode(String value) {
+        String[] parts = value.split("\\|", -1);
+        return new StoredResponse(Integer.parseInt(parts[0]), unfield(parts[1]), unfield(parts[2]), unfield(parts[3]),
+                Base64.getDecoder().decode(parts[4]));
+    }
+
+    private static String field(String value) {
+        return value == null ? "" : Base64.getEncoder().withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String unfield(String value) {
+        return value.isEmpty() ? null : new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    private record LocalEntry(StoredResponse response, long expiresAt) {
+        boolean expired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
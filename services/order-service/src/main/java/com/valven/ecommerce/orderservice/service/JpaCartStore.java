@@ -0,0 +1,163 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Cart;
+import com.valven.ecommerce.orderservice.domain.CartItem;
+import com.valven.ecommerce.orderservice.repository.CartItemRepository;
+import com.valven.ecommerce.orderservice.repository.CartRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Relational cart store. Mutations are single statements against {@code cart_items}
+ * (an upsert or a bulk delete); the cart is only read back to build the response.
+ * <p>
+ * Each statement is atomic per row, so concurrent adds never lose an increment. Races that
+ * surface as a lock conflict or a duplicate on the cart or cart item key (two first adds
+ * creating the same row) are retried in a fresh transaction; any other integrity violation is a
+ * real error and is thrown at once. Within one instance, writes for the same user
+ * are additionally serialized on a striped lock so those retries stay rare.
+ */
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaCartStore.class);
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final List<String> CART_KEYS = List.of("idx_cart_user_id", "uk_cart_item_cart_product");
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final StripedLock locks;
+    private final int maxAttempts;
+
+    public JpaCartStore(CartRepository cartRepository,
+                        CartItemRepository cartItemRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${cart.jpa.lock-stripes:256}") int lockStripes,
+                        @Value("${cart.jpa.max-attempts:5}") int maxAttempts) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.locks = lockStripes > 0 ? new StripedLock(lockStripes) : null;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public Optional<Cart> getCart(UUID userId) {
+        return readOnlyTransactionTemplate.execute(status -> cartRepository.findWithItemsByUserId(userId));
+    }
+
+    @Override
+    public Cart addItem(UUID userId, CartItem item) {
+        int quantity = item.quantityToAdd();
+        return write(userId, () -> {
+            if (upsert(userId, item, quantity) == 0) {
+                Cart cart = new Cart();
+                cart.setUserId(userId);
+                cartRepository.saveAndFlush(cart);
+                upsert(userId, item, quantity);
+            }
+            return cartRepository.findWithItemsByUserId(userId).orElseThrow();
+        });
+    }
+
+    @Override
+    public Optional<Cart> removeItem(UUID userId, Long productId) {
+        return write(userId, () -> {
+            cartItemRepository.deleteByUserIdAndProductId(userId, productId);
+            return cartRepository.findWithItemsByUserId(userId);
+        });
+    }
+
+    @Override
+    public Optional<Cart> clear(UUID userId) {
+        return write(userId, () -> {
+            cartItemRepository.deleteAllByUserId(userId);
+            return cartRepository.findWithItemsByUserId(userId);
+        });
+    }
+
+    /**
+     * Locks the item rows it reads and deletes exactly those, so an add that commits after
+     * the read stays in the cart instead of being silently dropped.
+     */
+    @Override
+    public Optional<Cart> checkout(UUID userId) {
+        return write(userId, () -> cartRepository.findByUserId(userId).map(cart -> {
+            List<CartItem> items = cartItemRepository.findAllForUpdateByUserId(userId);
+            if (!items.isEmpty()) {
+                cartItemRepository.deleteAllByIdIn(items.stream().map(CartItem::getId).toList());
+            }
+            Cart snapshot = new Cart();
+            snapshot.setId(cart.getId());
+            snapshot.setUserId(userId);
+            snapshot.getItems().addAll(items);
+            return snapshot;
+        }));
+    }
+
+    private int upsert(UUID userId, CartItem item, int quantity) {
+        return cartItemRepository.upsert(userId, item.getProductId(), item.getProductName(), item.getPrice(), quantity);
+    }
+
+    private <T> T write(UUID userId, Supplier<T> mutation) {
+        Supplier<T> retrying = () -> withRetry(userId, mutation);
+        return locks != null ? locks.withLock(userId, retrying) : retrying.get();
+    }
+
+    private <T> T withRetry(UUID userId, Supplier<T> mutation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> mutation.get());
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts
+                        || e instanceof DataIntegrityViolationException violation && !isCartKeyConflict(violation)) {
+                    throw e;
+                }
+                log.debug("Cart write for user {} conflicted (attempt {}/{}): {}",
+                        userId, attempt, maxAttempts, e.getMessage());
+            }
+        }
+    }
+
+    static boolean isCartKeyConflict(DataIntegrityViolationException e) {
+        boolean duplicate = e instanceof DuplicateKeyException;
+        String constraint = null;
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+            }
+            if (cause instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                duplicate = true;
+            }
+        }
+        if (!duplicate) {
+            return false;
+        }
+        if (constraint == null) {
+            return true;
+        }
+        String name = constraint;
+        return CART_KEYS.stream().anyMatch(name::contains);
+    }
+}
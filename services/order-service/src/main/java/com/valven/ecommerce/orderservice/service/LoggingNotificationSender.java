@@ -0,0 +1,30 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stand-in for the mail and alerting integrations: logs each notification.
+ */
+@Component
+public class LoggingNotificationSender implements NotificationSender {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingNotificationSender.class);
+
+    @Override
+    public void send(OutboxEvent event) {
+        log.info("Sending {} notification {} ({}): {}", event.getChannel(), event.getEventType(),
+                event.getDedupKey(), event.getPayload());
+    }
+
+    @Override
+    public void sendBatch(List<OutboxEvent> events) {
+        log.info("Sending {} {} notifications in one batch: {}", events.size(), events.get(0).getChannel(),
+                events.stream().map(OutboxEvent::getPayload).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,24 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Delivers one outbox event on its channel. Called at least once per event, so implementations
+ * should pass {@link OutboxEvent#getDedupKey()} on to the receiver as its idempotency key.
+ */
+public interface NotificationSender {
+
+    void send(OutboxEvent event) throws Exception;
+
+    /**
+     * Delivers several events of one channel in a single downstream call, such as a bulk mail
+     * or an alert digest. Either all of them are delivered or the call fails.
+     */
+    default void sendBatch(List<OutboxEvent> events) throws Exception {
+        for (OutboxEvent event : events) {
+            send(event);
+        }
+    }
+}
@@ -1,81 +1,127 @@
 package com.valven.ecommerce.orderservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.valven.ecommerce.orderservice.domain.Order;
-import lombok.RequiredArgsConstructor;
+import com.valven.ecommerce.orderservice.domain.OutboxEvent;
+import com.valven.ecommerce.orderservice.domain.OutboxEvent.Channel;
+import com.valven.ecommerce.orderservice.repository.OutboxEventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Queues notifications in the outbox. Each method joins the caller's transaction, so a
+ * notification is stored if and only if the change it announces commits; {@link OutboxDispatcher}
+ * delivers it afterwards. Notifications with a dedup key that is already queued are dropped.
+ * <p>
+ * Product alerts and order status updates are coalesced: all events for the same product (or
+ * order) queued within {@code outbox.coalesce.max-latency} of the first one share its due time,
+ * and the dispatcher delivers only the latest of them.
+ */
 @Service
-@RequiredArgsConstructor
 public class NotificationService {
 
     private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration maxLatency;
 
-    @Async("notificationTaskExecutor")
-    public CompletableFuture<Void> sendOrderConfirmationEmail(Order order) {
-        try {
-            log.info("Sending order confirmation email for order: {}", order.getId());
-            
-            
-            Thread.sleep(2000);
-            
-            log.info("Order confirmation email sent successfully for order: {}", order.getId());
-            return CompletableFuture.completedFuture(null);
-        } catch (Exception e) {
-            log.error("Failed to send order confirmation email for order: {}", order.getId(), e);
-            return CompletableFuture.failedFuture(e);
-        }
+    public NotificationService(OutboxEventRepository outboxEventRepository,
+                               ObjectMapper objectMapper,
+                               @Value("${outbox.coalesce.max-latency:5s}") Duration maxLatency) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.maxLatency = maxLatency;
     }
 
-    @Async("notificationTaskExecutor")
-    public CompletableFuture<Void> sendOrderStatusUpdate(Order order, String status) {
-        try {
-            log.info("Sending order status update for order: {} with status: {}", order.getId(), status);
-            
-            
-            Thread.sleep(1000);
-            
-            log.info("Order status update sent successfully for order: {}", order.getId());
-            return CompletableFuture.completedFuture(null);
-        } catch (Exception e) {
-            log.error("Failed to send order status update for order: {}", order.getId(), e);
-            return CompletableFuture.failedFuture(e);
-        }
+    @Transactional
+    public void sendOrderConfirmationEmail(Order order) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("userId", order.getUserId());
+        payload.put("totalAmount", order.getTotalAmount());
+        payload.put("itemCount", order.getItems() != null ? order.getItems().size() : 0);
+        enqueue(Channel.EMAIL, "ORDER_CONFIRMATION", "order-confirmation:" + order.getId(), null, payload);
     }
 
-    @Async("notificationTaskExecutor")
-    public CompletableFuture<Void> sendLowStockAlert(String productName, int currentStock) {
-        try {
-            log.info("Sending low stock alert for product: {} with stock: {}", productName, currentStock);
-            
-            
-            Thread.sleep(500);
-            
-            log.info("Low stock alert sent successfully for product: {}", productName);
-            return CompletableFuture.completedFuture(null);
-        } catch (Exception e) {
-            log.error("Failed to send low stock alert for product: {}", productName, e);
-            return CompletableFuture.failedFuture(e);
+    @Transactional
+    public void sendOrderStatusUpdate(Order order, String status) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("userId", order.getUserId());
+        payload.put("status", status);
+        enqueue(Channel.EMAIL, "ORDER_STATUS", "order-status:" + order.getId() + ":" + status,
+                "ORDER_STATUS:order:" + order.getId(), payload);
+    }
+
+    @Transactional
+    public void sendLowStockAlert(String productName, int currentStock) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productName", productName);
+        payload.put("currentStock", currentStock);
+        enqueue(Channel.ALERT, "LOW_STOCK", "low-stock:" + productName + ":" + currentStock,
+                "LOW_STOCK:product:" + productName, payload);
+    }
+
+    @Transactional
+    public void sendInventoryUpdate(String productName, int newStock) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productName", productName);
+        payload.put("newStock", newStock);
+        enqueue(Channel.ALERT, "INVENTORY_UPDATE", "inventory:" + productName + ":" + newStock,
+                "INVENTORY_UPDATE:product:" + productName, payload);
+    }
+
+    /**
+     * @param coalesceKey events with the same key are merged, or {@code null} to deliver this one
+     *                    on its own and right away
+     */
+    private void enqueue(Channel channel, String eventType, String dedupKey, String coalesceKey,
+                         Map<String, Object> payload) {
+        Instant now = Instant.now();
+        Instant dueAt = now;
+        if (coalesceKey != null) {
+            dueAt = windowEnd(coalesceKey, now);
+            // A window delivers one message, so identical events are only duplicates within it
+            dedupKey = dedupKey + "@" + dueAt.toEpochMilli();
         }
+        if (outboxEventRepository.existsByDedupKey(dedupKey)) {
+            log.debug("Notification {} already queued", dedupKey);
+            return;
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .channel(channel)
+                .eventType(eventType)
+                .dedupKey(dedupKey)
+                .coalesceKey(coalesceKey)
+                .payload(toJson(payload))
+                .nextAttemptAt(dueAt)
+                .createdAt(now)
+                .build());
+        log.debug("Queued {} notification {}", channel, dedupKey);
+    }
+
+    private Instant windowEnd(String coalesceKey, Instant now) {
+        Instant latest = now.plus(maxLatency);
+        return outboxEventRepository.findFirstByCoalesceKeyAndStatusOrderByIdAsc(coalesceKey, OutboxEvent.Status.PENDING)
+                .map(OutboxEvent::getNextAttemptAt)
+                .filter(due -> due.isAfter(now) && !due.isAfter(latest))
+                .orElse(latest);
     }
 
-    @Async("notificationTaskExecutor")
-    public CompletableFuture<Void> sendInventoryUpdate(String productName, int newStock) {
+    private String toJson(Map<String, Object> payload) {
         try {
-            log.info("Sending inventory update for product: {} with new stock: {}", productName, newStock);
-            
-            
-            Thread.sleep(300);
-            
-            log.info("Inventory update sent successfully for product: {}", productName);
-            return CompletableFuture.completedFuture(null);
-        } catch (Exception e) {
-            log.error("Failed to send inventory update for product: {}", productName, e);
-            return CompletableFuture.failedFuture(e);
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize notification payload", e);
         }
     }
-}
\ No newline at end of file
+}
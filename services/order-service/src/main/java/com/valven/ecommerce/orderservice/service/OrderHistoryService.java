@@ -0,0 +1,80 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Order;
+import com.valven.ecommerce.orderservice.dto.OrderPage;
+import com.valven.ecommerce.orderservice.repository.OrderRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyset-paginated order history, newest first.
+ * <p>
+ * A page costs two queries regardless of its size: one walks the (user_id, created_at)
+ * index for the page's order ids, the other fetch-joins those orders with their items.
+ * Cursors have the form {@code <createdAtMicros>:<id>} of the last order on the page.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderHistoryService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final Comparator<Order> NEWEST_FIRST = Comparator
+            .comparing(Order::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(Order::getId, Comparator.reverseOrder());
+
+    private final OrderRepository orderRepository;
+
+    public OrderHistoryService(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    public List<Order> findAll(UUID userId) {
+        return orderRepository.findWithItemsByUserId(userId);
+    }
+
+    public OrderPage page(UUID userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Long> ids;
+        if (cursor == null || cursor.isBlank()) {
+            ids = orderRepository.findPageIds(userId, limit);
+        } else {
+            int separator = cursor.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            try {
+                Instant createdAt = Instant.EPOCH.plus(Long.parseLong(cursor.substring(0, separator)), ChronoUnit.MICROS);
+                Long id = Long.valueOf(cursor.substring(separator + 1));
+                ids = orderRepository.findPageIdsAfter(userId, createdAt, id, limit);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        boolean hasMore = ids.size() > pageSize;
+        List<Long> pageIds = hasMore ? ids.subList(0, pageSize) : ids;
+        if (pageIds.isEmpty()) {
+            return new OrderPage(List.of(), null, 0);
+        }
+
+        List<Order> orders = orderRepository.findWithItemsByIdIn(pageIds).stream()
+                .sorted(NEWEST_FIRST)
+                .toList();
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = ChronoUnit.MICROS.between(Instant.EPOCH, last.getCreatedAt()) + ":" + last.getId();
+        }
+        return new OrderPage(orders, nextCursor, orders.size());
+    }
+}
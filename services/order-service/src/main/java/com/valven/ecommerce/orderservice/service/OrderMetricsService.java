@@ -3,57 +3,81 @@ package com.valven.ecommerce.orderservice.service;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Order and cart business metrics. Meters are registered once and kept, so recording an event
+ * is a plain increment; error counters are cached per type.
+ */
 @Service
-@RequiredArgsConstructor
 public class OrderMetricsService {
 
-    private static final Logger log = LoggerFactory.getLogger(OrderMetricsService.class);
+    /** Error types beyond this many are counted under {@code other} to bound cardinality. */
+    static final int MAX_ERROR_TYPES = 64;
+    static final Duration[] CREATION_SLOS = {
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2)
+    };
+
     private final MeterRegistry meterRegistry;
+    private final Counter ordersCreated;
+    private final Counter orderValue;
+    private final Counter cartItemsAdded;
+    private final Counter cartItemsRemoved;
+    private final Timer orderCreationTime;
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+    private final Counter otherErrors;
 
-    public void recordOrderCreated() {
-        Counter.builder("orders.created")
+    public OrderMetricsService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.ordersCreated = Counter.builder("orders.created")
                 .description("Number of orders created")
-                .register(meterRegistry)
-                .increment();
-        log.debug("Order created metric recorded");
+                .register(meterRegistry);
+        this.orderValue = Counter.builder("orders.total.value")
+                .description("Total value of orders")
+                .register(meterRegistry);
+        this.cartItemsAdded = Counter.builder("cart.items.added")
+                .description("Number of items added to cart")
+                .register(meterRegistry);
+        this.cartItemsRemoved = Counter.builder("cart.items.removed")
+                .description("Number of items removed from cart")
+                .register(meterRegistry);
+        this.orderCreationTime = Timer.builder("orders.creation.time")
+                .description("Time taken to create an order")
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(CREATION_SLOS)
+                .register(meterRegistry);
+        this.otherErrors = errorCounter("other");
+    }
+
+    public void recordOrderCreated() {
+        ordersCreated.increment();
     }
 
     public void recordOrderValue(double value) {
-        Counter.builder("orders.total.value")
-                .description("Total value of orders")
-                .register(meterRegistry)
-                .increment(value);
-        log.debug("Order value metric recorded: {}", value);
+        orderValue.increment(value);
     }
 
     public void recordCartItemAdded() {
-        Counter.builder("cart.items.added")
-                .description("Number of items added to cart")
-                .register(meterRegistry)
-                .increment();
-        log.debug("Cart item added metric recorded");
+        cartItemsAdded.increment();
     }
 
     public void recordCartItemRemoved() {
-        Counter.builder("cart.items.removed")
-                .description("Number of items removed from cart")
-                .register(meterRegistry)
-                .increment();
-        log.debug("Cart item removed metric recorded");
+        cartItemsRemoved.increment();
     }
 
     public void recordError(String errorType) {
-        Counter.builder("application.errors")
-                .tag("type", errorType)
-                .description("Number of application errors")
-                .register(meterRegistry)
-                .increment();
-        log.debug("Error metric recorded: {}", errorType);
+        Counter counter = errors.get(errorType);
+        if (counter == null) {
+            counter = errors.size() < MAX_ERROR_TYPES
+                    ? errors.computeIfAbsent(errorType, this::errorCounter)
+                    : otherErrors;
+        }
+        counter.increment();
     }
 
     public Timer.Sample startOrderCreationTimer() {
@@ -61,10 +85,13 @@ public class OrderMetricsService {
     }
 
     public void recordOrderCreationTime(Timer.Sample sample) {
-        Timer timer = Timer.builder("orders.creation.time")
-                .description("Time taken to create an order")
+        sample.stop(orderCreationTime);
+    }
+
+    private Counter errorCounter(String errorType) {
+        return Counter.builder("application.errors")
+                .tag("type", errorType)
+                .description("Number of application errors")
                 .register(meterRegistry);
-        sample.stop(timer);
-        log.debug("Order creation time metric recorded");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Order;
+import com.valven.ecommerce.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Persists a new order together with its confirmation notification.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderPlacementService {
+
+    private final OrderRepository orderRepository;
+    private final NotificationService notificationService;
+    private final OrderMetricsService orderMetricsService;
+
+    @Transactional
+    public Order place(Order order) {
+        Timer.Sample sample = orderMetricsService.startOrderCreationTimer();
+        Order saved = orderRepository.save(order);
+        notificationService.sendOrderConfirmationEmail(saved);
+        orderMetricsService.recordOrderCreationTime(sample);
+        orderMetricsService.recordOrderCreated();
+        orderMetricsService.recordOrderValue(saved.getTotalAmount());
+        return saved;
+    }
+}
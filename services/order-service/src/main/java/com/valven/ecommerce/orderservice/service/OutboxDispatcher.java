@@ -0,0 +1,354 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.OutboxEvent;
+import com.valven.ecommerce.orderservice.domain.OutboxEvent.Channel;
+import com.valven.ecommerce.orderservice.domain.OutboxEvent.Status;
+import com.valven.ecommerce.orderservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox events in batches.
+ * <p>
+ * Each poll claims due events per channel, at most as many as the channel's bulkhead has free
+ * permits ({@code downstream.limits.email}, {@code downstream.limits.alert}). A claim is a lease:
+ * events of a dispatcher that dies mid-delivery become due again after {@code outbox.lease}.
+ * Failed deliveries are retried with exponential backoff and jitter; after
+ * {@code outbox.max-attempts} the event is parked as {@code DEAD}. Delivery is at least once.
+ * <p>
+ * Claimed events that share a coalesce key collapse into their latest one, and the remaining
+ * messages go out in batches of up to {@code outbox.batch.max-size.<channel>} per downstream call.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final List<Status> CLAIMABLE = List.of(Status.PENDING, Status.IN_FLIGHT);
+    private static final List<Status> UNSENT = List.of(Status.PENDING, Status.IN_FLIGHT);
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository repository;
+    private final NotificationSender sender;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration retention;
+    private final Map<Channel, Bulkhead> bulkheads = new EnumMap<>(Channel.class);
+    private final Map<Channel, Integer> maxBatchSizes = new EnumMap<>(Channel.class);
+    private final Map<Channel, ChannelStats> channelStats = new EnumMap<>(Channel.class);
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "outbox-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Instant lastPurge = Instant.EPOCH;
+
+    public OutboxDispatcher(OutboxEventRepository repository,
+                            NotificationSender sender,
+                            @Qualifier("notificationTaskExecutor") Executor executor,
+                            DownstreamLimits downstreamLimits,
+                            MeterRegistry meterRegistry,
+                            @Value("${outbox.dispatcher.enabled:true}") boolean enabled,
+                            @Value("${outbox.poll-interval:1s}") Duration pollInterval,
+                            @Value("${outbox.batch-size:50}") int batchSize,
+                            @Value("${outbox.lease:60s}") Duration lease,
+                            @Value("${outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${outbox.backoff.base:1s}") Duration backoffBase,
+                            @Value("${outbox.backoff.max:10m}") Duration backoffMax,
+                            @Value("${outbox.retention:7d}") Duration retention,
+                            @Value("${outbox.batch.max-size.email:20}") int emailMaxBatch,
+                            @Value("${outbox.batch.max-size.alert:50}") int alertMaxBatch) {
+        this.repository = repository;
+        this.sender = sender;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.retention = retention;
+        maxBatchSizes.put(Channel.EMAIL, Math.max(1, emailMaxBatch));
+        maxBatchSizes.put(Channel.ALERT, Math.max(1, alertMaxBatch));
+        for (Channel channel : Channel.values()) {
+            bulkheads.put(channel, downstreamLimits.get(channel.name().toLowerCase()));
+            channelStats.put(channel, new ChannelStats(meterRegistry, channel));
+        }
+
+        Gauge.builder("outbox.depth", pending, AtomicLong::get)
+                .description("Outbox events not yet delivered")
+                .tag("status", "pending")
+                .register(meterRegistry);
+        Gauge.builder("outbox.depth", dead, AtomicLong::get)
+                .description("Outbox events not yet delivered")
+                .tag("status", "dead")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest undelivered outbox event")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            long interval = pollInterval.toMillis();
+            poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+        if (inFlight.get() > 0) {
+            log.info("{} outbox deliveries running at shutdown; unfinished ones are retried after the lease", inFlight.get());
+        }
+    }
+
+    /**
+     * Runs one dispatch cycle and returns the number of events handed to senders.
+     */
+    public int poll() {
+        int dispatched = 0;
+        try {
+            for (Channel channel : Channel.values()) {
+                dispatched += dispatch(channel);
+            }
+            refreshGauges();
+            purge();
+        } catch (RuntimeException e) {
+            log.error("Outbox dispatch failed: {}", e.getMessage(), e);
+        }
+        return dispatched;
+    }
+
+    private int dispatch(Channel channel) {
+        Bulkhead bulkhead = bulkheads.get(channel);
+        int free = bulkhead.available();
+        if (free == 0) {
+            return 0;
+        }
+        int maxBatch = maxBatchSizes.get(channel);
+        int limit = (int) Math.min((long) free * maxBatch, batchSize);
+        Instant now = Instant.now();
+        List<Long> ids = repository.findDueIds(channel, CLAIMABLE, now, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String token = UUID.randomUUID().toString();
+        if (repository.claim(ids, CLAIMABLE, now, token, now.plus(lease)) == 0) {
+            return 0;
+        }
+        List<OutboxEvent> events = repository.findByClaimToken(token);
+        Set<String> coalesceKeys = events.stream()
+                .map(OutboxEvent::getCoalesceKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (!coalesceKeys.isEmpty() && repository.claimCoalesced(coalesceKeys, CLAIMABLE, now, token, now.plus(lease)) > 0) {
+            events = repository.findByClaimToken(token);
+        }
+        for (Delivery delivery : plan(events, maxBatch)) {
+            bulkhead.acquire();
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        deliver(channel, delivery, token);
+                    } finally {
+                        inFlight.decrementAndGet();
+                        bulkhead.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                bulkhead.release();
+                throw e;
+            }
+        }
+        return events.size();
+    }
+
+    /**
+     * Keeps the latest event of each coalesce key and splits the survivors into downstream calls
+     * of at most {@code maxBatch} messages.
+     */
+    static List<Delivery> plan(List<OutboxEvent> events, int maxBatch) {
+        Map<Object, List<OutboxEvent>> groups = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            Object key = event.getCoalesceKey() != null ? event.getCoalesceKey() : event.getId();
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+        }
+        List<Delivery> deliveries = new ArrayList<>();
+        List<OutboxEvent> messages = new ArrayList<>();
+        List<OutboxEvent> covered = new ArrayList<>();
+        for (List<OutboxEvent> group : groups.values()) {
+            messages.add(group.stream().max(Comparator.comparing(OutboxEvent::getId)).orElseThrow());
+            covered.addAll(group);
+            if (messages.size() == maxBatch) {
+                deliveries.add(new Delivery(List.copyOf(messages), List.copyOf(covered)));
+                messages.clear();
+                covered.clear();
+            }
+        }
+        if (!messages.isEmpty()) {
+            deliveries.add(new Delivery(List.copyOf(messages), List.copyOf(covered)));
+        }
+        return deliveries;
+    }
+
+    private void deliver(Channel channel, Delivery delivery, String token) {
+        List<Long> ids = delivery.events().stream().map(OutboxEvent::getId).toList();
+        try {
+            if (delivery.messages().size() == 1) {
+                sender.send(delivery.messages().get(0));
+            } else {
+                sender.sendBatch(delivery.messages());
+            }
+            repository.markSent(ids, token, Instant.now());
+            count(channel, "sent");
+            ChannelStats stats = channelStats.get(channel);
+            stats.events.increment(delivery.events().size());
+            stats.messages.increment(delivery.messages().size());
+            stats.batchSize.record(delivery.messages().size());
+        } catch (Exception e) {
+            int attempts = delivery.events().stream().mapToInt(OutboxEvent::getAttempts).max().orElse(0) + 1;
+            String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+            String what = describe(delivery);
+            if (attempts >= maxAttempts) {
+                repository.markFailed(ids, token, Status.DEAD, Instant.now(), error);
+                count(channel, "dead");
+                log.error("Giving up on {} notification {} after {} attempts: {}", channel, what, attempts, error);
+            } else {
+                repository.markFailed(ids, token, Status.PENDING, Instant.now().plus(backoff(attempts)), error);
+                count(channel, "retry");
+                log.warn("Delivery of {} notification {} failed (attempt {}): {}", channel, what, attempts, error);
+            }
+        }
+    }
+
+    private static String describe(Delivery delivery) {
+        String first = delivery.messages().get(0).getDedupKey();
+        int more = delivery.messages().size() - 1;
+        return more == 0 ? first : first + " (+" + more + " more)";
+    }
+
+    Duration backoff(int attempts) {
+        long base = backoffBase.toMillis() << Math.min(attempts - 1, 30);
+        long capped = Math.min(base <= 0 ? Long.MAX_VALUE : base, backoffMax.toMillis());
+        long jitter = capped / 5 == 0 ? 0 : ThreadLocalRandom.current().nextLong(capped / 5);
+        return Duration.ofMillis(capped - jitter);
+    }
+
+    private void refreshGauges() {
+        pending.set(repository.countByStatus(Status.PENDING) + repository.countByStatus(Status.IN_FLIGHT));
+        dead.set(repository.countByStatus(Status.DEAD));
+        lagSeconds.set(repository.findOldestCreatedAt(UNSENT)
+                .map(oldest -> Math.max(0, Duration.between(oldest, Instant.now()).toSeconds()))
+                .orElse(0L));
+    }
+
+    private void purge() {
+        Instant now = Instant.now();
+        if (Duration.between(lastPurge, now).compareTo(PURGE_INTERVAL) < 0) {
+            return;
+        }
+        lastPurge = now;
+        int purged = repository.deleteSentBefore(now.minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} delivered outbox events", purged);
+        }
+    }
+
+    private void count(Channel channel, String result) {
+        Counter.builder("outbox.deliveries")
+                .description("Outbox delivery attempts by channel and result")
+                .tag("channel", channel.name().toLowerCase())
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /**
+     * One downstream call: the messages sent, and every claimed event they stand for.
+     */
+    record Delivery(List<OutboxEvent> messages, List<OutboxEvent> events) {
+    }
+
+    private static final class ChannelStats {
+
+        private final Counter events;
+        private final Counter messages;
+        private final DistributionSummary batchSize;
+
+        ChannelStats(MeterRegistry meterRegistry, Channel channel) {
+            String tag = channel.name().toLowerCase();
+            this.events = Counter.builder("outbox.coalesce.events")
+                    .description("Delivered outbox events before coalescing")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            this.messages = Counter.builder("outbox.coalesce.messages")
+                    .description("Messages sent downstream after coalescing")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            this.batchSize = DistributionSummary.builder("outbox.batch.size")
+                    .description("Messages per downstream call")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            Gauge.builder("outbox.coalesce.ratio", this, ChannelStats::ratio)
+                    .description("Delivered events per message sent downstream")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+        }
+
+        double ratio() {
+            double sent = messages.count();
+            return sent == 0 ? 1.0 : events.count() / sent;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.dto.ApiResponse;
+import com.valven.ecommerce.orderservice.dto.ProductQuote;
+import com.valven.ecommerce.orderservice.exception.CheckoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Calls product-service for current prices and stock reservations, resolved through the
+ * discovery client.
+ */
+@Component
+public class ProductCatalogClient {
+
+    private static final ParameterizedTypeReference<ApiResponse<ProductQuote>> QUOTE_RESPONSE =
+            new ParameterizedTypeReference<>() {};
+
+    private final RestClient restClient;
+
+    public ProductCatalogClient(RestClient.Builder catalogRestClientBuilder,
+                                @Value("${catalog.base-url:http://product-service}") String baseUrl) {
+        this.restClient = catalogRestClientBuilder.baseUrl(baseUrl + "/api/products").build();
+    }
+
+    public ProductQuote getProduct(Long productId) {
+        try {
+            ApiResponse<ProductQuote> response = restClient.get()
+                    .uri("/{id}", productId)
+                    .retrieve()
+                    .body(QUOTE_RESPONSE);
+            if (response == null || response.getData() == null || response.getData().getPrice() == null) {
+                throw unavailable("Product " + productId + " returned no price", null);
+            }
+            return response.getData();
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new CheckoutException(HttpStatus.CONFLICT, "PRODUCT_NOT_FOUND",
+                    "Product " + productId + " is no longer available");
+        } catch (RestClientException e) {
+            throw unavailable("Could not price product " + productId, e);
+        }
+    }
+
+    /**
+     * Reserves stock under {@code reservation}; product-service applies each reservation key at
+     * most once, so the call is safe to repeat and to release after an unknown outcome.
+     */
+    public void reserveStock(Long productId, int quantity, String reservation) {
+        try {
+            restClient.post()
+                    .uri("/{id}/stock/reduce?quantity={quantity}&reservation={reservation}", productId, quantity, reservation)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new CheckoutException(HttpStatus.CONFLICT, "PRODUCT_NOT_FOUND",
+                    "Product " + productId + " is no longer available");
+        } catch (HttpClientErrorException.BadRequest e) {
+            throw new CheckoutException(HttpStatus.CONFLICT, "INSUFFICIENT_STOCK",
+                    "Insufficient stock for product " + productId);
+        } catch (RestClientException e) {
+            throw unavailable("Could not reserve stock for product " + productId, e);
+        }
+    }
+
+    public void releaseStock(Long productId, int quantity, String reservation) {
+        restClient.post()
+                .uri("/{id}/stock/add?quantity={quantity}&reservation={reservation}", productId, quantity, reservation)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    private static CheckoutException unavailable(String message, Throwable cause) {
+        CheckoutException exception = new CheckoutException(HttpStatus.SERVICE_UNAVAILABLE, "CATALOG_UNAVAILABLE", message);
+        if (cause != null) {
+            exception.initCause(cause);
+        }
+        return exception;
+    }
+}
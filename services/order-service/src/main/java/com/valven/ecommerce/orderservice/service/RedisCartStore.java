@@ -0,0 +1,146 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Cart;
+import com.valven.ecommerce.orderservice.domain.CartItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Keeps each cart as one Redis hash ({@code cart:<userId>}) with {@code q:<productId>},
+ * {@code n:<productId>} and {@code p:<productId>} fields for quantity, name and price.
+ * <p>
+ * Every mutation is a single Lua script, so quantity changes are atomic increments on one
+ * field. Each access also slides the cart's TTL forward.
+ */
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "redis")
+public class RedisCartStore implements CartStore {
+
+    private static final String KEY_PREFIX = "cart:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GET = RedisScript.of("""
+            local cart = redis.call('HGETALL', KEYS[1])
+            if #cart > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end
+            return cart
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADD = RedisScript.of("""
+            redis.call('HINCRBY', KEYS[1], 'q:' .. ARGV[1], ARGV[2])
+            if ARGV[3] ~= '' then redis.call('HSET', KEYS[1], 'n:' .. ARGV[1], ARGV[3]) end
+            if ARGV[4] ~= '' then redis.call('HSET', KEYS[1], 'p:' .. ARGV[1], ARGV[4]) end
+            redis.call('PEXPIRE', KEYS[1], ARGV[5])
+            return redis.call('HGETALL', KEYS[1])
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REMOVE = RedisScript.of("""
+            redis.call('HDEL', KEYS[1], 'q:' .. ARGV[1], 'n:' .. ARGV[1], 'p:' .. ARGV[1])
+            local cart = redis.call('HGETALL', KEYS[1])
+            if #cart > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end
+            return cart
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE = RedisScript.of("""
+            local cart = redis.call('HGETALL', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return cart
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String ttlMillis;
+
+    public RedisCartStore(StringRedisTemplate redisTemplate,
+                          @Value("${cart.redis.ttl:7d}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttlMillis = String.valueOf(ttl.toMillis());
+    }
+
+    @Override
+    public Optional<Cart> getCart(UUID userId) {
+        return toCart(userId, run(GET, userId, ttlMillis));
+    }
+
+    @Override
+    public Cart addItem(UUID userId, CartItem item) {
+        int quantity = item.quantityToAdd();
+        List<String> fields = run(ADD, userId,
+                String.valueOf(item.getProductId()),
+                String.valueOf(quantity),
+                item.getProductName() != null ? item.getProductName() : "",
+                item.getPrice() != null ? item.getPrice().toString() : "",
+                ttlMillis);
+        return toCart(userId, fields).orElseGet(() -> emptyCart(userId));
+    }
+
+    @Override
+    public Optional<Cart> removeItem(UUID userId, Long productId) {
+        return toCart(userId, run(REMOVE, userId, String.valueOf(productId), ttlMillis));
+    }
+
+    @Override
+    public Optional<Cart> clear(UUID userId) {
+        boolean existed = Boolean.TRUE.equals(redisTemplate.delete(KEY_PREFIX + userId));
+        return existed ? Optional.of(emptyCart(userId)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<Cart> checkout(UUID userId) {
+        return toCart(userId, run(TAKE, userId));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<String> run(RedisScript<List> script, UUID userId, String... args) {
+        List<String> result = redisTemplate.execute(script, List.of(KEY_PREFIX + userId), (Object[]) args);
+        return result != null ? result : List.of();
+    }
+
+    static Optional<Cart> toCart(UUID userId, List<String> fields) {
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<Long, CartItem> items = new TreeMap<>();
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            String field = fields.get(i);
+            String value = fields.get(i + 1);
+            Long productId = Long.valueOf(field.substring(2));
+            CartItem item = items.computeIfAbsent(productId, id -> {
+                CartItem created = new CartItem();
+                created.setProductId(id);
+                return created;
+            });
+            switch (field.charAt(0)) {
+                case 'q' -> item.setQuantity(Integer.valueOf(value));
+                case 'n' -> item.setProductName(value);
+                case 'p' -> item.setPrice(Double.valueOf(value));
+                default -> { }
+            }
+        }
+
+        Cart cart = emptyCart(userId);
+        items.values().stream()
+                .filter(item -> item.getQuantity() != null)
+                .forEach(cart.getItems()::add);
+        return Optional.of(cart);
+    }
+
+    private static Cart emptyCart(UUID userId) {
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        cart.setItems(new ArrayList<>());
+        return cart;
+    }
+}
@@ -4,8 +4,11 @@ import com.valven.ecommerce.orderservice.domain.Cart;
 import com.valven.ecommerce.orderservice.domain.CartItem;
 import com.valven.ecommerce.orderservice.domain.Order;
 import com.valven.ecommerce.orderservice.dto.ApiResponse;
-import com.valven.ecommerce.orderservice.repository.CartRepository;
-import com.valven.ecommerce.orderservice.repository.OrderRepository;
+import com.valven.ecommerce.orderservice.dto.OrderPage;
+import com.valven.ecommerce.orderservice.service.CartStore;
+import com.valven.ecommerce.orderservice.service.CheckoutService;
+import com.valven.ecommerce.orderservice.service.OrderHistoryService;
+import com.valven.ecommerce.orderservice.service.OrderMetricsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -23,8 +26,10 @@ import java.util.UUID;
 public class CartOrderController {
 
     private static final Logger log = LoggerFactory.getLogger(CartOrderController.class);
-    private final CartRepository cartRepository;
-    private final OrderRepository orderRepository;
+    private final CartStore cartStore;
+    private final OrderHistoryService orderHistoryService;
+    private final CheckoutService checkoutService;
+    private final OrderMetricsService orderMetricsService;
 
     @PostMapping("/carts/items")
     public ResponseEntity<ApiResponse<Cart>> addItem(@Valid @RequestBody CartItem item, HttpServletRequest request) {
@@ -36,26 +41,8 @@ public class CartOrderController {
         
         try {
             UUID userId = UUID.fromString(userIdStr);
-            Cart cart = cartRepository.findByUserId(userId).orElseGet(() -> {
-                Cart c = new Cart();
-                c.setUserId(userId);
-                return c;
-            });
-            
-            boolean itemExists = false;
-            for (CartItem existingItem : cart.getItems()) {
-                if (existingItem.getProductId().equals(item.getProductId())) {
-                    existingItem.setQuantity(existingItem.getQuantity() + item.getQuantity());
-                    itemExists = true;
-                    break;
-                }
-            }
-            
-            if (!itemExists) {
-                cart.getItems().add(item);
-            }
-            
-            Cart saved = cartRepository.save(cart);
+            Cart saved = cartStore.addItem(userId, item);
+            orderMetricsService.recordCartItemAdded();
             log.info("Item added to cart for user: {}, product: {}, quantity: {}", 
                     userIdStr, item.getProductId(), item.getQuantity());
             return ResponseEntity.ok(ApiResponse.<Cart>success("Item added to cart successfully", saved));
@@ -74,7 +61,7 @@ public class CartOrderController {
         }
         try {
             UUID userId = UUID.fromString(userIdStr);
-            return cartRepository.findByUserId(userId).map(ResponseEntity::ok).orElse(ResponseEntity.ok(new Cart()));
+            return cartStore.getCart(userId).map(ResponseEntity::ok).orElse(ResponseEntity.ok(new Cart()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -88,12 +75,9 @@ public class CartOrderController {
         }
         try {
             UUID userId = UUID.fromString(userIdStr);
-            Cart cart = cartRepository.findByUserId(userId).orElse(null);
-            if (cart != null) {
-                cart.getItems().removeIf(item -> item.getProductId().equals(productId));
-                cart = cartRepository.save(cart);
-            }
-            return ResponseEntity.ok(cart != null ? cart : new Cart());
+            Cart cart = cartStore.removeItem(userId, productId).orElseGet(Cart::new);
+            orderMetricsService.recordCartItemRemoved();
+            return ResponseEntity.ok(cart);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -107,31 +91,49 @@ public class CartOrderController {
         }
         try {
             UUID userId = UUID.fromString(userIdStr);
-            Cart cart = cartRepository.findByUserId(userId).orElse(null);
-            if (cart != null) {
-                cart.getItems().clear();
-                cart = cartRepository.save(cart);
-            }
-            return ResponseEntity.ok(cart != null ? cart : new Cart());
+            return ResponseEntity.ok(cartStore.clear(userId).orElseGet(Cart::new));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Places an order for the listed products. Only product ids and quantities are read from the
+     * body; prices and the total are set by {@link CheckoutService} from product-service.
+     */
     @PostMapping("/orders")
     public ResponseEntity<Order> createOrder(@RequestBody Order order, HttpServletRequest request) {
         String userIdStr = (String) request.getAttribute("userId");
         if (userIdStr == null) {
             return ResponseEntity.badRequest().build();
         }
+        UUID userId;
         try {
-            UUID userId = UUID.fromString(userIdStr);
-            order.setUserId(userId);
-            Order saved = orderRepository.save(order);
-            return ResponseEntity.created(URI.create("/api/orders/" + saved.getId())).body(saved);
+            userId = UUID.fromString(userIdStr);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Order saved = checkoutService.placeOrder(userId, order.getItems());
+        return ResponseEntity.created(URI.create("/api/orders/" + saved.getId())).body(saved);
+    }
+
+    /**
+     * Places an order from the caller's cart, priced and reserved by product-service.
+     */
+    @PostMapping("/orders/checkout")
+    public ResponseEntity<Order> checkout(HttpServletRequest request) {
+        String userIdStr = (String) request.getAttribute("userId");
+        if (userIdStr == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        UUID userId;
+        try {
+            userId = UUID.fromString(userIdStr);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
+        Order saved = checkoutService.checkout(userId);
+        return ResponseEntity.created(URI.create("/api/orders/" + saved.getId())).body(saved);
     }
 
     @GetMapping("/orders")
@@ -142,12 +144,29 @@ public class CartOrderController {
         }
         try {
             UUID userId = UUID.fromString(userIdStr);
-            java.util.List<Order> orders = orderRepository.findByUserId(userId);
+            java.util.List<Order> orders = orderHistoryService.findAll(userId);
             return ResponseEntity.ok(orders);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @GetMapping("/orders/history")
+    public ResponseEntity<OrderPage> getOrderHistory(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            HttpServletRequest request) {
+        String userIdStr = (String) request.getAttribute("userId");
+        if (userIdStr == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            UUID userId = UUID.fromString(userIdStr);
+            return ResponseEntity.ok(orderHistoryService.page(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
 
 
@@ -0,0 +1,324 @@
+package com.valven.ecommerce.orderservice.web;
+
+import com.valven.ecommerce.orderservice.service.IdempotencyStore;
+import com.valven.ecommerce.orderservice.service.IdempotencyStore.StoredResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Honors the {@code Idempotency-Key} header on non-repeatable POST endpoints.
+ * <p>
+ * The first request for a (user, path, key) executes and its response is stored; later requests
+ * with the same key get that response replayed without reaching the controller. Duplicates that
+ * arrive while the first is still running wait for its result instead of executing in parallel.
+ * Reusing a key with a different body is rejected with 422. Server errors are not stored, so the
+ * client may retry them under the same key.
+ * <p>
+ * Registered as a plain servlet filter, so it runs after the security chain has set the
+ * {@code userId} request attribute that scopes the keys.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final IdempotencyStore store;
+    private final List<String> paths;
+    private final Duration waitTimeout;
+    private final int maxStoredBytes;
+    private final Map<String, CompletableFuture<Optional<StoredResponse>>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             MeterRegistry meterRegistry,
+                             @Value("${idempotency.paths:/api/orders,/api/orders/checkout,/api/carts/items}") List<String> paths,
+                             @Value("${idempotency.wait-timeout:10s}") Duration waitTimeout,
+                             @Value("${idempotency.max-stored-bytes:65536}") int maxStoredBytes) {
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.paths = paths;
+        this.waitTimeout = waitTimeout;
+        this.maxStoredBytes = maxStoredBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !paths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(HEADER);
+        Object userId = request.getAttribute("userId");
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        HttpServletRequest cachedRequest = new CachedBodyRequest(request, body);
+        String key = userId + ":" + request.getRequestURI() + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request, body);
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            Optional<StoredResponse> stored = store.find(key);
+            if (stored.isPresent()) {
+                replay(stored.get(), fingerprint, response);
+                return;
+            }
+
+            CompletableFuture<Optional<StoredResponse>> mine = new CompletableFuture<>();
+            CompletableFuture<Optional<StoredResponse>> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                Optional<StoredResponse> result = await(running, deadline);
+                if (result == null) {
+                    conflict(response);
+                    return;
+                }
+                if (result.isPresent()) {
+                    replay(result.get(), fingerprint, response);
+                    return;
+                }
+                // The first execution was not stored (server error); try again ourselves.
+                continue;
+            }
+
+            try {
+                if (!store.tryLock(key)) {
+                    Optional<StoredResponse> result = pollStore(key, deadline);
+                    if (result.isPresent()) {
+                        replay(result.get(), fingerprint, response);
+                    } else {
+                        conflict(response);
+                    }
+                    mine.complete(result);
+                    return;
+                }
+                mine.complete(execute(key, fingerprint, cachedRequest, response, filterChain));
+                return;
+            } finally {
+                mine.complete(Optional.empty());
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    private Optional<StoredResponse> execute(String key, String fingerprint, HttpServletRequest request,
+                                             HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean saved = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            byte[] content = wrapper.getContentAsByteArray();
+            if (wrapper.getStatus() >= 500 || content.length > maxStoredBytes) {
+                return Optional.empty();
+            }
+            StoredResponse stored = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(),
+                    wrapper.getHeader(HttpHeaders.LOCATION), fingerprint, content);
+            store.save(key, stored);
+            saved = true;
+            count("executed");
+            return Optional.of(stored);
+        } finally {
+            if (!saved) {
+                store.unlock(key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private Optional<StoredResponse> await(CompletableFuture<Optional<StoredResponse>> running, long deadline)
+            throws IOException {
+        try {
+            return running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for idempotent request", e);
+        }
+    }
+
+    private Optional<StoredResponse> pollStore(String key, long deadline) throws IOException {
+        while (System.nanoTime() - deadline < 0) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for idempotent request", e);
+            }
+            Optional<StoredResponse> stored = store.find(key);
+            if (stored.isPresent()) {
+                return stored;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void replay(StoredResponse stored, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!fingerprint.equals(stored.fingerprint())) {
+            count("mismatch");
+            reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used with a different request body");
+            return;
+        }
+        count("replayed");
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void conflict(HttpServletResponse response) throws IOException {
+        count("conflict");
+        log.warn("Idempotent request still in progress after {}", waitTimeout);
+        reject(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"success\":false,\"message\":\"" + message
+                + "\",\"errorCode\":\"IDEMPOTENCY_" + status.name() + "\"}");
+    }
+
+    private void count(String outcome) {
+        Counter.builder("idempotency.requests")
+                .description("Requests carrying an Idempotency-Key, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /** The whole body is already in memory, so it is available and complete at once. */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
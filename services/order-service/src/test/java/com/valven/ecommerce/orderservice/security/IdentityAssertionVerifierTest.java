@@ -0,0 +1,80 @@
+package com.valven.ecommerce.orderservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityAssertionVerifierTest {
+
+    private static final String SECRET = "internal-identity-secret-for-tests-only";
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdentityAssertionVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifier = new IdentityAssertionVerifier(meterRegistry, true, SECRET);
+    }
+
+    @Test
+    void verify_SignedAssertion_ShouldReturnIdentity() {
+        UUID userId = UUID.randomUUID();
+
+        Optional<JwtVerifier.VerifiedToken> identity = verifier.verify(assertion(SECRET, userId, "user@example.com", 300));
+
+        assertTrue(identity.isPresent());
+        assertEquals(userId, identity.get().userId());
+        assertEquals("user@example.com", identity.get().email());
+        assertEquals(1, meterRegistry.get("identity.assertions").tag("result", "accepted").counter().count());
+    }
+
+    @Test
+    void verify_ForgedOrTamperedAssertion_ShouldBeIgnored() {
+        UUID userId = UUID.randomUUID();
+        String forged = assertion("some-other-secret-that-is-long-enough", userId, "user@example.com", 300);
+        String genuine = assertion(SECRET, userId, "user@example.com", 300);
+        String tampered = UUID.randomUUID() + genuine.substring(genuine.indexOf('.'));
+
+        assertTrue(verifier.verify(forged).isEmpty());
+        assertTrue(verifier.verify(tampered).isEmpty());
+        assertTrue(verifier.verify("garbage").isEmpty());
+        assertEquals(3, meterRegistry.get("identity.assertions").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void verify_ExpiredAssertion_ShouldBeIgnored() {
+        assertTrue(verifier.verify(assertion(SECRET, UUID.randomUUID(), "user@example.com", -1)).isEmpty());
+    }
+
+    @Test
+    void verify_WhenDisabled_ShouldIgnoreHeader() {
+        IdentityAssertionVerifier disabled = new IdentityAssertionVerifier(meterRegistry, false, "");
+
+        assertTrue(disabled.verify(assertion(SECRET, UUID.randomUUID(), "user@example.com", 300)).isEmpty());
+        assertThrows(IllegalStateException.class, () -> new IdentityAssertionVerifier(meterRegistry, true, "short"));
+    }
+
+    /** Builds an assertion the way the gateway's IdentityAssertionSigner does. */
+    static String assertion(String secret, UUID userId, String email, long ttlSeconds) {
+        try {
+            String payload = userId + "." + (System.currentTimeMillis() / 1000 + ttlSeconds) + "."
+                    + Base64.getUrlEncoder().withoutPadding().encodeToString(email.getBytes(StandardCharsets.UTF_8));
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return payload + "." + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.valven.ecommerce.orderservice.security;
+
+import com.valven.ecommerce.benchmark.Benchmark;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Measures the per-request cost of {@link JwtAuthenticationFilter} for warm tokens (the same token
+ * on every request, served from the verified-claims cache) and cold tokens (a new token on every
+ * request), against the previous approach of rebuilding the key and parser and parsing the token
+ * three times per request, and against trusting the gateway's signed identity assertion.
+ * <p>
+ * Disabled by default, run with
+ * {@code mvn test -pl services/order-service -Dtest=JwtFilterBenchmarkTest -Djwt.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "jwt.benchmark", matches = "true")
+class JwtFilterBenchmarkTest {
+
+    private static final String SECRET = "test-secret-key-for-testing-purposes-only";
+    private static final String ASSERTION_SECRET = "internal-identity-secret-for-tests-only";
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void comparePerRequestCost() throws Exception {
+        int requests = Integer.getInteger("jwt.benchmark.requests", 50_000);
+        String[] coldTokens = new String[requests];
+        for (int i = 0; i < requests; i++) {
+            coldTokens[i] = JwtVerifierTest.token(SECRET, UUID.randomUUID(), Duration.ofHours(1));
+        }
+        String warmToken = coldTokens[0];
+        String assertion = IdentityAssertionVerifierTest.assertion(ASSERTION_SECRET, UUID.randomUUID(),
+                "user@example.com", 3600);
+
+        Benchmark.warmedUp(round -> {
+            round.measure("parse per call (before)", requests, i -> parsePerCall(warmToken));
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            JwtAuthenticationFilter filter = new JwtAuthenticationFilter(
+                    new JwtVerifier(new JwtUtil(SECRET), registry, requests + 1, Duration.ofMinutes(15)),
+                    new IdentityAssertionVerifier(registry, true, ASSERTION_SECRET));
+            round.measure("filter, cold token", requests, i -> doFilter(filter, coldTokens[i], null));
+            round.measure("filter, warm token", requests, i -> doFilter(filter, warmToken, null));
+            round.measure("filter, identity assertion", requests, i -> doFilter(filter, coldTokens[i], assertion));
+        });
+    }
+
+    /** What the filter did before: validate, then read the subject and the email, each with a fresh parser. */
+    private static void parsePerCall(String token) {
+        for (int i = 0; i < 3; i++) {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            if (claims.getSubject() == null) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static void doFilter(JwtAuthenticationFilter filter, String token, String assertion) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        if (assertion != null) {
+            request.addHeader(IdentityAssertionVerifier.HEADER, assertion);
+        }
+        FilterChain chain = new MockFilterChain();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        if (request.getAttribute("userId") == null) {
+            throw new IllegalStateException("token was not accepted");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.valven.ecommerce.orderservice.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtVerifierTest {
+
+    private static final String SECRET = "test-secret-key-for-testing-purposes-only";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifier = new JwtVerifier(new JwtUtil(SECRET), meterRegistry, 3, Duration.ofMinutes(15));
+    }
+
+    @Test
+    void verify_ValidToken_ShouldReturnClaimsAndCacheThem() {
+        UUID userId = UUID.randomUUID();
+        String token = token(SECRET, userId, Duration.ofMinutes(5));
+
+        Optional<JwtVerifier.VerifiedToken> first = verifier.verify(token);
+        Optional<JwtVerifier.VerifiedToken> second = verifier.verify(token);
+
+        assertTrue(first.isPresent());
+        assertEquals(userId, first.get().userId());
+        assertEquals("user@example.com", first.get().email());
+        assertEquals(first, second);
+        assertEquals(1, count("verified"));
+        assertEquals(1, count("cache_hit"));
+    }
+
+    @Test
+    void verify_TokenSignedWithOtherKey_ShouldBeRejectedAndNotCached() {
+        String token = token("another-secret-key-that-is-long-enough-for-hmac", UUID.randomUUID(), Duration.ofMinutes(5));
+
+        assertTrue(verifier.verify(token).isEmpty());
+        assertTrue(verifier.verify(token).isEmpty());
+        assertEquals(2, count("rejected"));
+        assertEquals(0, verifier.size());
+    }
+
+    @Test
+    void verify_MalformedOrExpiredToken_ShouldBeRejected() {
+        assertTrue(verifier.verify("not-a-jwt").isEmpty());
+        assertTrue(verifier.verify(token(SECRET, UUID.randomUUID(), Duration.ofMinutes(-1))).isEmpty());
+        assertEquals(2, count("rejected"));
+    }
+
+    @Test
+    void verify_TokenWithoutSubject_ShouldBeRejected() {
+        String token = Jwts.builder()
+                .claim("email", "user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + Duration.ofMinutes(5).toMillis()))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertTrue(verifier.verify(token).isEmpty());
+        assertEquals(1, count("rejected"));
+        assertEquals(0, verifier.size());
+    }
+
+    @Test
+    void verify_CachedTokenPastExpiry_ShouldBeVerifiedAgainAndRejected() throws InterruptedException {
+        String token = token(SECRET, UUID.randomUUID(), Duration.ofMillis(1200));
+        assertTrue(verifier.verify(token).isPresent());
+
+        Thread.sleep(1300);
+
+        assertTrue(verifier.verify(token).isEmpty());
+        assertEquals(0, count("cache_hit"));
+        assertEquals(1, count("rejected"));
+    }
+
+    @Test
+    void verify_ShouldBoundCacheSize() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(verifier.verify(token(SECRET, UUID.randomUUID(), Duration.ofMinutes(5))).isPresent());
+        }
+
+        assertTrue(verifier.size() <= 3);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("jwt.verifications").tag("result", result).counter().count();
+    }
+
+    static String token(String secret, UUID userId, Duration ttl) {
+        return Jwts.builder()
+                .setSubject(userId.toString())
+                .claim("email", "user@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ttl.toMillis()))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
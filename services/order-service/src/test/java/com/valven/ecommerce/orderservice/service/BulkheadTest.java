@@ -0,0 +1,48 @@
+package com.valven.ecommerce.orderservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    void call_ShouldRejectWhenLimitIsReachedForTooLong() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("product-service", 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> bulkhead.call(Duration.ZERO, () -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, bulkhead.inUse());
+        assertThrows(RejectedExecutionException.class, () -> bulkhead.call(Duration.ofMillis(20), () -> "late"));
+
+        release.countDown();
+        holder.join();
+        assertEquals("now", bulkhead.call(Duration.ZERO, () -> "now"));
+        assertEquals(0, bulkhead.inUse());
+    }
+
+    @Test
+    void call_ShouldReleasePermitWhenCallFails() {
+        Bulkhead bulkhead = new Bulkhead("email", 2);
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.call(Duration.ZERO, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(2, bulkhead.available());
+    }
+}
@@ -0,0 +1,79 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.benchmark.Benchmark;
+import com.valven.ecommerce.orderservice.domain.CartItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Compares cart mutation latency of the JPA and Redis stores on 50-item carts.
+ * <p>
+ * Needs a Redis at {@code spring.data.redis.host}; disabled by default, run with
+ * {@code mvn test -pl services/order-service -Dtest=CartStoreBenchmarkTest -Dcart.benchmark=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "cart.benchmark", matches = "true")
+class CartStoreBenchmarkTest {
+
+    private static final int CART_SIZE = 50;
+
+    @Autowired
+    private JpaCartStore jpaCartStore;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Test
+    void compareStores() {
+        int users = Integer.getInteger("cart.benchmark.users", 200);
+        int updates = Integer.getInteger("cart.benchmark.updates", 20_000);
+
+        run("jpa", jpaCartStore, users, updates);
+        run("redis", new RedisCartStore(redisTemplate, Duration.ofMinutes(10)), users, updates);
+    }
+
+    private void run(String name, CartStore store, int users, int updates) {
+        UUID[] userIds = new UUID[users];
+        for (int u = 0; u < users; u++) {
+            userIds[u] = UUID.randomUUID();
+            for (long p = 1; p <= CART_SIZE; p++) {
+                store.addItem(userIds[u], item(p));
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(11);
+        long[] latencies = new long[updates];
+        for (int i = 0; i < updates; i++) {
+            UUID userId = userIds[random.nextInt(users)];
+            CartItem item = item(1 + random.nextInt(CART_SIZE));
+            long begin = System.nanoTime();
+            store.addItem(userId, item);
+            latencies[i] = System.nanoTime() - begin;
+        }
+
+        for (UUID userId : userIds) {
+            store.clear(userId);
+        }
+
+        System.out.printf("%-6s %d quantity updates on %d-item carts: %s%n",
+                name, updates, CART_SIZE, Benchmark.latencies(latencies));
+    }
+
+    private static CartItem item(long productId) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setProductName("Product " + productId);
+        item.setPrice(9.99);
+        item.setQuantity(1);
+        return item;
+    }
+}
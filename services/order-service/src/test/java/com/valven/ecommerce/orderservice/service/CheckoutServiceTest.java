@@ -0,0 +1,219 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Cart;
+import com.valven.ecommerce.orderservice.domain.CartItem;
+import com.valven.ecommerce.orderservice.domain.Order;
+import com.valven.ecommerce.orderservice.domain.OrderItem;
+import com.valven.ecommerce.orderservice.dto.ProductQuote;
+import com.valven.ecommerce.orderservice.exception.CheckoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.math.BigDecimal;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CheckoutServiceTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private CartStore cartStore;
+    private ProductCatalogClient catalogClient;
+    private OrderPlacementService orderPlacementService;
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private CheckoutService checkoutService;
+
+    @BeforeEach
+    void setUp() {
+        cartStore = mock(CartStore.class);
+        catalogClient = mock(ProductCatalogClient.class);
+        orderPlacementService = mock(OrderPlacementService.class);
+        executor = Executors.newFixedThreadPool(8);
+        meterRegistry = new SimpleMeterRegistry();
+        checkoutService = new CheckoutService(cartStore, catalogClient, orderPlacementService, executor,
+                new DownstreamLimits(new MockEnvironment(), meterRegistry), meterRegistry, Duration.ofMillis(500));
+        when(orderPlacementService.place(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void checkout_ShouldPriceOrderFromCatalogNotFromCart() {
+        givenCart(line(1L, 99.0, 2), line(2L, 1.0, 1));
+        when(catalogClient.getProduct(1L)).thenReturn(new ProductQuote(1L, "Mug", new BigDecimal("12.50")));
+        when(catalogClient.getProduct(2L)).thenReturn(new ProductQuote(2L, "Tea", new BigDecimal("3.99")));
+
+        Order order = checkoutService.checkout(userId);
+
+        assertEquals(userId, order.getUserId());
+        assertEquals(28.99, order.getTotalAmount());
+        assertEquals(12.5, order.getItems().get(0).getPrice());
+        assertEquals("Tea", order.getItems().get(1).getProductName());
+        verify(catalogClient).reserveStock(eq(1L), eq(2), anyString());
+        verify(catalogClient).reserveStock(eq(2L), eq(1), anyString());
+        verify(catalogClient, never()).releaseStock(anyLong(), anyInt(), anyString());
+        verify(cartStore, never()).addItem(any(), any());
+        assertEquals(2, meterRegistry.get("orders.checkout.stage").tag("stage", "price").timer().count());
+        assertEquals(1, meterRegistry.get("orders.checkout.duration").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void checkout_ShouldRejectEmptyCart() {
+        when(cartStore.checkout(userId)).thenReturn(Optional.empty());
+
+        CheckoutException e = assertThrows(CheckoutException.class, () -> checkoutService.checkout(userId));
+
+        assertEquals("EMPTY_CART", e.getErrorCode());
+        verifyNoInteractions(catalogClient, orderPlacementService);
+    }
+
+    @Test
+    void checkout_ShouldReleaseReservationsAndRestoreCartWhenStockIsShort() {
+        CartItem first = line(1L, 10.0, 2);
+        CartItem second = line(2L, 5.0, 1);
+        givenCart(first, second);
+        when(catalogClient.getProduct(anyLong())).thenAnswer(invocation ->
+                new ProductQuote(invocation.getArgument(0), "Product", BigDecimal.TEN));
+        doThrow(new CheckoutException(HttpStatus.CONFLICT, "INSUFFICIENT_STOCK", "short"))
+                .when(catalogClient).reserveStock(eq(2L), eq(1), anyString());
+
+        CheckoutException e = assertThrows(CheckoutException.class, () -> checkoutService.checkout(userId));
+
+        assertEquals("INSUFFICIENT_STOCK", e.getErrorCode());
+        verify(catalogClient, timeout(2000)).releaseStock(eq(1L), eq(2), anyString());
+        verify(catalogClient, never()).releaseStock(eq(2L), anyInt(), anyString());
+        verify(cartStore).addItem(userId, first);
+        verify(cartStore).addItem(userId, second);
+        verify(orderPlacementService, never()).place(any());
+    }
+
+    @Test
+    void checkout_ShouldTimeOutAndReleaseLateReservations() {
+        givenCart(line(1L, 10.0, 3));
+        when(catalogClient.getProduct(1L)).thenReturn(new ProductQuote(1L, "Slow", BigDecimal.ONE));
+        doAnswer(invocation -> {
+            Thread.sleep(1000);
+            return null;
+        }).when(catalogClient).reserveStock(eq(1L), eq(3), anyString());
+
+        long start = System.nanoTime();
+        CheckoutException e = assertThrows(CheckoutException.class, () -> checkoutService.checkout(userId));
+
+        assertEquals("CHECKOUT_TIMEOUT", e.getErrorCode());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+        verify(catalogClient, timeout(3000)).releaseStock(eq(1L), eq(3), anyString());
+        verify(orderPlacementService, never()).place(any());
+    }
+
+    @Test
+    void checkout_ShouldReleaseReservationThatTimedOutOnlyOnTheClient() {
+        givenCart(line(1L, 10.0, 2));
+        when(catalogClient.getProduct(1L)).thenReturn(new ProductQuote(1L, "Mug", BigDecimal.ONE));
+        CheckoutException readTimeout = new CheckoutException(HttpStatus.SERVICE_UNAVAILABLE, "CATALOG_UNAVAILABLE",
+                "Could not reserve stock for product 1");
+        readTimeout.initCause(new ResourceAccessException("Read timed out", new SocketTimeoutException()));
+        doThrow(readTimeout).when(catalogClient).reserveStock(eq(1L), eq(2), anyString());
+
+        assertThrows(CheckoutException.class, () -> checkoutService.checkout(userId));
+
+        ArgumentCaptor<String> reserved = ArgumentCaptor.forClass(String.class);
+        verify(catalogClient).reserveStock(eq(1L), eq(2), reserved.capture());
+        verify(catalogClient, timeout(2000)).releaseStock(1L, 2, reserved.getValue());
+    }
+
+    @Test
+    void checkout_ShouldReportUnavailableCatalog() {
+        givenCart(line(1L, 10.0, 1));
+        when(catalogClient.getProduct(1L)).thenThrow(new IllegalStateException("connection reset"));
+
+        CheckoutException e = assertThrows(CheckoutException.class, () -> checkoutService.checkout(userId));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        verify(catalogClient, timeout(2000)).releaseStock(eq(1L), eq(1), anyString());
+    }
+
+    @Test
+    void placeOrder_ShouldIgnoreClientPricesAndTotal() {
+        when(catalogClient.getProduct(1L)).thenReturn(new ProductQuote(1L, "Mug", new BigDecimal("12.50")));
+
+        Order order = checkoutService.placeOrder(userId, List.of(requested(1L, 0.01, 2)));
+
+        assertEquals(25.0, order.getTotalAmount());
+        assertEquals(12.5, order.getItems().get(0).getPrice());
+        assertEquals("Mug", order.getItems().get(0).getProductName());
+        verify(catalogClient).reserveStock(eq(1L), eq(2), anyString());
+        verifyNoInteractions(cartStore);
+    }
+
+    @Test
+    void placeOrder_ShouldRejectItemsWithoutPositiveQuantity() {
+        CheckoutException e = assertThrows(CheckoutException.class,
+                () -> checkoutService.placeOrder(userId, List.of(requested(1L, 10.0, 0))));
+
+        assertEquals("INVALID_ORDER", e.getErrorCode());
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+        verifyNoInteractions(catalogClient, orderPlacementService);
+        assertThrows(CheckoutException.class, () -> checkoutService.placeOrder(userId, List.of()));
+    }
+
+    @Test
+    void placeOrder_ShouldReleaseReservationsWithoutTouchingCart() {
+        when(catalogClient.getProduct(anyLong())).thenAnswer(invocation ->
+                new ProductQuote(invocation.getArgument(0), "Product", BigDecimal.TEN));
+        doThrow(new CheckoutException(HttpStatus.CONFLICT, "INSUFFICIENT_STOCK", "short"))
+                .when(catalogClient).reserveStock(eq(2L), eq(1), anyString());
+
+        assertThrows(CheckoutException.class, () -> checkoutService.placeOrder(userId,
+                List.of(requested(1L, 10.0, 2), requested(2L, 5.0, 1))));
+
+        verify(catalogClient, timeout(2000)).releaseStock(eq(1L), eq(2), anyString());
+        verifyNoInteractions(cartStore);
+        verify(orderPlacementService, never()).place(any());
+    }
+
+    private void givenCart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setUserId(userId);
+        cart.getItems().addAll(List.of(items));
+        when(cartStore.checkout(userId)).thenReturn(Optional.of(cart));
+    }
+
+    private static CartItem line(Long productId, double price, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setProductName("Cart name");
+        item.setPrice(price);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static OrderItem requested(Long productId, double price, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("Client name");
+        item.setPrice(price);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
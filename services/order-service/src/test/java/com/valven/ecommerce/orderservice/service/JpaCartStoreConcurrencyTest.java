@@ -0,0 +1,108 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Cart;
+import com.valven.ecommerce.orderservice.domain.CartItem;
+import com.valven.ecommerce.orderservice.repository.CartRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires concurrent adds at one user's cart with the in-process locks disabled, so only the
+ * database-level guarantees (atomic upserts, unique constraints, retries) keep it exact.
+ */
+@SpringBootTest(properties = {
+        "cart.jpa.lock-stripes=0",
+        "cart.jpa.max-attempts=50"
+})
+@ActiveProfiles("test")
+class JpaCartStoreConcurrencyTest {
+
+    private static final int ADDS = 1_000;
+    private static final int PRODUCTS = 5;
+
+    @Autowired
+    private JpaCartStore cartStore;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Test
+    void concurrentAdds_ShouldNeverLoseAnIncrementOrDuplicateTheCart() throws Exception {
+        UUID userId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Cart>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < ADDS; i++) {
+                long productId = 1 + (i % PRODUCTS);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cartStore.addItem(userId, item(productId));
+                }));
+            }
+            start.countDown();
+            for (Future<Cart> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Cart cart = cartStore.getCart(userId).orElseThrow();
+        assertEquals(PRODUCTS, cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            assertEquals(ADDS / PRODUCTS, item.getQuantity(), "quantity of product " + item.getProductId());
+        }
+        assertEquals(1, cartRepository.findAll().stream().filter(c -> c.getUserId().equals(userId)).count());
+    }
+
+    @Test
+    void checkout_ShouldTakeEveryAddExactlyOnce() throws Exception {
+        UUID userId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> adds = new ArrayList<>();
+        List<Cart> checkouts = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                adds.add(executor.submit(() -> cartStore.addItem(userId, item(1L))));
+                if (i % 50 == 49) {
+                    checkouts.add(executor.submit(() -> cartStore.checkout(userId).orElse(new Cart())).get());
+                }
+            }
+            for (Future<?> add : adds) {
+                add.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        checkouts.add(cartStore.checkout(userId).orElseThrow());
+
+        int taken = checkouts.stream()
+                .flatMap(cart -> cart.getItems().stream())
+                .mapToInt(CartItem::getQuantity)
+                .sum();
+        assertEquals(200, taken);
+        assertTrue(cartStore.getCart(userId).orElseThrow().getItems().isEmpty());
+    }
+
+    private static CartItem item(long productId) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setProductName("Product " + productId);
+        item.setPrice(1.0);
+        item.setQuantity(1);
+        return item;
+    }
+}
@@ -0,0 +1,132 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Cart;
+import com.valven.ecommerce.orderservice.domain.CartItem;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.valven.ecommerce.orderservice.service.JpaCartStoreSqlTest$RecordingInspector"
+})
+@ActiveProfiles("test")
+class JpaCartStoreSqlTest {
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.trim().toLowerCase(Locale.ROOT));
+            return sql;
+        }
+    }
+
+    @Autowired
+    private JpaCartStore cartStore;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        cartStore.addItem(userId, item(1L, 2));
+        for (long productId = 2; productId <= 50; productId++) {
+            cartStore.addItem(userId, item(productId, 1));
+        }
+        RecordingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void addItem_ShouldIssueOneWriteForExistingProductInFiftyItemCart() {
+        Cart cart = cartStore.addItem(userId, item(1L, 3));
+
+        assertEquals(5, quantityOf(cart, 1L));
+        assertEquals(50, cart.getItems().size());
+        assertEquals(1, writes());
+        assertEquals(2, RecordingInspector.STATEMENTS.size());
+    }
+
+    @Test
+    void addItem_ShouldIssueOneWriteForNewProduct() {
+        Cart cart = cartStore.addItem(userId, item(99L, 1));
+
+        assertEquals(51, cart.getItems().size());
+        assertEquals(1, writes());
+    }
+
+    @Test
+    void removeItemAndClear_ShouldEachIssueOneWrite() {
+        Cart cart = cartStore.removeItem(userId, 7L).orElseThrow();
+        assertEquals(49, cart.getItems().size());
+        assertEquals(1, writes());
+
+        RecordingInspector.STATEMENTS.clear();
+        cart = cartStore.clear(userId).orElseThrow();
+        assertTrue(cart.getItems().isEmpty());
+        assertEquals(1, writes());
+    }
+
+    @Test
+    void addItem_ShouldCreateCartOnFirstAdd() {
+        UUID newUser = UUID.randomUUID();
+
+        Cart cart = cartStore.addItem(newUser, item(5L, 4));
+
+        assertEquals(newUser, cart.getUserId());
+        assertEquals(4, quantityOf(cart, 5L));
+    }
+
+    @Test
+    void addItem_ShouldDefaultMissingQuantityAndRejectNonPositive() {
+        UUID newUser = UUID.randomUUID();
+        CartItem unspecified = item(5L, 1);
+        unspecified.setQuantity(null);
+
+        assertEquals(1, quantityOf(cartStore.addItem(newUser, unspecified), 5L));
+        assertThrows(IllegalArgumentException.class, () -> cartStore.addItem(newUser, item(5L, 0)));
+        assertEquals(1, quantityOf(cartStore.getCart(newUser).orElseThrow(), 5L));
+    }
+
+    @Test
+    void addItem_ShouldNotRetryIntegrityViolationOutsideCartKeys() {
+        assertThrows(DataIntegrityViolationException.class, () -> cartStore.addItem(userId, item(null, 1)));
+
+        assertEquals(1, writes());
+    }
+
+    private static long writes() {
+        return RecordingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.startsWith("insert") || sql.startsWith("update")
+                        || sql.startsWith("delete") || sql.startsWith("merge"))
+                .count();
+    }
+
+    private static int quantityOf(Cart cart, Long productId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getProductId().equals(productId))
+                .findFirst().orElseThrow()
+                .getQuantity();
+    }
+
+    private static CartItem item(Long productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setProductName("Product " + productId);
+        item.setPrice(4.5);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
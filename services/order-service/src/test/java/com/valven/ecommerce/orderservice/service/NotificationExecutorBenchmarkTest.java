@@ -0,0 +1,87 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.benchmark.Benchmark;
+import com.valven.ecommerce.orderservice.config.AsyncConfig;
+import com.valven.ecommerce.orderservice.config.AsyncConfig.Mode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares notification throughput and enqueue latency of the platform pool and virtual-thread
+ * executors, with sends simulated as blocking I/O.
+ * <p>
+ * Disabled by default, run with
+ * {@code mvn test -pl services/order-service -Dtest=NotificationExecutorBenchmarkTest -Dnotification.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "notification.benchmark", matches = "true")
+class NotificationExecutorBenchmarkTest {
+
+    @Test
+    void compareModes() throws Exception {
+        int notifications = Integer.getInteger("notification.benchmark.count", 5_000);
+        int sendMillis = Integer.getInteger("notification.benchmark.send-ms", 20);
+        int limit = Integer.getInteger("notification.benchmark.limit", 200);
+
+        run(Mode.PLATFORM, notifications, sendMillis, limit);
+        run(Mode.VIRTUAL, notifications, sendMillis, limit);
+    }
+
+    private void run(Mode mode, int notifications, int sendMillis, int limit) throws Exception {
+        Executor executor = AsyncConfig.executor(mode, "bench-", 1, 3, 50, new ThreadPoolExecutor.AbortPolicy());
+        Bulkhead bulkhead = new Bulkhead("email", limit);
+        CountDownLatch done = new CountDownLatch(notifications);
+        AtomicInteger rejected = new AtomicInteger();
+        long[] enqueue = new long[notifications];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < notifications; i++) {
+            long begin = System.nanoTime();
+            try {
+                executor.execute(() -> {
+                    try {
+                        bulkhead.call(Duration.ofMinutes(1), () -> {
+                            sleep(sendMillis);
+                            return null;
+                        });
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                done.countDown();
+            }
+            enqueue[i] = System.nanoTime() - begin;
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        } else if (executor instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+
+        int sent = notifications - rejected.get();
+        System.out.printf("%-8s %d notifications of %d ms: %d sent, %d rejected, %.0f sent/s, enqueue %s%n",
+                mode, notifications, sendMillis, sent, rejected.get(), sent / seconds, Benchmark.latencies(enqueue));
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
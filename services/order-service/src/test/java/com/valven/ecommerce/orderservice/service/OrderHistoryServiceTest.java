@@ -0,0 +1,114 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Order;
+import com.valven.ecommerce.orderservice.domain.OrderItem;
+import com.valven.ecommerce.orderservice.dto.OrderPage;
+import com.valven.ecommerce.orderservice.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class OrderHistoryServiceTest {
+
+    private static final int ORDERS = 30;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        Instant base = Instant.parse("2026-03-01T10:00:00Z");
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setUserId(userId);
+            // Orders 3k and 3k+1 share a timestamp to exercise the id tie-breaker.
+            order.setCreatedAt(base.plusSeconds(i - (i % 3 == 1 ? 1 : 0)));
+            order.setTotalAmount(10.0 + i);
+            for (long p = 1; p <= 3; p++) {
+                OrderItem item = new OrderItem();
+                item.setProductId(p);
+                item.setProductName("Product " + p);
+                item.setPrice(1.0);
+                item.setQuantity(1);
+                order.getItems().add(item);
+            }
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void page_ShouldLoadOrdersAndItemsInTwoQueries() {
+        OrderPage page = orderHistoryService.page(userId, null, 10);
+
+        assertEquals(10, page.getSize());
+        page.getItems().forEach(order -> assertEquals(3, order.getItems().size()));
+        assertNotNull(page.getNextCursor());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void page_ShouldWalkAllOrdersNewestFirstWithoutGapsOrDuplicates() {
+        List<Order> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderPage page = orderHistoryService.page(userId, cursor, 7);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(ORDERS, seen.size());
+        Set<Long> ids = new HashSet<>();
+        seen.forEach(order -> assertTrue(ids.add(order.getId())));
+        for (int i = 1; i < seen.size(); i++) {
+            Order previous = seen.get(i - 1);
+            Order current = seen.get(i);
+            int byTime = previous.getCreatedAt().compareTo(current.getCreatedAt());
+            assertTrue(byTime > 0 || (byTime == 0 && previous.getId() > current.getId()));
+        }
+    }
+
+    @Test
+    void findAll_ShouldLoadEveryOrderWithItemsInOneQuery() {
+        List<Order> orders = orderHistoryService.findAll(userId);
+
+        assertEquals(ORDERS, orders.size());
+        orders.forEach(order -> assertEquals(3, order.getItems().size()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void page_ShouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> orderHistoryService.page(userId, "not-a-cursor", 10));
+    }
+}
@@ -0,0 +1,50 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.benchmark.Benchmark;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures the per-event cost of recording order metrics into a Prometheus registry, comparing
+ * registering the meter on every event with the pre-bound meters of {@link OrderMetricsService}.
+ * <p>
+ * Disabled by default, run with
+ * {@code mvn test -pl services/order-service -Dtest=OrderMetricsBenchmarkTest -Dmetrics.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "metrics.benchmark", matches = "true")
+class OrderMetricsBenchmarkTest {
+
+    private static final String[] ERROR_TYPES = {
+            "validation", "illegal_argument", "INSUFFICIENT_STOCK", "CHECKOUT_TIMEOUT",
+            "EMPTY_CART", "CATALOG_UNAVAILABLE", "RuntimeException", "IllegalStateException"
+    };
+
+    @Test
+    void comparePerEventOverhead() throws Exception {
+        int events = Integer.getInteger("metrics.benchmark.events", 5_000_000);
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        OrderMetricsService metrics = new OrderMetricsService(registry);
+
+        Benchmark.warmedUp(round -> {
+            round.measure("counter, builder per event", events, i -> Counter.builder("orders.created")
+                    .description("Number of orders created")
+                    .register(registry)
+                    .increment());
+            round.measure("counter, pre-bound", events, i -> metrics.recordOrderCreated());
+            round.measure("error, builder per event", events, i -> builderError(registry, ERROR_TYPES[i & 7]));
+            round.measure("error, cached per type", events, i -> metrics.recordError(ERROR_TYPES[i & 7]));
+        });
+    }
+
+    private static void builderError(MeterRegistry registry, String type) {
+        Counter.builder("application.errors")
+                .tag("type", type)
+                .description("Number of application errors")
+                .register(registry)
+                .increment();
+    }
+}
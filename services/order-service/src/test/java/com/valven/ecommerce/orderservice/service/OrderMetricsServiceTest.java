@@ -0,0 +1,66 @@
+package com.valven.ecommerce.orderservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderMetricsServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderMetricsService metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new OrderMetricsService(meterRegistry);
+    }
+
+    @Test
+    void recordMethods_ShouldIncrementPreRegisteredMeters() {
+        metrics.recordOrderCreated();
+        metrics.recordOrderCreated();
+        metrics.recordOrderValue(12.5);
+        metrics.recordCartItemAdded();
+        metrics.recordCartItemRemoved();
+
+        assertEquals(2, meterRegistry.get("orders.created").counter().count());
+        assertEquals(12.5, meterRegistry.get("orders.total.value").counter().count());
+        assertEquals(1, meterRegistry.get("cart.items.added").counter().count());
+        assertEquals(1, meterRegistry.get("cart.items.removed").counter().count());
+    }
+
+    @Test
+    void recordError_ShouldReuseCounterPerTypeAndCapCardinality() {
+        metrics.recordError("validation");
+        Counter validation = meterRegistry.get("application.errors").tag("type", "validation").counter();
+        metrics.recordError("validation");
+        assertSame(validation, meterRegistry.get("application.errors").tag("type", "validation").counter());
+        assertEquals(2, validation.count());
+
+        for (int i = 0; i < OrderMetricsService.MAX_ERROR_TYPES + 10; i++) {
+            metrics.recordError("type-" + i);
+        }
+        assertTrue(meterRegistry.get("application.errors").counters().size() <= OrderMetricsService.MAX_ERROR_TYPES + 1);
+        assertTrue(meterRegistry.get("application.errors").tag("type", "other").counter().count() >= 10);
+    }
+
+    @Test
+    void orderCreationTime_ShouldPublishSloBuckets() {
+        metrics.recordOrderCreationTime(metrics.startOrderCreationTimer());
+        Timer timer = meterRegistry.get("orders.creation.time").timer();
+        timer.record(300, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, timer.count());
+        CountAtBucket[] buckets = timer.takeSnapshot().histogramCounts();
+        assertTrue(Arrays.stream(buckets).anyMatch(b -> b.bucket(TimeUnit.MILLISECONDS) == 250));
+        assertTrue(Arrays.stream(buckets).anyMatch(b -> b.bucket(TimeUnit.MILLISECONDS) == 500 && b.count() == 2));
+    }
+}
@@ -0,0 +1,312 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Order;
+import com.valven.ecommerce.orderservice.domain.OutboxEvent;
+import com.valven.ecommerce.orderservice.domain.OutboxEvent.Status;
+import com.valven.ecommerce.orderservice.repository.OrderRepository;
+import com.valven.ecommerce.orderservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the dispatcher by calling {@link OutboxDispatcher#poll()} directly; the background
+ * poller is disabled in the test profile.
+ */
+@SpringBootTest(properties = {
+        "outbox.max-attempts=3",
+        "outbox.backoff.base=10ms",
+        "outbox.backoff.max=50ms",
+        "downstream.limits.email=2",
+        "outbox.batch.max-size.email=1",
+        "outbox.batch.max-size.alert=3",
+        "outbox.coalesce.max-latency=300ms"
+})
+@ActiveProfiles("test")
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private OrderPlacementService orderPlacementService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StubMailSink mailSink;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        mailSink.reset();
+    }
+
+    @Test
+    void placedOrder_ShouldBeConfirmedOnce() {
+        Order order = orderPlacementService.place(newOrder());
+        String key = "order-confirmation:" + order.getId();
+        assertEquals(Status.PENDING, event(key).getStatus());
+
+        awaitStatus(key, Status.SENT);
+        dispatcher.poll();
+
+        assertEquals(1, mailSink.deliveries(key));
+        assertEquals(1, event(key).getAttempts());
+    }
+
+    @Test
+    void rolledBackOrder_ShouldNotBeAnnounced() {
+        UUID userId = UUID.randomUUID();
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            Order order = newOrder();
+            order.setUserId(userId);
+            orderPlacementService.place(order);
+            throw new IllegalStateException("payment declined");
+        }));
+
+        assertTrue(orderRepository.findByUserId(userId).isEmpty());
+        assertTrue(outboxEventRepository.findAll().stream()
+                .noneMatch(e -> e.getPayload().contains(userId.toString())));
+    }
+
+    @Test
+    void transientFailures_ShouldBeRetried() {
+        Order order = orderPlacementService.place(newOrder());
+        String key = "order-confirmation:" + order.getId();
+        mailSink.failNext(key, 2);
+
+        awaitStatus(key, Status.SENT);
+
+        assertEquals(3, event(key).getAttempts());
+        assertEquals(1, mailSink.deliveries(key));
+    }
+
+    @Test
+    void exhaustedRetries_ShouldParkEventAsDead() {
+        Order order = orderPlacementService.place(newOrder());
+        String key = "order-confirmation:" + order.getId();
+        mailSink.failNext(key, Integer.MAX_VALUE);
+
+        awaitStatus(key, Status.DEAD);
+
+        OutboxEvent event = event(key);
+        assertEquals(3, event.getAttempts());
+        assertTrue(event.getLastError().contains("mail server unavailable"));
+        assertEquals(0, mailSink.deliveries(key));
+    }
+
+    @Test
+    void duplicateNotifications_ShouldBeQueuedOnce() {
+        String product = "Mug-" + UUID.randomUUID();
+        notificationService.sendLowStockAlert(product, 3);
+        notificationService.sendLowStockAlert(product, 3);
+
+        assertEquals(1, outboxEventRepository.findAll().stream()
+                .filter(e -> e.getDedupKey().startsWith("low-stock:" + product + ":3@")).count());
+    }
+
+    @Test
+    void deliveries_ShouldRespectChannelConcurrency() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        mailSink.blockUntil(release);
+        for (int i = 0; i < 6; i++) {
+            orderPlacementService.place(newOrder());
+        }
+
+        dispatcher.poll();
+        dispatcher.poll();
+        Thread.sleep(100);
+        assertEquals(2, mailSink.concurrent.get());
+
+        release.countDown();
+        awaitCondition(() -> outboxEventRepository.countByStatus(Status.PENDING)
+                + outboxEventRepository.countByStatus(Status.IN_FLIGHT) == 0);
+        assertTrue(mailSink.maxConcurrent.get() <= 2);
+        assertNotNull(meterRegistry.find("outbox.depth").tag("status", "pending").gauge());
+    }
+
+    @Test
+    void burstForOneProduct_ShouldBeCoalescedIntoItsLatestAlert() {
+        String product = "Kettle-" + UUID.randomUUID();
+        for (int stock = 9; stock >= 1; stock--) {
+            notificationService.sendLowStockAlert(product, stock);
+        }
+
+        dispatcher.poll();
+        assertTrue(mailSink.alertsFor(product).isEmpty(), "alerts must wait for the coalescing window");
+
+        awaitCondition(() -> outboxEventRepository.findAll().stream()
+                .filter(e -> e.getDedupKey().startsWith("low-stock:" + product + ":"))
+                .allMatch(e -> e.getStatus() == Status.SENT));
+
+        List<String> alerts = mailSink.alertsFor(product);
+        assertEquals(1, alerts.size());
+        assertTrue(alerts.get(0).contains("\"currentStock\":1"));
+        assertTrue(meterRegistry.get("outbox.coalesce.ratio").tag("channel", "alert").gauge().value() > 1.0);
+    }
+
+    @Test
+    void alertsForManyProducts_ShouldBeSentInBatches() {
+        String prefix = "Batch-" + UUID.randomUUID() + "-";
+        for (int i = 0; i < 7; i++) {
+            notificationService.sendInventoryUpdate(prefix + i, 10 + i);
+        }
+
+        awaitCondition(() -> outboxEventRepository.findAll().stream()
+                .filter(e -> e.getDedupKey().startsWith("inventory:" + prefix))
+                .allMatch(e -> e.getStatus() == Status.SENT));
+
+        for (int i = 0; i < 7; i++) {
+            assertEquals(1, mailSink.alertsFor(prefix + i).size());
+        }
+        assertFalse(mailSink.alertBatchSizes.isEmpty());
+        assertTrue(mailSink.alertBatchSizes.stream().allMatch(size -> size <= 3));
+        assertTrue(mailSink.alertBatchSizes.stream().anyMatch(size -> size > 1));
+    }
+
+    private void awaitStatus(String key, Status status) {
+        awaitCondition(() -> event(key).getStatus() == status);
+    }
+
+    private void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for outbox");
+            dispatcher.poll();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+    private OutboxEvent event(String key) {
+        return outboxEventRepository.findByDedupKey(key).orElseThrow();
+    }
+
+    private static Order newOrder() {
+        return Order.builder().userId(UUID.randomUUID()).totalAmount(10.0).build();
+    }
+
+    /**
+     * Local stand-in for the mail server.
+     */
+    static class StubMailSink implements NotificationSender {
+
+        private final Map<String, AtomicInteger> delivered = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        private final Set<String> seen = ConcurrentHashMap.newKeySet();
+        /** Concurrent deliveries on the email channel. */
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final List<String> alerts = new CopyOnWriteArrayList<>();
+        private final List<Integer> alertBatchSizes = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch gate;
+
+        @Override
+        public void sendBatch(List<OutboxEvent> events) throws Exception {
+            if (events.get(0).getChannel() == OutboxEvent.Channel.ALERT) {
+                alertBatchSizes.add(events.size());
+            }
+            NotificationSender.super.sendBatch(events);
+        }
+
+        @Override
+        public void send(OutboxEvent event) throws Exception {
+            boolean email = event.getChannel() == OutboxEvent.Channel.EMAIL;
+            if (email) {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            }
+            try {
+                CountDownLatch currentGate = gate;
+                if (currentGate != null && !currentGate.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("gate not released");
+                }
+                AtomicInteger remaining = failures.get(event.getDedupKey());
+                if (remaining != null && remaining.getAndDecrement() > 0) {
+                    throw new IllegalStateException("mail server unavailable");
+                }
+                if (event.getChannel() == OutboxEvent.Channel.ALERT) {
+                    alerts.add(event.getPayload());
+                }
+                // The receiver deduplicates on the key, as a real mail API does with an idempotency key
+                if (seen.add(event.getDedupKey())) {
+                    delivered.computeIfAbsent(event.getDedupKey(), k -> new AtomicInteger()).incrementAndGet();
+                }
+            } finally {
+                if (email) {
+                    concurrent.decrementAndGet();
+                }
+            }
+        }
+
+        List<String> alertsFor(String productName) {
+            return alerts.stream().filter(payload -> payload.contains("\"" + productName + "\"")).toList();
+        }
+
+        int deliveries(String key) {
+            AtomicInteger count = delivered.get(key);
+            return count == null ? 0 : count.get();
+        }
+
+        void failNext(String key, int times) {
+            failures.put(key, new AtomicInteger(times));
+        }
+
+        void blockUntil(CountDownLatch latch) {
+            gate = latch;
+        }
+
+        void reset() {
+            failures.clear();
+            gate = null;
+            maxConcurrent.set(0);
+        }
+    }
+
+    @TestConfiguration
+    static class StubMailSinkConfig {
+
+        @Bean
+        @Primary
+        StubMailSink stubMailSink() {
+            return new StubMailSink();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.valven.ecommerce.orderservice.service;
+
+import com.valven.ecommerce.orderservice.domain.Cart;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisCartStoreTest {
+
+    @Test
+    void toCart_ShouldDecodeHashFieldsOrderedByProductId() {
+        UUID userId = UUID.randomUUID();
+        List<String> fields = List.of(
+                "q:12", "3", "n:12", "Lamp", "p:12", "19.5",
+                "q:4", "1", "n:4", "Desk", "p:4", "120.0");
+
+        Cart cart = RedisCartStore.toCart(userId, fields).orElseThrow();
+
+        assertEquals(userId, cart.getUserId());
+        assertEquals(2, cart.getItems().size());
+        assertEquals(4L, cart.getItems().get(0).getProductId());
+        assertEquals("Desk", cart.getItems().get(0).getProductName());
+        assertEquals(3, cart.getItems().get(1).getQuantity());
+        assertEquals(19.5, cart.getItems().get(1).getPrice());
+        assertEquals(58.5 + 120.0, cart.getTotalAmount());
+    }
+
+    @Test
+    void toCart_ShouldSkipItemsWithoutQuantityAndTreatEmptyHashAsNoCart() {
+        UUID userId = UUID.randomUUID();
+
+        Optional<Cart> cart = RedisCartStore.toCart(userId, List.of("n:1", "Orphan"));
+
+        assertTrue(cart.isPresent());
+        assertTrue(cart.get().getItems().isEmpty());
+        assertTrue(RedisCartStore.toCart(userId, List.of()).isEmpty());
+    }
+}
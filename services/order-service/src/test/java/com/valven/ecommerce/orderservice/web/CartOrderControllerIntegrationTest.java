@@ -4,13 +4,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.valven.ecommerce.orderservice.domain.Cart;
 import com.valven.ecommerce.orderservice.domain.CartItem;
 import com.valven.ecommerce.orderservice.domain.Order;
+import com.valven.ecommerce.orderservice.domain.OrderItem;
+import com.valven.ecommerce.orderservice.dto.ProductQuote;
 import com.valven.ecommerce.orderservice.repository.CartRepository;
 import com.valven.ecommerce.orderservice.repository.OrderRepository;
+import com.valven.ecommerce.orderservice.service.ProductCatalogClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -18,8 +22,10 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -41,6 +47,9 @@ class CartOrderControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @MockBean
+    private ProductCatalogClient catalogClient;
+
     private MockMvc mockMvc;
     private String testUserId;
 
@@ -185,11 +194,11 @@ class CartOrderControllerIntegrationTest {
 
     @Test
     void createOrder_ShouldCreateOrder_WhenValidData() throws Exception {
-        
+        when(catalogClient.getProduct(1L)).thenReturn(new ProductQuote(1L, "Test Product", new BigDecimal("50.00")));
         Order order = new Order();
         order.setUserId(UUID.fromString(testUserId));
         order.setTotalAmount(199.98);
-        CartItem item = new CartItem();
+        OrderItem item = new OrderItem();
         item.setProductId(1L);
         item.setProductName("Test Product");
         item.setPrice(99.99);
@@ -203,7 +212,8 @@ class CartOrderControllerIntegrationTest {
                 .requestAttr("userId", testUserId))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.userId").value(testUserId))
-                .andExpect(jsonPath("$.totalAmount").value(199.98))
+                .andExpect(jsonPath("$.totalAmount").value(100.0))
+                .andExpect(jsonPath("$.items[0].price").value(50.0))
                 .andExpect(jsonPath("$.items").isArray())
                 .andExpect(jsonPath("$.items.length()").value(1));
     }
@@ -2,12 +2,22 @@ package com.valven.ecommerce.orderservice.web;
 
 import com.valven.ecommerce.orderservice.domain.Cart;
 import com.valven.ecommerce.orderservice.domain.CartItem;
-import com.valven.ecommerce.orderservice.repository.CartRepository;
-import com.valven.ecommerce.orderservice.repository.OrderRepository;
+import com.valven.ecommerce.orderservice.domain.Order;
+import com.valven.ecommerce.orderservice.exception.CheckoutException;
+import com.valven.ecommerce.orderservice.security.IdentityAssertionVerifier;
+import com.valven.ecommerce.orderservice.security.JwtVerifier;
+import com.valven.ecommerce.orderservice.service.CartStore;
+import com.valven.ecommerce.orderservice.service.CheckoutService;
+import com.valven.ecommerce.orderservice.service.OrderHistoryService;
+import com.valven.ecommerce.orderservice.service.OrderMetricsService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -15,22 +25,43 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(CartOrderController.class)
+@WebMvcTest(controllers = CartOrderController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = IdempotencyFilter.class))
+@AutoConfigureMockMvc(addFilters = false)
 class CartOrderControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
-    private CartRepository cartRepository;
+    private CartStore cartStore;
 
     @MockBean
-    private OrderRepository orderRepository;
+    private OrderHistoryService orderHistoryService;
+
+    @MockBean
+    private CheckoutService checkoutService;
+
+    @MockBean
+    private OrderMetricsService orderMetricsService;
+
+    @MockBean
+    private JwtVerifier jwtVerifier;
+
+    @MockBean
+    private IdentityAssertionVerifier identityAssertionVerifier;
 
     @Test
     void shouldGetCartSuccessfully() throws Exception {
@@ -39,7 +70,7 @@ class CartOrderControllerTest {
         Cart cart = new Cart();
         cart.setUserId(userId);
         
-        when(cartRepository.findByUserId(any(UUID.class))).thenReturn(Optional.of(cart));
+        when(cartStore.getCart(any(UUID.class))).thenReturn(Optional.of(cart));
 
         // When & Then
         mockMvc.perform(get("/api/carts")
@@ -69,8 +100,7 @@ class CartOrderControllerTest {
         Cart cart = new Cart();
         cart.setUserId(userId);
         
-        when(cartRepository.findByUserId(any(UUID.class))).thenReturn(Optional.of(cart));
-        when(cartRepository.save(any(Cart.class))).thenReturn(cart);
+        when(cartStore.addItem(any(UUID.class), any(CartItem.class))).thenReturn(cart);
 
         // When & Then
         mockMvc.perform(post("/api/carts/items")
@@ -79,4 +109,57 @@ class CartOrderControllerTest {
                         .content("{\"productId\":1,\"productName\":\"Test Product\",\"price\":10.0,\"quantity\":1}"))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRejectNonPositiveQuantity() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        mockMvc.perform(post("/api/carts/items")
+                        .requestAttr("userId", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productId\":1,\"quantity\":0}"))
+                .andExpect(status().isBadRequest());
+
+        verify(cartStore, never()).addItem(any(UUID.class), any(CartItem.class));
+    }
+
+    @Test
+    void shouldCheckoutCart() throws Exception {
+        UUID userId = UUID.randomUUID();
+        Order order = Order.builder().id(42L).userId(userId).totalAmount(25.0).build();
+        when(checkoutService.checkout(userId)).thenReturn(order);
+
+        mockMvc.perform(post("/api/orders/checkout").requestAttr("userId", userId.toString()))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/orders/42"))
+                .andExpect(jsonPath("$.totalAmount").value(25.0));
+    }
+
+    @Test
+    void shouldPlaceOrderThroughCheckoutService() throws Exception {
+        UUID userId = UUID.randomUUID();
+        Order order = Order.builder().id(7L).userId(userId).totalAmount(25.0).build();
+        when(checkoutService.placeOrder(eq(userId), anyList())).thenReturn(order);
+
+        mockMvc.perform(post("/api/orders")
+                        .requestAttr("userId", userId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"totalAmount\":0.01,\"items\":[{\"productId\":1,\"price\":0.01,\"quantity\":2}]}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/orders/7"))
+                .andExpect(jsonPath("$.totalAmount").value(25.0));
+        verify(checkoutService).placeOrder(eq(userId), argThat(items -> items.size() == 1
+                && items.get(0).getProductId() == 1L && items.get(0).getQuantity() == 2));
+    }
+
+    @Test
+    void shouldReportCheckoutFailure() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(checkoutService.checkout(userId)).thenThrow(
+                new CheckoutException(HttpStatus.CONFLICT, "INSUFFICIENT_STOCK", "Insufficient stock for product 1"));
+
+        mockMvc.perform(post("/api/orders/checkout").requestAttr("userId", userId.toString()))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value("INSUFFICIENT_STOCK"));
+    }
+}
@@ -0,0 +1,190 @@
+package com.valven.ecommerce.orderservice.web;
+
+import com.valven.ecommerce.orderservice.dto.ProductQuote;
+import com.valven.ecommerce.orderservice.repository.OrderRepository;
+import com.valven.ecommerce.orderservice.service.ProductCatalogClient;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs without a Redis server, so it also covers the in-memory fallback of the idempotency store.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyFilterTest {
+
+    private static final String ORDER = "{\"totalAmount\":25.0,\"items\":[{\"productId\":1,\"productName\":\"Mug\",\"price\":12.5,\"quantity\":2}]}";
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @MockBean
+    private ProductCatalogClient catalogClient;
+
+    private MockMvc mockMvc;
+    private String userId;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).addFilters(idempotencyFilter).build();
+        userId = UUID.randomUUID().toString();
+        when(catalogClient.getProduct(1L)).thenReturn(new ProductQuote(1L, "Mug", new BigDecimal("12.50")));
+    }
+
+    @Test
+    void replay_ShouldReturnOriginalResponseWithoutCreatingAnotherOrder() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        MvcResult first = createOrder(key, ORDER).andExpect(status().isCreated()).andReturn();
+        MvcResult second = createOrder(key, ORDER)
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andReturn();
+
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        assertEquals(first.getResponse().getHeader("Location"), second.getResponse().getHeader("Location"));
+        assertEquals(1, ordersOfUser());
+    }
+
+    @Test
+    void reuseWithDifferentBody_ShouldBeRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        createOrder(key, ORDER).andExpect(status().isCreated());
+
+        createOrder(key, ORDER.replace("25.0", "1.0")).andExpect(status().isUnprocessableEntity());
+        assertEquals(1, ordersOfUser());
+    }
+
+    @Test
+    void sameKeyForDifferentUsers_ShouldExecuteForEach() throws Exception {
+        String key = UUID.randomUUID().toString();
+        createOrder(key, ORDER).andExpect(status().isCreated());
+
+        userId = UUID.randomUUID().toString();
+        createOrder(key, ORDER)
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1, ordersOfUser());
+    }
+
+    @Test
+    void concurrentDuplicates_ShouldWaitForTheFirstExecution() throws Exception {
+        String key = UUID.randomUUID().toString();
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MvcResult>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 10; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return createOrder(key, ORDER).andReturn();
+                }));
+            }
+            start.countDown();
+            Set<String> bodies = new HashSet<>();
+            for (Future<MvcResult> result : results) {
+                MvcResult mvcResult = result.get();
+                assertEquals(201, mvcResult.getResponse().getStatus());
+                bodies.add(mvcResult.getResponse().getContentAsString());
+            }
+            assertEquals(1, bodies.size());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, ordersOfUser());
+    }
+
+    @Test
+    void requestsWithoutKey_ShouldNotBeDeduplicated() throws Exception {
+        mockMvc.perform(post("/api/orders").requestAttr("userId", userId)
+                .contentType(MediaType.APPLICATION_JSON).content(ORDER)).andExpect(status().isCreated());
+        mockMvc.perform(post("/api/orders").requestAttr("userId", userId)
+                .contentType(MediaType.APPLICATION_JSON).content(ORDER)).andExpect(status().isCreated());
+
+        assertEquals(2, ordersOfUser());
+    }
+
+    @Test
+    void cachedBody_ShouldSupportNonBlockingReads() throws Exception {
+        byte[] body = ORDER.getBytes(StandardCharsets.UTF_8);
+        ServletInputStream input = new IdempotencyFilter.CachedBodyRequest(new MockHttpServletRequest(), body)
+                .getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                byte[] buffer = new byte[16];
+                while (input.isReady() && !input.isFinished()) {
+                    read.write(buffer, 0, input.read(buffer));
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(List.of("data", "done"), events);
+        assertEquals(ORDER, read.toString(StandardCharsets.UTF_8));
+    }
+
+    private ResultActions createOrder(String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/orders")
+                .requestAttr("userId", userId)
+                .header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private long ordersOfUser() {
+        return orderRepository.findByUserId(UUID.fromString(userId)).size();
+    }
+}
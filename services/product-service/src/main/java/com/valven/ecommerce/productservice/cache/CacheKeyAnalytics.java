@@ -0,0 +1,230 @@
+package com.valven.ecommerce.productservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks cache key frequency, hit ratios per key prefix and churn in bounded memory.
+ * <p>
+ * Key frequencies live in a Count-Min Sketch, the hottest keys in a Space-Saving summary;
+ * both are halved every decay interval so the figures follow current traffic. Lookups only touch
+ * the sketch and, for keys it rates above the summary's minimum, a bounded queue that the
+ * analytics thread drains into the summary, so the cache get path never takes a lock.
+ * <p>
+ * Redis expires entries without telling the application, so churn is measured from what the
+ * application sees: {@code repopulations} are writes of a key that was already written in the
+ * current window, and {@code repeatMisses} are misses on such a key. Both include TTL expiry,
+ * Redis memory eviction and explicit invalidation; {@code explicitEvictions} and {@code clears}
+ * count only the latter.
+ */
+@Component
+public class CacheKeyAnalytics {
+
+    public static final List<String> PREFIXES = List.of("sku_", "category_", "search_", "low_stock_", "id", "all", "other");
+
+    private static final int MAX_PENDING_HOT_KEYS = 4096;
+    private static final long DRAIN_INTERVAL_MILLIS = 100;
+
+    private final CountMinSketch accesses;
+    private final CountMinSketch puts;
+    private final SpaceSaving<String> hotKeys;
+    private final Map<String, PrefixStats> prefixStats = new LinkedHashMap<>();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder repopulations = new LongAdder();
+    private final LongAdder repeatMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+    private final Queue<String> pendingHotKeys = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cache-key-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CacheKeyAnalytics(MeterRegistry meterRegistry,
+                             @Value("${cache.analytics.sketch-depth:4}") int sketchDepth,
+                             @Value("${cache.analytics.sketch-width:4096}") int sketchWidth,
+                             @Value("${cache.analytics.top-k:100}") int topK,
+                             @Value("${cache.analytics.decay-interval:10m}") Duration decayInterval) {
+        this.accesses = new CountMinSketch(sketchDepth, sketchWidth);
+        this.puts = new CountMinSketch(sketchDepth, sketchWidth);
+        this.hotKeys = new SpaceSaving<>(topK);
+        for (String prefix : PREFIXES) {
+            prefixStats.put(prefix, new PrefixStats(meterRegistry, prefix));
+        }
+        executor.scheduleWithFixedDelay(this::drainHotKeys, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        long interval = decayInterval.toMillis();
+        if (interval > 0) {
+            executor.scheduleWithFixedDelay(this::decay, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void recordGet(String cacheName, Object key, boolean hit) {
+        String name = keyName(cacheName, key);
+        if (accesses.add(name) > hotKeys.minCount() && pendingCount.get() < MAX_PENDING_HOT_KEYS) {
+            pendingCount.incrementAndGet();
+            pendingHotKeys.add(name);
+        }
+        prefixStats.get(prefixOf(key)).record(hit);
+        if (!hit && puts.estimate(name) > 0) {
+            repeatMisses.increment();
+        }
+    }
+
+    public void recordPut(String cacheName, Object key) {
+        putCount.increment();
+        if (puts.add(keyName(cacheName, key)) > 1) {
+            repopulations.increment();
+        }
+    }
+
+    public void recordEvict(String cacheName, Object key) {
+        evictions.increment();
+    }
+
+    public void recordClear(String cacheName) {
+        clears.increment();
+    }
+
+    public long estimate(String cacheName, Object key) {
+        return accesses.estimate(keyName(cacheName, key));
+    }
+
+    public List<SpaceSaving.Entry<String>> topKeys(int limit) {
+        drainHotKeys();
+        return hotKeys.top(limit);
+    }
+
+    public Map<String, Object> snapshot(int limit) {
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (SpaceSaving.Entry<String> entry : topKeys(limit)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("key", entry.key());
+            row.put("count", entry.count());
+            row.put("error", entry.error());
+            top.add(row);
+        }
+
+        Map<String, Object> prefixes = new LinkedHashMap<>();
+        prefixStats.forEach((prefix, stats) -> prefixes.put(prefix, stats.toMap()));
+
+        long putTotal = putCount.sum();
+        Map<String, Object> churn = new LinkedHashMap<>();
+        churn.put("puts", putTotal);
+        churn.put("repopulations", repopulations.sum());
+        churn.put("repopulationRatio", putTotal == 0 ? 0.0 : (double) repopulations.sum() / putTotal);
+        churn.put("repeatMisses", repeatMisses.sum());
+        churn.put("explicitEvictions", evictions.sum());
+        churn.put("clears", clears.sum());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("topKeys", top);
+        result.put("prefixes", prefixes);
+        result.put("churn", churn);
+        result.put("sketchBytes", accesses.memoryBytes() + puts.memoryBytes());
+        return result;
+    }
+
+    public void decay() {
+        drainHotKeys();
+        accesses.decay();
+        puts.decay();
+        hotKeys.decay();
+    }
+
+    /**
+     * Moves queued lookups into the Space-Saving summary. Keys dropped while the queue was full
+     * are offered again on their next lookup, which for a genuinely hot key is soon.
+     */
+    void drainHotKeys() {
+        String name;
+        while ((name = pendingHotKeys.poll()) != null) {
+            pendingCount.decrementAndGet();
+            hotKeys.offer(name);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    static String prefixOf(Object key) {
+        if (key instanceof Number) {
+            return "id";
+        }
+        String text = String.valueOf(key);
+        for (String prefix : PREFIXES) {
+            if (prefix.endsWith("_") && text.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        if ("all".equals(text)) {
+            return "all";
+        }
+        return text.chars().allMatch(Character::isDigit) && !text.isEmpty() ? "id" : "other";
+    }
+
+    private static String keyName(String cacheName, Object key) {
+        return cacheName + "::" + key;
+    }
+
+    private static final class PrefixStats {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final Counter hitCounter;
+        private final Counter missCounter;
+
+        PrefixStats(MeterRegistry meterRegistry, String prefix) {
+            this.hitCounter = Counter.builder("cache.key.requests")
+                    .description("Cache lookups by key prefix")
+                    .tag("prefix", prefix)
+                    .tag("result", "hit")
+                    .register(meterRegistry);
+            this.missCounter = Counter.builder("cache.key.requests")
+                    .description("Cache lookups by key prefix")
+                    .tag("prefix", prefix)
+                    .tag("result", "miss")
+                    .register(meterRegistry);
+        }
+
+        void record(boolean hit) {
+            if (hit) {
+                hits.increment();
+                hitCounter.increment();
+            } else {
+                misses.increment();
+                missCounter.increment();
+            }
+        }
+
+        Map<String, Object> toMap() {
+            long hitCount = hits.sum();
+            long total = hitCount + misses.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("hits", hitCount);
+            map.put("misses", total - hitCount);
+            map.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+            return map;
+        }
+    }
+}
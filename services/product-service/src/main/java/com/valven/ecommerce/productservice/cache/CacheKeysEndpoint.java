@@ -0,0 +1,35 @@
+package com.valven.ecommerce.productservice.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Exposes hot cache keys, per-prefix hit ratios and churn at {@code /actuator/cachekeys}.
+ */
+@Component
+@Endpoint(id = "cachekeys")
+public class CacheKeysEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final CacheKeyAnalytics analytics;
+
+    public CacheKeysEndpoint(CacheKeyAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> cacheKeys(@Nullable Integer limit) {
+        return analytics.snapshot(limit == null || limit <= 0 ? DEFAULT_LIMIT : limit);
+    }
+
+    @DeleteOperation
+    public void decay() {
+        analytics.decay();
+    }
+}
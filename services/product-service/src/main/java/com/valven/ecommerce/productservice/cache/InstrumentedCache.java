@@ -0,0 +1,127 @@
+package com.valven.ecommerce.productservice.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Delegating {@link Cache} that reports every lookup, write and eviction to {@link CacheKeyAnalytics}.
+ */
+public class InstrumentedCache implements Cache {
+
+    private final Cache delegate;
+    private final CacheKeyAnalytics analytics;
+
+    public InstrumentedCache(Cache delegate, CacheKeyAnalytics analytics) {
+        this.delegate = delegate;
+        this.analytics = analytics;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = delegate.get(key);
+        analytics.recordGet(getName(), key, value != null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        analytics.recordGet(getName(), key, value != null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        analytics.recordGet(getName(), key, !loaded[0]);
+        if (loaded[0]) {
+            analytics.recordPut(getName(), key);
+        }
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        CompletableFuture<?> value = delegate.retrieve(key);
+        if (value == null) {
+            analytics.recordGet(getName(), key, false);
+            return null;
+        }
+        return value.whenComplete((result, error) -> analytics.recordGet(getName(), key, error == null));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        AtomicBoolean loaded = new AtomicBoolean();
+        return delegate.retrieve(key, () -> {
+            loaded.set(true);
+            return valueLoader.get();
+        }).whenComplete((result, error) -> {
+            analytics.recordGet(getName(), key, !loaded.get());
+            if (loaded.get() && error == null) {
+                analytics.recordPut(getName(), key);
+            }
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        analytics.recordPut(getName(), key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            analytics.recordPut(getName(), key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        analytics.recordEvict(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        if (evicted) {
+            analytics.recordEvict(getName(), key);
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        analytics.recordClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        analytics.recordClear(getName());
+        return invalidated;
+    }
+}
@@ -0,0 +1,183 @@
+package com.valven.ecommerce.productservice.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter summary (Metwally et al.) over at most {@code capacity} keys.
+ * <p>
+ * Any key whose true frequency exceeds {@code N / capacity} is guaranteed to be present;
+ * each reported count overestimates the truth by at most its {@code error}.
+ * <p>
+ * Counters are kept in the paper's Stream-Summary layout: a list of buckets in ascending count
+ * order, each holding the keys that share that count, so {@link #offer} is O(1) including the
+ * replacement of the minimum.
+ */
+public class SpaceSaving<K> {
+
+    public record Entry<K>(K key, long count, long error) {
+    }
+
+    private static final class Bucket<K> {
+        final long count;
+        Bucket<K> prev;
+        Bucket<K> next;
+        Node<K> first;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private static final class Node<K> {
+        K key;
+        long error;
+        Bucket<K> bucket;
+        Node<K> prev;
+        Node<K> next;
+    }
+
+    private final int capacity;
+    private final Map<K, Node<K>> counters;
+    private Bucket<K> lowest;
+    private Bucket<K> highest;
+    private volatile long minCount;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void offer(K key) {
+        Node<K> node = counters.get(key);
+        if (node != null) {
+            increment(node);
+        } else if (counters.size() < capacity) {
+            node = new Node<>();
+            node.key = key;
+            counters.put(key, node);
+            attach(node, bucketAfter(null, 1));
+        } else {
+            node = lowest.first;
+            counters.remove(node.key);
+            node.key = key;
+            node.error = lowest.count;
+            counters.put(key, node);
+            increment(node);
+        }
+        minCount = counters.size() < capacity ? 0 : lowest.count;
+    }
+
+    /**
+     * Count a new key has to beat to enter the summary; zero while there is free capacity.
+     * Readable without locking, so callers can skip offering keys that could not get in.
+     */
+    public long minCount() {
+        return minCount;
+    }
+
+    public synchronized List<Entry<K>> top(int limit) {
+        List<Entry<K>> entries = new ArrayList<>(Math.min(limit, counters.size()));
+        for (Bucket<K> bucket = highest; bucket != null && entries.size() < limit; bucket = bucket.prev) {
+            for (Node<K> node = bucket.first; node != null && entries.size() < limit; node = node.next) {
+                entries.add(new Entry<>(node.key, bucket.count, node.error));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Halves all counts, dropping keys that reach zero, so the summary follows shifting traffic.
+     */
+    public synchronized void decay() {
+        List<Entry<K>> entries = top(counters.size());
+        counters.clear();
+        lowest = null;
+        highest = null;
+        entries.sort(Comparator.comparingLong(Entry::count));
+        for (Entry<K> entry : entries) {
+            long count = entry.count() >>> 1;
+            if (count == 0) {
+                continue;
+            }
+            Node<K> node = new Node<>();
+            node.key = entry.key();
+            node.error = entry.error() >>> 1;
+            counters.put(node.key, node);
+            attach(node, highest != null && highest.count == count ? highest : bucketAfter(highest, count));
+        }
+        minCount = counters.size() < capacity ? 0 : lowest.count;
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    private void increment(Node<K> node) {
+        Bucket<K> current = node.bucket;
+        long count = current.count + 1;
+        Bucket<K> target = current.next != null && current.next.count == count
+                ? current.next
+                : bucketAfter(current, count);
+        detach(node);
+        attach(node, target);
+    }
+
+    /** Links a new bucket after {@code previous}, or in front of the list when it is null. */
+    private Bucket<K> bucketAfter(Bucket<K> previous, long count) {
+        if (previous == null && lowest != null && lowest.count == count) {
+            return lowest;
+        }
+        Bucket<K> bucket = new Bucket<>(count);
+        bucket.prev = previous;
+        bucket.next = previous == null ? lowest : previous.next;
+        if (bucket.prev == null) {
+            lowest = bucket;
+        } else {
+            bucket.prev.next = bucket;
+        }
+        if (bucket.next == null) {
+            highest = bucket;
+        } else {
+            bucket.next.prev = bucket;
+        }
+        return bucket;
+    }
+
+    private void attach(Node<K> node, Bucket<K> bucket) {
+        node.bucket = bucket;
+        node.prev = null;
+        node.next = bucket.first;
+        if (bucket.first != null) {
+            bucket.first.prev = node;
+        }
+        bucket.first = node;
+    }
+
+    private void detach(Node<K> node) {
+        Bucket<K> bucket = node.bucket;
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            bucket.first = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        if (bucket.first == null) {
+            if (bucket.prev != null) {
+                bucket.prev.next = bucket.next;
+            } else {
+                lowest = bucket.next;
+            }
+            if (bucket.next != null) {
+                bucket.next.prev = bucket.prev;
+            } else {
+                highest = bucket.prev;
+            }
+        }
+    }
+}
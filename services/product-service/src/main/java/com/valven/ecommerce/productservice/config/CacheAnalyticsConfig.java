@@ -0,0 +1,33 @@
+package com.valven.ecommerce.productservice.config;
+
+import com.valven.ecommerce.productservice.cache.CacheKeyAnalytics;
+import com.valven.ecommerce.productservice.cache.InstrumentedCacheManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes {@code @Cacheable} traffic through {@link InstrumentedCacheManager} so that it feeds
+ * {@link CacheKeyAnalytics}. Only the cache resolver is wrapped; the {@link CacheManager} bean
+ * itself stays the Redis one, so Spring Boot still binds its cache metrics.
+ */
+@Configuration
+public class CacheAnalyticsConfig implements CachingConfigurer {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final ObjectProvider<CacheKeyAnalytics> analytics;
+
+    public CacheAnalyticsConfig(ObjectProvider<CacheManager> cacheManager,
+                                ObjectProvider<CacheKeyAnalytics> analytics) {
+        this.cacheManager = cacheManager;
+        this.analytics = analytics;
+    }
+
+    @Override
+    public CacheResolver cacheResolver() {
+        return new SimpleCacheResolver(new InstrumentedCacheManager(cacheManager.getObject(), analytics.getObject()));
+    }
+}
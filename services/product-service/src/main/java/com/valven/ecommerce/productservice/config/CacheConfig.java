@@ -1,5 +1,6 @@
 package com.valven.ecommerce.productservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -19,8 +20,15 @@ import java.time.Duration;
 @Profile("!test")
 public class CacheConfig {
 
+    /**
+     * Cache for list results (all, search, category, low stock). Stock changes only evict the
+     * single product, so these entries expire on a short TTL instead.
+     */
+    public static final String PRODUCT_LISTS = "product-lists";
+
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     @Value("${catalog.list-cache.ttl:15s}") Duration listTtl) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(5))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
@@ -30,6 +38,8 @@ public class CacheConfig {
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
+                .withCacheConfiguration(PRODUCT_LISTS, config.entryTtl(listTtl))
+                .enableStatistics()
                 .build();
     }
 }
\ No newline at end of file
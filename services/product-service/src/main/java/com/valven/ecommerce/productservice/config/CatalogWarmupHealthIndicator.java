@@ -0,0 +1,27 @@
+package com.valven.ecommerce.productservice.config;
+
+import com.valven.ecommerce.productservice.service.CatalogWarmup;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CatalogWarmupHealthIndicator implements HealthIndicator {
+
+    private final CatalogWarmup catalogWarmup;
+
+    public CatalogWarmupHealthIndicator(CatalogWarmup catalogWarmup) {
+        this.catalogWarmup = catalogWarmup;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = catalogWarmup.isReady() ? Health.up() : Health.down();
+        return builder
+                .withDetail("state", catalogWarmup.getState())
+                .withDetail("completedSteps", catalogWarmup.getCompletedSteps())
+                .withDetail("totalSteps", catalogWarmup.getTotalSteps())
+                .withDetail("durationMs", catalogWarmup.getDurationMs())
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.valven.ecommerce.productservice.config;
+
+import com.valven.ecommerce.productservice.domain.Product;
+import com.valven.ecommerce.productservice.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@Profile("large-catalog")
+@Order(1)
+public class LargeCatalogGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LargeCatalogGenerator.class);
+    private static final String INSERT_SQL =
+            "INSERT INTO products (sku, name, description, price, stock, image_url, category, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long size;
+    private final int batchSize;
+    private final SyntheticCatalog catalog;
+
+    public LargeCatalogGenerator(ProductRepository productRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${catalog.generator.size:1000000}") long size,
+                                 @Value("${catalog.generator.batch-size:1000}") int batchSize,
+                                 @Value("${catalog.generator.seed:42}") long seed,
+                                 @Value("${catalog.generator.epoch:2026-01-01T00:00:00}") LocalDateTime epoch) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.size = size;
+        this.batchSize = batchSize;
+        this.catalog = new SyntheticCatalog(seed, epoch);
+    }
+
+    @Override
+    public void run(String... args) {
+        long existing = productRepository.count();
+        if (existing >= size) {
+            log.info("Catalog already holds {} products (target {}), skipping generation", existing, size);
+            return;
+        }
+
+        log.info("Generating synthetic catalog: {} products in batches of {}", size - existing, batchSize);
+        long started = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+
+        for (long index = existing; index < size; index++) {
+            batch.add(toRow(catalog.productAt(index)));
+            if (batch.size() == batchSize) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                batch.clear();
+            }
+            if ((index + 1) % 100_000 == 0) {
+                log.info("Generated {} / {} products", index + 1, size);
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Synthetic catalog ready with {} products in {} ms", productRepository.count(), elapsedMs);
+    }
+
+    private static Object[] toRow(Product product) {
+        return new Object[]{
+                product.getSku(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getStock(),
+                product.getImageUrl(),
+                product.getCategory(),
+                Timestamp.valueOf(product.getCreatedAt()),
+                Timestamp.valueOf(product.getUpdatedAt())
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.valven.ecommerce.productservice.config;
+
+import com.valven.ecommerce.productservice.domain.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic product generator for catalog-scale testing.
+ * <p>
+ * Every product is derived from {@code (seed, index)} alone, so any slice of the
+ * catalog can be regenerated independently and two runs with the same seed
+ * produce identical data.
+ */
+public class SyntheticCatalog {
+
+    public static final String SKU_PREFIX = "GEN";
+
+    private static final String[] CATEGORIES = {
+            "Electronics", "Clothing", "Home & Garden", "Books", "Sports", "Toys", "Beauty", "Grocery"
+    };
+    private static final double[] CATEGORY_WEIGHTS = {0.22, 0.20, 0.16, 0.14, 0.10, 0.08, 0.06, 0.04};
+    private static final double[] MEDIAN_PRICES = {349.0, 39.0, 59.0, 24.0, 49.0, 29.0, 19.0, 6.0};
+    private static final String[] ADJECTIVES = {
+            "Classic", "Premium", "Compact", "Eco", "Pro", "Ultra", "Essential", "Deluxe", "Smart", "Vintage"
+    };
+    private static final String[] NOUNS = {
+            "Edition", "Set", "Pack", "Series", "Kit", "Model", "Collection", "Bundle"
+    };
+    private static final double OUT_OF_STOCK_RATIO = 0.08;
+    private static final long HISTORY_MINUTES = 2L * 365 * 24 * 60;
+
+    private final long seed;
+    private final LocalDateTime epoch;
+
+    public SyntheticCatalog(long seed, LocalDateTime epoch) {
+        this.seed = seed;
+        this.epoch = epoch;
+    }
+
+    public static String[] categories() {
+        return CATEGORIES.clone();
+    }
+
+    public static String skuFor(long index) {
+        return String.format("%s%09d", SKU_PREFIX, index);
+    }
+
+    public Product productAt(long index) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        int category = pickCategory(random.nextDouble());
+
+        Product product = new Product();
+        product.setSku(skuFor(index));
+        product.setName(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                + CATEGORIES[category] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + index);
+        product.setDescription("Synthetic " + CATEGORIES[category].toLowerCase() + " item #" + index);
+        product.setCategory(CATEGORIES[category]);
+        product.setPrice(price(random, MEDIAN_PRICES[category]));
+        product.setStock(stock(random));
+        product.setImageUrl(null);
+
+        LocalDateTime createdAt = epoch.minusMinutes(random.nextLong(HISTORY_MINUTES));
+        product.setCreatedAt(createdAt);
+        product.setUpdatedAt(createdAt);
+        return product;
+    }
+
+    private static int pickCategory(double roll) {
+        double cumulative = 0;
+        for (int i = 0; i < CATEGORY_WEIGHTS.length; i++) {
+            cumulative += CATEGORY_WEIGHTS[i];
+            if (roll < cumulative) {
+                return i;
+            }
+        }
+        return CATEGORY_WEIGHTS.length - 1;
+    }
+
+    // Log-normal around the category median, which gives the long right tail real catalogs have.
+    private static BigDecimal price(SplittableRandom random, double median) {
+        double value = median * Math.exp(0.6 * gaussian(random));
+        return BigDecimal.valueOf(Math.max(0.99, Math.min(value, 99_999.0)))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static int stock(SplittableRandom random) {
+        if (random.nextDouble() < OUT_OF_STOCK_RATIO) {
+            return 0;
+        }
+        // Geometric-ish: most items have a handful of units, a few have hundreds.
+        double u = 1.0 - random.nextDouble();
+        return 1 + (int) Math.min(999, Math.floor(-Math.log(u) * 40));
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+}
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_product_category", columnList = "category"),
     @Index(name = "idx_product_stock", columnList = "stock"),
     @Index(name = "idx_product_price", columnList = "price"),
-    @Index(name = "idx_product_created_at", columnList = "created_at")
+    @Index(name = "idx_product_created_at", columnList = "created_at"),
+    @Index(name = "idx_product_updated_at", columnList = "updated_at")
 })
 @NoArgsConstructor
 @AllArgsConstructor
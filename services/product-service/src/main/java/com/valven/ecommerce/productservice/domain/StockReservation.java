@@ -0,0 +1,53 @@
+package com.valven.ecommerce.productservice.domain;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one keyed stock reservation, so a retried reserve or release is applied once.
+ * A release that arrives before its reserve is recorded as already released, and the late
+ * reserve is then ignored.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+    @Index(name = "idx_stock_reservation_created_at", columnList = "created_at")
+})
+public class StockReservation {
+    @Id
+    @Column(name = "reservation_key", length = 100)
+    private String key;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false)
+    private boolean released;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    protected StockReservation() {
+    }
+
+    public StockReservation(String key, Long productId, int quantity, boolean released) {
+        this.key = key;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.released = released;
+    }
+
+    public String getKey() { return key; }
+
+    public Long getProductId() { return productId; }
+
+    public Integer getQuantity() { return quantity; }
+
+    public boolean isReleased() { return released; }
+    public void setReleased(boolean released) { this.released = released; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
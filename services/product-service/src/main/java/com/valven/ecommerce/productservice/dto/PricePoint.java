@@ -0,0 +1,21 @@
+package com.valven.ecommerce.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Price at the end of a history bucket, with the lowest and highest price seen in it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PricePoint {
+    private Instant timestamp;
+    private BigDecimal price;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
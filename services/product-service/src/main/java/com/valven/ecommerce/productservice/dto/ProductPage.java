@@ -0,0 +1,17 @@
+package com.valven.ecommerce.productservice.dto;
+
+import com.valven.ecommerce.productservice.domain.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPage {
+    private List<Product> items;
+    private String nextCursor;
+    private int size;
+}
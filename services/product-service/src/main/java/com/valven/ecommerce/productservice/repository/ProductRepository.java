@@ -25,12 +25,24 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByPriceLessThan(java.math.BigDecimal price);
     List<Product> findByPriceGreaterThan(java.math.BigDecimal price);
     
+    @Query("SELECT DISTINCT p.category FROM Product p WHERE p.category IS NOT NULL")
+    List<String> findDistinctCategories();
+    
     @Query("SELECT p FROM Product p WHERE p.stock = 0")
     List<Product> findOutOfStockProducts();
     
     @Query("SELECT p FROM Product p WHERE p.stock > 0 ORDER BY p.createdAt DESC")
     List<Product> findAvailableProductsOrderByCreatedDate();
     
+    @Query("SELECT p.id FROM Product p WHERE p.updatedAt >= :since AND " +
+           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR p.price <= :maxPrice)")
+    List<Long> findIdsInPriceRangeChangedSince(
+            @Param("since") java.time.LocalDateTime since,
+            @Param("minPrice") java.math.BigDecimal minPrice,
+            @Param("maxPrice") java.math.BigDecimal maxPrice
+    );
+    
     @Query("SELECT p FROM Product p WHERE " +
            "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
            "(:category IS NULL OR LOWER(p.category) = LOWER(:category)) AND " +
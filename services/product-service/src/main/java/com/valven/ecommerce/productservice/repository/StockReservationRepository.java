@@ -0,0 +1,18 @@
+package com.valven.ecommerce.productservice.repository;
+
+import com.valven.ecommerce.productservice.domain.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,60 @@
+package com.valven.ecommerce.productservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tells the API gateways which product paths changed, so their response caches drop copies that
+ * carry the old stock. Published on Redis pub/sub after the transaction commits; stock changes
+ * made by order-service bypass the gateway, so its own purge on writes never sees them.
+ * <p>
+ * Publishing is best effort: without Redis the gateway copies simply age out on their TTL.
+ */
+@Component
+public class CatalogChangePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangePublisher.class);
+
+    private static final String PRODUCTS_PATH = "/api/products/";
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplate;
+    private final String channel;
+
+    public CatalogChangePublisher(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                  @Value("${catalog.changes.channel:gateway:cache:purge}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public void productChanged(Long productId) {
+        String path = PRODUCTS_PATH + productId;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(path);
+                }
+            });
+        } else {
+            publish(path);
+        }
+    }
+
+    private void publish(String path) {
+        StringRedisTemplate template = redisTemplate.getIfAvailable();
+        if (template == null || channel.isBlank()) {
+            return;
+        }
+        try {
+            template.convertAndSend(channel, path);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish catalog change for {}: {}", path, e.getMessage());
+        }
+    }
+}
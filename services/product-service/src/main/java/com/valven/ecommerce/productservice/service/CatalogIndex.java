@@ -0,0 +1,246 @@
+package com.valven.ecommerce.productservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link CatalogSnapshot} and keeps it up to date off the request path.
+ * <p>
+ * Readers only dereference an {@link AtomicReference}. After a write commits, a single
+ * background thread reads the rows whose {@code updated_at} moved since the last refresh, merges
+ * them into a copy of the snapshot and swaps it in. The same refresh runs periodically to pick
+ * up writes made by other instances. The full table is only re-read when the row count no longer
+ * matches, which catches deletes made elsewhere.
+ */
+@Component
+public class CatalogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndex.class);
+    private static final String COLUMNS_SQL = "SELECT id, price, created_at FROM products ORDER BY id";
+    private static final String CHANGED_SQL =
+            "SELECT id, price, created_at, updated_at FROM products WHERE updated_at >= ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM products";
+    private static final String HIGH_WATER_SQL = "SELECT MAX(updated_at) FROM products";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration versionCheckInterval;
+    private final Duration changeOverlap;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final Queue<Long> removals = new ConcurrentLinkedQueue<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "catalog-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Latest updated_at the snapshot has seen, in epoch millis; only raised after the snapshot is swapped.
+    private volatile long highWater;
+
+    public CatalogIndex(DataSource dataSource,
+                        @Value("${catalog.index.version-check-interval:30s}") Duration versionCheckInterval,
+                        @Value("${catalog.index.change-overlap:1m}") Duration changeOverlap) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(5_000);
+        this.versionCheckInterval = versionCheckInterval;
+        this.changeOverlap = changeOverlap;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        markStale();
+        long interval = versionCheckInterval.toMillis();
+        if (interval > 0) {
+            executor.scheduleWithFixedDelay(this::scheduleRefresh, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the current snapshot, building it inline only if none has been built yet.
+     */
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot.get();
+            return current != null ? current : rebuild();
+        }
+    }
+
+    /**
+     * Lower bound of {@code updated_at} for rows the current snapshot may not reflect yet. Read it
+     * before {@link #current()}: rows changed since then, on any instance, must be checked in the
+     * database.
+     */
+    public LocalDateTime changedSince() {
+        return new Timestamp(highWater - changeOverlap.toMillis()).toLocalDateTime();
+    }
+
+    /**
+     * Schedules a refresh once the surrounding transaction (if any) commits.
+     */
+    public void markStale() {
+        afterCommit(this::scheduleRefresh);
+    }
+
+    /**
+     * Drops a deleted product once the surrounding transaction (if any) commits.
+     */
+    public void markRemoved(long id) {
+        afterCommit(() -> {
+            removals.add(id);
+            scheduleRefresh();
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                refreshScheduled.set(false);
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.error("Catalog index refresh failed: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Merges rows changed since the last refresh into the snapshot; rebuilds if the row count
+     * shows a change the merge cannot see.
+     */
+    synchronized CatalogSnapshot refresh() {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            return rebuild();
+        }
+        List<Long> removed = new ArrayList<>();
+        for (Long id; (id = removals.poll()) != null; ) {
+            removed.add(id);
+        }
+        long[] observed = {highWater};
+        List<CatalogSnapshot.Row> changed = jdbcTemplate.query(CHANGED_SQL, (rs, rowNum) -> {
+            observed[0] = Math.max(observed[0], rs.getTimestamp(4).getTime());
+            return row(rs.getLong(1), rs.getBigDecimal(2), rs.getTimestamp(3));
+        }, new Timestamp(highWater - changeOverlap.toMillis()));
+        CatalogSnapshot next = changed.isEmpty() && removed.isEmpty()
+                ? current
+                : current.withChanges(versions.incrementAndGet(), changed, removed);
+
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        if (count == null || count != next.size()) {
+            log.info("Catalog index has {} products but the table has {}; rebuilding", next.size(), count);
+            return rebuild();
+        }
+        snapshot.set(next);
+        highWater = observed[0];
+        if (next != current) {
+            log.debug("Catalog index v{} merged {} changed and {} removed products",
+                    next.version(), changed.size(), removed.size());
+        }
+        return next;
+    }
+
+    synchronized CatalogSnapshot rebuild() {
+        long started = System.nanoTime();
+        removals.clear();
+        Timestamp observed = jdbcTemplate.queryForObject(HIGH_WATER_SQL, Timestamp.class);
+        ColumnBuffer buffer = new ColumnBuffer();
+        jdbcTemplate.query(COLUMNS_SQL, rs -> {
+            BigDecimal price = rs.getBigDecimal(2);
+            Timestamp createdAt = rs.getTimestamp(3);
+            buffer.add(rs.getLong(1),
+                    price != null ? toCents(price) : 0L,
+                    createdAt != null ? createdAt.getTime() : 0L);
+        });
+
+        CatalogSnapshot built = buffer.toSnapshot(versions.incrementAndGet());
+        snapshot.set(built);
+        highWater = observed != null ? observed.getTime() : 0L;
+        log.info("Catalog index v{} built with {} products in {} ms",
+                built.version(), built.size(), (System.nanoTime() - started) / 1_000_000);
+        return built;
+    }
+
+    private static CatalogSnapshot.Row row(long id, BigDecimal price, Timestamp createdAt) {
+        return new CatalogSnapshot.Row(id,
+                price != null ? toCents(price) : 0L,
+                createdAt != null ? createdAt.getTime() : 0L);
+    }
+
+    public static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValue();
+    }
+
+    private static final class ColumnBuffer {
+        private long[] ids = new long[1024];
+        private long[] prices = new long[1024];
+        private long[] createdAt = new long[1024];
+        private int size;
+
+        void add(long id, long priceCents, long createdAtMillis) {
+            if (size == ids.length) {
+                int capacity = size << 1;
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+            }
+            ids[size] = id;
+            prices[size] = priceCents;
+            createdAt[size] = createdAtMillis;
+            size++;
+        }
+
+        CatalogSnapshot toSnapshot(long version) {
+            return new CatalogSnapshot(version,
+                    Arrays.copyOf(ids, size), Arrays.copyOf(prices, size), Arrays.copyOf(createdAt, size));
+        }
+    }
+}
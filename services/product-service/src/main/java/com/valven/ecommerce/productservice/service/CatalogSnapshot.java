@@ -0,0 +1,324 @@
+package com.valven.ecommerce.productservice.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Immutable, primitive-array view of the catalog's sortable columns.
+ * <p>
+ * Rows are stored in id order; {@code byPrice} and {@code byCreatedAt} hold row positions
+ * ordered by {@code (key, id)}, so every page boundary can be expressed as a
+ * {@code (key, id)} cursor and located with a binary search instead of an offset.
+ */
+public final class CatalogSnapshot {
+
+    public enum SortKey { PRICE, CREATED_AT }
+
+    public record Page(List<Long> ids, String nextCursor) {
+    }
+
+    /** One row's sortable columns, as read from the database. */
+    public record Row(long id, long priceCents, long createdAt) {
+    }
+
+    private final long version;
+    private final long[] ids;
+    private final long[] priceCents;
+    private final long[] createdAt;
+    private final int[] byPrice;
+    private final int[] byCreatedAt;
+
+    CatalogSnapshot(long version, long[] ids, long[] priceCents, long[] createdAt) {
+        this.version = version;
+        this.ids = ids;
+        this.priceCents = priceCents;
+        this.createdAt = createdAt;
+        this.byPrice = sortedPositions(priceCents);
+        this.byCreatedAt = sortedPositions(createdAt);
+    }
+
+    private CatalogSnapshot(long version, long[] ids, long[] priceCents, long[] createdAt,
+                            int[] byPrice, int[] byCreatedAt) {
+        this.version = version;
+        this.ids = ids;
+        this.priceCents = priceCents;
+        this.createdAt = createdAt;
+        this.byPrice = byPrice;
+        this.byCreatedAt = byCreatedAt;
+    }
+
+    /**
+     * Returns a copy with {@code upserts} inserted or replaced and {@code removed} dropped. Costs
+     * one pass over the rows plus sorting the changes, instead of re-sorting the whole catalog.
+     */
+    public CatalogSnapshot withChanges(long version, Collection<Row> upserts, Collection<Long> removed) {
+        TreeMap<Long, Row> changed = new TreeMap<>();
+        upserts.forEach(row -> changed.put(row.id(), row));
+        boolean[] dropped = new boolean[ids.length];
+        int droppedCount = 0;
+        for (long id : concat(changed.keySet(), removed)) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0 && !dropped[position]) {
+                dropped[position] = true;
+                droppedCount++;
+            }
+        }
+
+        int size = ids.length - droppedCount + changed.size();
+        long[] newIds = new long[size];
+        long[] newPrices = new long[size];
+        long[] newCreatedAt = new long[size];
+        int[] moved = new int[ids.length];
+        int[] added = new int[changed.size()];
+        Iterator<Row> rows = changed.values().iterator();
+        Row next = rows.hasNext() ? rows.next() : null;
+        int out = 0;
+        int addedCount = 0;
+        for (int i = 0; i <= ids.length; i++) {
+            while (next != null && (i == ids.length || next.id() < ids[i])) {
+                newIds[out] = next.id();
+                newPrices[out] = next.priceCents();
+                newCreatedAt[out] = next.createdAt();
+                added[addedCount++] = out++;
+                next = rows.hasNext() ? rows.next() : null;
+            }
+            if (i == ids.length) {
+                break;
+            }
+            if (dropped[i]) {
+                moved[i] = -1;
+                continue;
+            }
+            newIds[out] = ids[i];
+            newPrices[out] = priceCents[i];
+            newCreatedAt[out] = createdAt[i];
+            moved[i] = out++;
+        }
+
+        return new CatalogSnapshot(version, newIds, newPrices, newCreatedAt,
+                mergeOrder(byPrice, moved, added, newPrices, newIds),
+                mergeOrder(byCreatedAt, moved, added, newCreatedAt, newIds));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int countInRange(SortKey sortKey, Long min, Long max) {
+        long[] keys = keys(sortKey);
+        int[] order = order(sortKey);
+        return upperBound(keys, order, max) - lowerBound(keys, order, min);
+    }
+
+    public Page page(SortKey sortKey, boolean descending, Long min, Long max, String cursor, int size) {
+        long[] keys = keys(sortKey);
+        int[] order = order(sortKey);
+        int from = lowerBound(keys, order, min);
+        int to = upperBound(keys, order, max);
+
+        long[] after = cursor != null ? decodeCursor(cursor) : null;
+        List<Long> result = new ArrayList<>(Math.min(size, Math.max(0, to - from)));
+        int last = -1;
+
+        if (descending) {
+            int start = after != null ? Math.min(to, firstNotBefore(keys, order, after[0], after[1])) : to;
+            for (int i = start - 1; i >= from && result.size() < size; i--) {
+                result.add(ids[order[i]]);
+                last = i;
+            }
+            boolean more = last > from;
+            return new Page(result, more ? encodeCursor(keys[order[last]], ids[order[last]]) : null);
+        }
+
+        int start = after != null ? Math.max(from, firstAfter(keys, order, after[0], after[1])) : from;
+        for (int i = start; i < to && result.size() < size; i++) {
+            result.add(ids[order[i]]);
+            last = i;
+        }
+        boolean more = last >= 0 && last < to - 1;
+        return new Page(result, more ? encodeCursor(keys[order[last]], ids[order[last]]) : null);
+    }
+
+    public List<Long> idsInRange(SortKey sortKey, Long min, Long max) {
+        long[] keys = keys(sortKey);
+        int[] order = order(sortKey);
+        int from = lowerBound(keys, order, min);
+        int to = upperBound(keys, order, max);
+        List<Long> result = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            result.add(ids[order[i]]);
+        }
+        return result;
+    }
+
+    static String encodeCursor(long key, long id) {
+        return key + ":" + id;
+    }
+
+    static long[] decodeCursor(String cursor) {
+        int separator = cursor.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return new long[]{
+                    Long.parseLong(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1))
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private long[] keys(SortKey sortKey) {
+        return sortKey == SortKey.PRICE ? priceCents : createdAt;
+    }
+
+    private int[] order(SortKey sortKey) {
+        return sortKey == SortKey.PRICE ? byPrice : byCreatedAt;
+    }
+
+    // First position whose key is >= min.
+    private static int lowerBound(long[] keys, int[] order, Long min) {
+        if (min == null) {
+            return 0;
+        }
+        int lo = 0;
+        int hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[order[mid]] < min) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First position whose key is > max.
+    private static int upperBound(long[] keys, int[] order, Long max) {
+        if (max == null) {
+            return order.length;
+        }
+        int lo = 0;
+        int hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[order[mid]] <= max) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First position strictly after (key, id).
+    private int firstAfter(long[] keys, int[] order, long key, long id) {
+        int lo = 0;
+        int hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(keys[order[mid]], ids[order[mid]], key, id) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First position at or after (key, id); everything before it sorts strictly lower.
+    private int firstNotBefore(long[] keys, int[] order, long key, long id) {
+        int lo = 0;
+        int hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(keys[order[mid]], ids[order[mid]], key, id) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int compare(long keyA, long idA, long keyB, long idB) {
+        int byKey = Long.compare(keyA, keyB);
+        return byKey != 0 ? byKey : Long.compare(idA, idB);
+    }
+
+    // Keeps the surviving rows in their existing order and merges the added rows in by (key, id).
+    private static int[] mergeOrder(int[] order, int[] moved, int[] added, long[] keys, long[] ids) {
+        Integer[] sortedAdded = new Integer[added.length];
+        for (int i = 0; i < added.length; i++) {
+            sortedAdded[i] = added[i];
+        }
+        Arrays.sort(sortedAdded, (a, b) -> compare(keys[a], ids[a], keys[b], ids[b]));
+
+        int[] merged = new int[keys.length];
+        int out = 0;
+        int next = 0;
+        for (int position : order) {
+            int kept = moved[position];
+            if (kept < 0) {
+                continue;
+            }
+            while (next < sortedAdded.length
+                    && compare(keys[sortedAdded[next]], ids[sortedAdded[next]], keys[kept], ids[kept]) < 0) {
+                merged[out++] = sortedAdded[next++];
+            }
+            merged[out++] = kept;
+        }
+        while (next < sortedAdded.length) {
+            merged[out++] = sortedAdded[next++];
+        }
+        return merged;
+    }
+
+    private static List<Long> concat(Collection<Long> a, Collection<Long> b) {
+        List<Long> all = new ArrayList<>(a.size() + b.size());
+        all.addAll(a);
+        all.addAll(b);
+        return all;
+    }
+
+    // Stable merge sort of row positions by key; rows are already in id order, so ties stay id-ordered.
+    private static int[] sortedPositions(long[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int left = 0; left < n - width; left += width << 1) {
+                int mid = left + width;
+                int right = Math.min(left + (width << 1), n);
+                int i = left;
+                int j = mid;
+                int k = left;
+                while (i < mid && j < right) {
+                    buffer[k++] = keys[order[j]] < keys[order[i]] ? order[j++] : order[i++];
+                }
+                while (i < mid) {
+                    buffer[k++] = order[i++];
+                }
+                while (j < right) {
+                    buffer[k++] = order[j++];
+                }
+                System.arraycopy(buffer, left, order, left, right - left);
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,189 @@
+package com.valven.ecommerce.productservice.service;
+
+import com.valven.ecommerce.productservice.exception.ProductNotFoundException;
+import com.valven.ecommerce.productservice.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads the hot part of the catalog before the instance is reported healthy.
+ * <p>
+ * Runs as the last startup runner, so Spring Boot only flips readiness to
+ * ACCEPTING_TRAFFIC once warm-up has finished or its deadline has passed; the
+ * {@code catalogWarmup} health indicator keeps Eureka from routing to the instance meanwhile.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CatalogWarmup implements ApplicationRunner {
+
+    public enum State { PENDING, WARMING, COMPLETED, TIMED_OUT, FAILED, DISABLED }
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogWarmup.class);
+
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final CatalogIndex catalogIndex;
+    private final ProductAccessLog accessLog;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration deadline;
+    private final int hotIds;
+    private final int hotSearches;
+
+    private final AtomicInteger totalSteps = new AtomicInteger();
+    private final AtomicInteger completedSteps = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private volatile boolean cancelled;
+    private volatile long durationMs;
+
+    public CatalogWarmup(ProductService productService,
+                         ProductRepository productRepository,
+                         CatalogIndex catalogIndex,
+                         ProductAccessLog accessLog,
+                         MeterRegistry meterRegistry,
+                         @Value("${catalog.warmup.enabled:true}") boolean enabled,
+                         @Value("${catalog.warmup.deadline:60s}") Duration deadline,
+                         @Value("${catalog.warmup.hot-ids:200}") int hotIds,
+                         @Value("${catalog.warmup.hot-searches:50}") int hotSearches) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.catalogIndex = catalogIndex;
+        this.accessLog = accessLog;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.deadline = deadline;
+        this.hotIds = hotIds;
+        this.hotSearches = hotSearches;
+
+        Gauge.builder("catalog.warmup.progress", this, CatalogWarmup::progress)
+                .description("Fraction of catalog warm-up steps completed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+
+        state = State.WARMING;
+        long started = System.nanoTime();
+        CompletableFuture<Void> warmup = CompletableFuture.runAsync(this::warmUp, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        });
+
+        try {
+            warmup.get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+            state = State.COMPLETED;
+        } catch (TimeoutException e) {
+            cancelled = true;
+            state = State.TIMED_OUT;
+            log.warn("Catalog warm-up exceeded its {} deadline after {}/{} steps, accepting traffic anyway",
+                    deadline, completedSteps.get(), totalSteps.get());
+        } catch (ExecutionException e) {
+            state = State.FAILED;
+            log.error("Catalog warm-up failed: {}", e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = State.FAILED;
+        }
+
+        long elapsed = System.nanoTime() - started;
+        durationMs = elapsed / 1_000_000;
+        Timer.builder("catalog.warmup.duration")
+                .description("Time spent warming the catalog at startup")
+                .tag("outcome", state.name().toLowerCase())
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Catalog warm-up {} in {} ms", state.name().toLowerCase(), durationMs);
+    }
+
+    private void warmUp() {
+        List<String> categories = productRepository.findDistinctCategories();
+        List<Long> ids = accessLog.loadPersisted(hotIds);
+        List<String> searches = accessLog.loadPersistedSearches(hotSearches);
+        totalSteps.set(2 + categories.size() + ids.size() + searches.size());
+
+        step("index", catalogIndex::current);
+        step("all", productService::getAllProducts);
+        for (String category : categories) {
+            step("category", () -> productService.getProductsByCategory(category));
+        }
+        for (Long id : ids) {
+            step("hot_id", () -> {
+                try {
+                    productService.getProductById(id);
+                } catch (ProductNotFoundException ignored) {
+                    // The product was deleted since the access log was written.
+                }
+            });
+        }
+        // Searches are not cached by the service (every string would be a key); running the hot
+        // ones through the request path loads the database pages they touch.
+        for (String query : searches) {
+            step("search", () -> productService.findProductsWithFilters(query, null, null, null, null));
+        }
+    }
+
+    private void step(String name, Runnable action) {
+        if (cancelled) {
+            return;
+        }
+        action.run();
+        completedSteps.incrementAndGet();
+        Counter.builder("catalog.warmup.entries")
+                .description("Catalog entries loaded during warm-up")
+                .tag("step", name)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isReady() {
+        return state != State.PENDING && state != State.WARMING;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public int getCompletedSteps() {
+        return completedSteps.get();
+    }
+
+    public int getTotalSteps() {
+        return totalSteps.get();
+    }
+
+    double progress() {
+        if (isReady()) {
+            return 1.0;
+        }
+        int total = totalSteps.get();
+        return total == 0 ? 0.0 : (double) completedSteps.get() / total;
+    }
+}
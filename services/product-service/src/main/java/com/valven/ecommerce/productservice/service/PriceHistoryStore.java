@@ -0,0 +1,410 @@
+package com.valven.ecommerce.productservice.service;
+
+import com.valven.ecommerce.productservice.dto.PricePoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only price time series per product on local disk.
+ * <p>
+ * Each record is a pair of zig-zag varints: seconds since the previous record and the price
+ * change in cents, so a typical change costs 3-6 bytes. Segments are self-contained (their
+ * first record is relative to zero) and roll over at {@code segment-bytes}. Changes are queued
+ * after commit and written by a single background thread; reads memory-map the segments.
+ */
+@Component
+public class PriceHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryStore.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MAX_BATCH = 512;
+    private static final int MAX_CACHED_TAILS = 4_096;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final BlockingQueue<Change> queue;
+    private final Counter dropped;
+    private final Map<Long, Tail> tails = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Tail> eldest) {
+            return size() > MAX_CACHED_TAILS;
+        }
+    };
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public PriceHistoryStore(@Value("${catalog.price-history.path:${java.io.tmpdir}/product-service/price-history}") Path directory,
+                             @Value("${catalog.price-history.segment-bytes:1048576}") long segmentBytes,
+                             @Value("${catalog.price-history.queue-capacity:10000}") int queueCapacity,
+                             MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropped = Counter.builder("catalog.price_history.dropped")
+                .description("Price changes dropped because the history write queue was full")
+                .register(meterRegistry);
+        Gauge.builder("catalog.price_history.queue", queue, BlockingQueue::size)
+                .description("Price changes waiting to be written to the history store")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::writeLoop, "price-history-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a price change for the product, once the surrounding transaction (if any) commits.
+     */
+    public void record(Long productId, BigDecimal price) {
+        Change change = new Change(productId, Instant.now().getEpochSecond(), CatalogIndex.toCents(price), null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(change);
+                }
+            });
+        } else {
+            enqueue(change);
+        }
+    }
+
+    void record(long productId, Instant at, long cents) {
+        enqueue(new Change(productId, at.getEpochSecond(), cents, null));
+    }
+
+    /**
+     * Returns the price series between {@code from} and {@code to}, downsampled to at most
+     * {@code maxPoints} buckets. The price in effect at {@code from} is reported as the first point.
+     */
+    public List<PricePoint> history(Long productId, Instant from, Instant to, int maxPoints) {
+        Series series = read(productId);
+        long start = from.getEpochSecond();
+        long end = to.getEpochSecond();
+
+        Series window = new Series();
+        for (int i = 0; i < series.size; i++) {
+            long second = series.seconds[i];
+            if (second < start) {
+                if (window.size == 0) {
+                    window.add(start, series.cents[i]);
+                } else {
+                    window.cents[0] = series.cents[i];
+                }
+            } else if (second <= end) {
+                window.add(second, series.cents[i]);
+            }
+        }
+        return downsample(window, start, end, Math.max(1, maxPoints));
+    }
+
+    /**
+     * Blocks until every change queued before this call has been written.
+     */
+    public boolean flush(Duration timeout) throws InterruptedException {
+        CountDownLatch barrier = new CountDownLatch(1);
+        if (!queue.offer(new Change(0, 0, 0, barrier), timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        return barrier.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flush(Duration.ofSeconds(5));
+        running = false;
+        writer.interrupt();
+    }
+
+    private void enqueue(Change change) {
+        if (!queue.offer(change)) {
+            dropped.increment();
+            log.warn("Price history queue full, dropping change for product {}", change.productId());
+        }
+    }
+
+    private void writeLoop() {
+        List<Change> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                Change first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Change> batch) {
+        Map<Long, List<Change>> byProduct = new LinkedHashMap<>();
+        List<CountDownLatch> barriers = new ArrayList<>();
+        for (Change change : batch) {
+            if (change.barrier() != null) {
+                barriers.add(change.barrier());
+            } else {
+                byProduct.computeIfAbsent(change.productId(), id -> new ArrayList<>()).add(change);
+            }
+        }
+        byProduct.forEach((productId, changes) -> {
+            try {
+                append(productId, changes);
+            } catch (IOException e) {
+                tails.remove(productId);
+                log.error("Could not write price history for product {}: {}", productId, e.getMessage());
+            }
+        });
+        barriers.forEach(CountDownLatch::countDown);
+    }
+
+    private void append(long productId, List<Change> changes) throws IOException {
+        Tail tail = tails.get(productId);
+        if (tail == null) {
+            tail = loadTail(productId);
+            tails.put(productId, tail);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(changes.size() * 20);
+        for (Change change : changes) {
+            if (tail.size + buffer.position() >= segmentBytes) {
+                flushBuffer(productId, tail, buffer);
+                tail.sequence++;
+                tail.size = 0;
+                tail.lastSecond = 0;
+                tail.lastCents = 0;
+            }
+            writeVarLong(buffer, change.epochSecond() - tail.lastSecond);
+            writeVarLong(buffer, change.cents() - tail.lastCents);
+            tail.lastSecond = change.epochSecond();
+            tail.lastCents = change.cents();
+        }
+        flushBuffer(productId, tail, buffer);
+    }
+
+    private void flushBuffer(long productId, Tail tail, ByteBuffer buffer) throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        Path segment = segmentPath(productId, tail.sequence);
+        Files.createDirectories(segment.getParent());
+        try (FileChannel channel = FileChannel.open(segment,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                tail.size += channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+
+    private Tail loadTail(long productId) throws IOException {
+        Tail tail = new Tail();
+        List<Integer> sequences = sequences(productId);
+        if (sequences.isEmpty()) {
+            return tail;
+        }
+        tail.sequence = sequences.get(sequences.size() - 1);
+        Path segment = segmentPath(productId, tail.sequence);
+        Series series = new Series();
+        int valid = decode(map(segment), series);
+        long size = Files.size(segment);
+        if (valid < size) {
+            // Drop a record torn by a crash mid-write so later appends stay decodable.
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+            log.warn("Truncated {} torn bytes from {}", size - valid, segment);
+        }
+        tail.size = valid;
+        if (series.size > 0) {
+            tail.lastSecond = series.seconds[series.size - 1];
+            tail.lastCents = series.cents[series.size - 1];
+        }
+        return tail;
+    }
+
+    private Series read(long productId) {
+        Series series = new Series();
+        try {
+            for (int sequence : sequences(productId)) {
+                decode(map(segmentPath(productId, sequence)), series);
+            }
+        } catch (IOException e) {
+            log.warn("Could not read price history for product {}: {}", productId, e.getMessage());
+        }
+        return series;
+    }
+
+    private List<Integer> sequences(long productId) throws IOException {
+        Path shard = shardPath(productId);
+        List<Integer> sequences = new ArrayList<>();
+        if (!Files.isDirectory(shard)) {
+            return sequences;
+        }
+        String prefix = productId + ".";
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(shard, prefix + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                sequences.add(Integer.parseInt(name.substring(prefix.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        sequences.sort(Integer::compare);
+        return sequences;
+    }
+
+    private static MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Decodes complete records into {@code series} and returns the number of bytes they span.
+     */
+    static int decode(ByteBuffer buffer, Series series) {
+        long second = 0;
+        long cents = 0;
+        int valid = buffer.position();
+        while (buffer.hasRemaining()) {
+            long secondDelta = readVarLong(buffer);
+            long centsDelta = secondDelta == Long.MIN_VALUE ? Long.MIN_VALUE : readVarLong(buffer);
+            if (centsDelta == Long.MIN_VALUE) {
+                break;
+            }
+            second += secondDelta;
+            cents += centsDelta;
+            series.add(second, cents);
+            valid = buffer.position();
+        }
+        return valid;
+    }
+
+    static void writeVarLong(ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    /**
+     * Reads one zig-zag varint, or returns {@link Long#MIN_VALUE} if the buffer ends mid-value.
+     */
+    static long readVarLong(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                return Long.MIN_VALUE;
+            }
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private static List<PricePoint> downsample(Series window, long start, long end, int maxPoints) {
+        List<PricePoint> points = new ArrayList<>(Math.min(window.size, maxPoints));
+        if (window.size <= maxPoints) {
+            for (int i = 0; i < window.size; i++) {
+                BigDecimal price = fromCents(window.cents[i]);
+                points.add(new PricePoint(Instant.ofEpochSecond(window.seconds[i]), price, price, price));
+            }
+            return points;
+        }
+
+        long bucketSeconds = Math.max(1, (end - start + maxPoints) / maxPoints);
+        int i = 0;
+        while (i < window.size) {
+            long bucket = (window.seconds[i] - start) / bucketSeconds;
+            long min = window.cents[i];
+            long max = window.cents[i];
+            int last = i;
+            while (++i < window.size && (window.seconds[i] - start) / bucketSeconds == bucket) {
+                min = Math.min(min, window.cents[i]);
+                max = Math.max(max, window.cents[i]);
+                last = i;
+            }
+            points.add(new PricePoint(Instant.ofEpochSecond(window.seconds[last]),
+                    fromCents(window.cents[last]), fromCents(min), fromCents(max)));
+        }
+        return points;
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private Path shardPath(long productId) {
+        return directory.resolve(String.valueOf(productId / 1_000));
+    }
+
+    private Path segmentPath(long productId, int sequence) {
+        return shardPath(productId).resolve(productId + "." + sequence + SEGMENT_SUFFIX);
+    }
+
+    private record Change(long productId, long epochSecond, long cents, CountDownLatch barrier) {
+    }
+
+    private static final class Tail {
+        int sequence;
+        long size;
+        long lastSecond;
+        long lastCents;
+    }
+
+    static final class Series {
+        long[] seconds = new long[16];
+        long[] cents = new long[16];
+        int size;
+
+        void add(long second, long value) {
+            if (size == seconds.length) {
+                seconds = Arrays.copyOf(seconds, size << 1);
+                cents = Arrays.copyOf(cents, size << 1);
+            }
+            seconds[size] = second;
+            cents[size] = value;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.valven.ecommerce.productservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counts product lookups and search strings and periodically persists the hottest of each to
+ * local disk, so the next instance start can warm exactly those cache entries and queries.
+ */
+@Component
+public class ProductAccessLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductAccessLog.class);
+
+    private static final int MAX_QUERY_LENGTH = 100;
+
+    private final Path path;
+    private final Path searchPath;
+    private final int maxTracked;
+    private final int persistedIds;
+    private final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> searchCounts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "product-access-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProductAccessLog(@Value("${catalog.access-log.path:${java.io.tmpdir}/product-service/hot-products.log}") Path path,
+                            @Value("${catalog.access-log.search-path:${java.io.tmpdir}/product-service/hot-searches.log}") Path searchPath,
+                            @Value("${catalog.access-log.max-tracked:10000}") int maxTracked,
+                            @Value("${catalog.access-log.persisted-ids:500}") int persistedIds,
+                            @Value("${catalog.access-log.flush-interval:5m}") Duration flushInterval) {
+        this.path = path;
+        this.searchPath = searchPath;
+        this.maxTracked = maxTracked;
+        this.persistedIds = persistedIds;
+        long interval = flushInterval.toMillis();
+        if (interval > 0) {
+            executor.scheduleWithFixedDelay(this::persist, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void record(Long productId) {
+        increment(counts, productId);
+    }
+
+    /** Search strings are kept verbatim so warm-up replays exactly what clients sent. */
+    public void recordSearch(String query) {
+        if (query == null || query.isBlank() || query.length() > MAX_QUERY_LENGTH
+                || query.contains("\n") || query.contains("\r")) {
+            return;
+        }
+        increment(searchCounts, query);
+    }
+
+    public List<Long> topIds(int limit) {
+        return top(counts, limit);
+    }
+
+    public List<String> topSearches(int limit) {
+        return top(searchCounts, limit);
+    }
+
+    public List<Long> loadPersisted(int limit) {
+        try {
+            return read(path, limit).stream().map(line -> Long.parseLong(line.trim())).collect(Collectors.toList());
+        } catch (NumberFormatException e) {
+            log.warn("Could not read product access log {}: {}", path, e.getMessage());
+            return List.of();
+        }
+    }
+
+    public List<String> loadPersistedSearches(int limit) {
+        return read(searchPath, limit);
+    }
+
+    public void persist() {
+        write(path, topIds(persistedIds).stream().map(String::valueOf).collect(Collectors.toList()));
+        write(searchPath, topSearches(persistedIds));
+    }
+
+    private <K> void increment(Map<K, LongAdder> counters, K key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= maxTracked) {
+                return;
+            }
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    private static <K> List<K> top(Map<K, LongAdder> counters, int limit) {
+        return counters.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<K, LongAdder> e) -> e.getValue().sum()).reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> read(Path file, int limit) {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            List<String> lines = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (lines.size() >= limit) {
+                    break;
+                }
+                if (!line.isBlank()) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        } catch (IOException e) {
+            log.warn("Could not read product access log {}: {}", file, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static void write(Path file, List<String> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Persisted {} hot entries to {}", lines.size(), file);
+        } catch (IOException e) {
+            log.warn("Could not persist product access log {}: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        persist();
+    }
+}
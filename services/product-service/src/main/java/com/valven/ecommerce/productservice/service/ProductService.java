@@ -1,9 +1,14 @@
 package com.valven.ecommerce.productservice.service;
 
+import com.valven.ecommerce.productservice.config.CacheConfig;
 import com.valven.ecommerce.productservice.domain.Product;
+import com.valven.ecommerce.productservice.domain.StockReservation;
+import com.valven.ecommerce.productservice.dto.PricePoint;
+import com.valven.ecommerce.productservice.dto.ProductPage;
 import com.valven.ecommerce.productservice.exception.InsufficientStockException;
 import com.valven.ecommerce.productservice.exception.ProductNotFoundException;
 import com.valven.ecommerce.productservice.repository.ProductRepository;
+import com.valven.ecommerce.productservice.repository.StockReservationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.Cacheable;
@@ -11,26 +16,53 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class ProductService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_INDEXED_FILTER_RESULTS = 1_000;
+    private static final int MAX_HISTORY_DAYS = 3_650;
+    private static final int MAX_HISTORY_POINTS = 1_000;
+
     private final ProductRepository productRepository;
+    private final CatalogIndex catalogIndex;
+    private final PriceHistoryStore priceHistoryStore;
+    private final CatalogChangePublisher catalogChangePublisher;
+    private final StockReservationRepository stockReservationRepository;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, CatalogIndex catalogIndex,
+                          PriceHistoryStore priceHistoryStore, CatalogChangePublisher catalogChangePublisher,
+                          StockReservationRepository stockReservationRepository) {
         this.productRepository = productRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.catalogIndex = catalogIndex;
+        this.priceHistoryStore = priceHistoryStore;
+        this.catalogChangePublisher = catalogChangePublisher;
     }
 
-    @Cacheable(value = "products", key = "'all'", unless = "#result.isEmpty()")
+    @Cacheable(value = CacheConfig.PRODUCT_LISTS, key = "'all'", unless = "#result.isEmpty()")
     public List<Product> getAllProducts() {
         log.info("Fetching all products from database");
         return productRepository.findAll();
     }
 
-    @Cacheable(value = "products", key = "'search_' + #query", unless = "#result.isEmpty()")
+    @Cacheable(value = CacheConfig.PRODUCT_LISTS, key = "'search_' + #query", unless = "#result.isEmpty()")
     public List<Product> searchProducts(String query) {
         log.info("Searching products with query: {}", query);
         if (query == null || query.trim().isEmpty()) {
@@ -54,7 +86,7 @@ public class ProductService {
     }
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
+    @CacheEvict(value = {"products", CacheConfig.PRODUCT_LISTS}, allEntries = true)
     public Product createProduct(Product product) {
         log.info("Creating new product: {}", product.getName());
         
@@ -63,12 +95,16 @@ public class ProductService {
         }
         
         Product savedProduct = productRepository.save(product);
+        catalogIndex.markStale();
+        if (savedProduct.getPrice() != null) {
+            priceHistoryStore.record(savedProduct.getId(), savedProduct.getPrice());
+        }
         log.info("Product created successfully with id: {}", savedProduct.getId());
         return savedProduct;
     }
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
+    @CacheEvict(value = {"products", CacheConfig.PRODUCT_LISTS}, allEntries = true)
     public Product updateProduct(Long id, Product updatedProduct) {
         log.info("Updating product with id: {}", id);
         
@@ -80,6 +116,7 @@ public class ProductService {
             }
         }
         
+        BigDecimal previousPrice = existingProduct.getPrice();
         existingProduct.setSku(updatedProduct.getSku());
         existingProduct.setName(updatedProduct.getName());
         existingProduct.setDescription(updatedProduct.getDescription());
@@ -89,20 +126,27 @@ public class ProductService {
         existingProduct.setCategory(updatedProduct.getCategory());
         
         Product savedProduct = productRepository.save(existingProduct);
+        catalogIndex.markStale();
+        if (updatedProduct.getPrice() != null
+                && (previousPrice == null || previousPrice.compareTo(updatedProduct.getPrice()) != 0)) {
+            priceHistoryStore.record(id, updatedProduct.getPrice());
+        }
         log.info("Product updated successfully with id: {}", savedProduct.getId());
         return savedProduct;
     }
 
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
+    @CacheEvict(value = {"products", CacheConfig.PRODUCT_LISTS}, allEntries = true)
     public void deleteProduct(Long id) {
         log.info("Deleting product with id: {}", id);
         Product product = getProductById(id);
         productRepository.delete(product);
+        catalogIndex.markRemoved(id);
         log.info("Product deleted successfully with id: {}", id);
     }
 
     @Transactional
+    @CacheEvict(value = "products", key = "#productId")
     public void reduceStock(Long productId, int quantity) {
         log.info("Reducing stock for product {} by quantity {}", productId, quantity);
         
@@ -118,10 +162,12 @@ public class ProductService {
         
         product.reduceStock(quantity);
         productRepository.save(product);
+        catalogChangePublisher.productChanged(productId);
         log.info("Stock reduced successfully. New stock: {}", product.getStock());
     }
 
     @Transactional
+    @CacheEvict(value = "products", key = "#productId")
     public void addStock(Long productId, int quantity) {
         log.info("Adding stock for product {} by quantity {}", productId, quantity);
         
@@ -132,9 +178,60 @@ public class ProductService {
         Product product = getProductById(productId);
         product.addStock(quantity);
         productRepository.save(product);
+        catalogChangePublisher.productChanged(productId);
         log.info("Stock added successfully. New stock: {}", product.getStock());
     }
 
+    /**
+     * Reduces stock once per {@code reservationKey}: repeating the call, or making it after the
+     * reservation was released, changes nothing.
+     */
+    @Transactional
+    @CacheEvict(value = "products", key = "#productId")
+    public void reserveStock(Long productId, int quantity, String reservationKey) {
+        Optional<StockReservation> existing = stockReservationRepository.findById(reservationKey);
+        if (existing.isPresent()) {
+            checkReservedProduct(existing.get(), productId);
+            log.info("Reservation {} already {}", reservationKey, existing.get().isReleased() ? "released" : "applied");
+            return;
+        }
+        reduceStock(productId, quantity);
+        stockReservationRepository.save(new StockReservation(reservationKey, productId, quantity, false));
+    }
+
+    /**
+     * Returns the stock taken by {@code reservationKey}, at most once. A release for a reservation
+     * that has not arrived yet is recorded so the reservation is ignored when it does.
+     */
+    @Transactional
+    @CacheEvict(value = "products", key = "#productId")
+    public void releaseStock(Long productId, int quantity, String reservationKey) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Optional<StockReservation> existing = stockReservationRepository.findById(reservationKey);
+        if (existing.isEmpty()) {
+            log.info("Reservation {} released before it was applied", reservationKey);
+            stockReservationRepository.save(new StockReservation(reservationKey, productId, quantity, true));
+            return;
+        }
+        StockReservation reservation = existing.get();
+        checkReservedProduct(reservation, productId);
+        if (reservation.isReleased()) {
+            log.info("Reservation {} already released", reservationKey);
+            return;
+        }
+        reservation.setReleased(true);
+        addStock(productId, reservation.getQuantity());
+    }
+
+    private static void checkReservedProduct(StockReservation reservation, Long productId) {
+        if (!reservation.getProductId().equals(productId)) {
+            throw new IllegalArgumentException("Reservation " + reservation.getKey()
+                    + " belongs to product " + reservation.getProductId());
+        }
+    }
+
     public boolean isProductInStock(Long productId) {
         Product product = getProductById(productId);
         return product.isInStock();
@@ -145,24 +242,101 @@ public class ProductService {
         return product.hasEnoughStock(quantity);
     }
 
-    @Cacheable(value = "products", key = "'category_' + #category", unless = "#result.isEmpty()")
+    @Cacheable(value = CacheConfig.PRODUCT_LISTS, key = "'category_' + #category", unless = "#result.isEmpty()")
     public List<Product> getProductsByCategory(String category) {
         log.info("Fetching products by category: {} from database", category);
         return productRepository.findByCategoryIgnoreCase(category);
     }
 
-    @Cacheable(value = "products", key = "'low_stock_' + #threshold", unless = "#result.isEmpty()")
+    @Cacheable(value = CacheConfig.PRODUCT_LISTS, key = "'low_stock_' + #threshold", unless = "#result.isEmpty()")
     public List<Product> getLowStockProducts(int threshold) {
         log.info("Fetching products with stock below threshold: {} from database", threshold);
         return productRepository.findByStockLessThan(threshold);
     }
 
     public List<Product> findProductsWithFilters(String name, String category, 
-                                                java.math.BigDecimal minPrice, 
-                                                java.math.BigDecimal maxPrice, 
+                                                BigDecimal minPrice, 
+                                                BigDecimal maxPrice, 
                                                 Boolean inStock) {
         log.info("Finding products with filters - name: {}, category: {}, price range: {}-{}, inStock: {}", 
                 name, category, minPrice, maxPrice, inStock);
+
+        if (name == null && category == null && inStock == null && (minPrice != null || maxPrice != null)) {
+            LocalDateTime changedSince = catalogIndex.changedSince();
+            CatalogSnapshot snapshot = catalogIndex.current();
+            Long min = minPrice != null ? CatalogIndex.toCents(minPrice) : null;
+            Long max = maxPrice != null ? CatalogIndex.toCents(maxPrice) : null;
+            if (snapshot.countInRange(CatalogSnapshot.SortKey.PRICE, min, max) <= MAX_INDEXED_FILTER_RESULTS) {
+                // The snapshot may lag writes from this or another instance: add the rows changed
+                // since it was refreshed, re-check every loaded price and return them in id order
+                // like the query below.
+                Set<Long> ids = new HashSet<>(snapshot.idsInRange(CatalogSnapshot.SortKey.PRICE, min, max));
+                ids.addAll(productRepository.findIdsInPriceRangeChangedSince(changedSince, minPrice, maxPrice));
+                return productRepository.findAllById(ids)
+                        .stream()
+                        .filter(product -> inRange(product.getPrice(), minPrice, maxPrice))
+                        .sorted(Comparator.comparing(Product::getId))
+                        .collect(Collectors.toList());
+            }
+        }
         return productRepository.findProductsWithFilters(name, category, minPrice, maxPrice, inStock);
     }
+
+    public ProductPage browseProducts(String sort, String order, BigDecimal minPrice, BigDecimal maxPrice,
+                                      String cursor, int size) {
+        CatalogSnapshot.SortKey sortKey = switch (sort == null ? "price" : sort.toLowerCase()) {
+            case "price" -> CatalogSnapshot.SortKey.PRICE;
+            case "newest" -> CatalogSnapshot.SortKey.CREATED_AT;
+            default -> throw new IllegalArgumentException("Unsupported sort: " + sort);
+        };
+        if (sortKey == CatalogSnapshot.SortKey.CREATED_AT && (minPrice != null || maxPrice != null)) {
+            throw new IllegalArgumentException("Price range is only supported with sort=price");
+        }
+        boolean descending = order != null
+                ? "desc".equalsIgnoreCase(order)
+                : sortKey == CatalogSnapshot.SortKey.CREATED_AT;
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        log.info("Browsing products by {} {} - price range: {}-{}, cursor: {}, size: {}",
+                sortKey, descending ? "desc" : "asc", minPrice, maxPrice, cursor, pageSize);
+
+        CatalogSnapshot.Page page = catalogIndex.current().page(sortKey, descending,
+                minPrice != null ? CatalogIndex.toCents(minPrice) : null,
+                maxPrice != null ? CatalogIndex.toCents(maxPrice) : null,
+                cursor, pageSize);
+        List<Product> items = loadInOrder(page.ids());
+        return new ProductPage(items, page.nextCursor(), items.size());
+    }
+
+    public List<PricePoint> getPriceHistory(Long id, int days, int points) {
+        if (days < 1 || days > MAX_HISTORY_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_HISTORY_DAYS);
+        }
+        if (points < 1 || points > MAX_HISTORY_POINTS) {
+            throw new IllegalArgumentException("points must be between 1 and " + MAX_HISTORY_POINTS);
+        }
+        if (!productRepository.existsById(id)) {
+            throw new ProductNotFoundException(id);
+        }
+        Instant to = Instant.now();
+        return priceHistoryStore.history(id, to.minus(Duration.ofDays(days)), to, points);
+    }
+
+    private static boolean inRange(BigDecimal price, BigDecimal minPrice, BigDecimal maxPrice) {
+        return price != null
+                && (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    private List<Product> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 }
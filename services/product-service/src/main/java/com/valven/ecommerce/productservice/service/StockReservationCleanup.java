@@ -0,0 +1,56 @@
+package com.valven.ecommerce.productservice.service;
+
+import com.valven.ecommerce.productservice.repository.StockReservationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes reservation records once no retry or late release can still refer to them.
+ */
+@Component
+public class StockReservationCleanup {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationCleanup.class);
+
+    private final StockReservationRepository stockReservationRepository;
+    private final Duration retention;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stock-reservation-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StockReservationCleanup(StockReservationRepository stockReservationRepository,
+                                   @Value("${stock.reservations.retention:1d}") Duration retention,
+                                   @Value("${stock.reservations.cleanup-interval:1h}") Duration interval) {
+        this.stockReservationRepository = stockReservationRepository;
+        this.retention = retention;
+        long millis = interval.toMillis();
+        if (millis > 0) {
+            executor.scheduleWithFixedDelay(this::purge, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void purge() {
+        try {
+            int deleted = stockReservationRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+            log.debug("Deleted {} expired stock reservations", deleted);
+        } catch (RuntimeException e) {
+            log.warn("Could not delete expired stock reservations: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -2,15 +2,20 @@ package com.valven.ecommerce.productservice.web;
 
 import com.valven.ecommerce.productservice.domain.Product;
 import com.valven.ecommerce.productservice.dto.ApiResponse;
+import com.valven.ecommerce.productservice.dto.PricePoint;
+import com.valven.ecommerce.productservice.dto.ProductPage;
+import com.valven.ecommerce.productservice.service.ProductAccessLog;
 import com.valven.ecommerce.productservice.service.ProductService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -18,10 +23,18 @@ import java.util.List;
 public class ProductController {
 
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
+    /**
+     * Freshness of list responses in shared caches. Stock changes purge only the product's own
+     * URL, so a list can show stock up to {@code catalog.list-cache.ttl} plus these 10 seconds old.
+     */
+    private static final CacheControl LIST_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(5))
+            .staleWhileRevalidate(Duration.ofSeconds(5));
     private final ProductService productService;
+    private final ProductAccessLog productAccessLog;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductAccessLog productAccessLog) {
         this.productService = productService;
+        this.productAccessLog = productAccessLog;
     }
 
     @GetMapping
@@ -39,20 +52,47 @@ public class ProductController {
         
         if (query != null || category != null || minPrice != null || maxPrice != null || inStock != null) {
             products = productService.findProductsWithFilters(query, category, minPrice, maxPrice, inStock);
+            if (category == null && minPrice == null && maxPrice == null && inStock == null) {
+                productAccessLog.recordSearch(query);
+            }
         } else {
             products = productService.searchProducts(query);
         }
         
-        return ResponseEntity.ok(ApiResponse.<List<Product>>success("Products retrieved successfully", products));
+        return ResponseEntity.ok().cacheControl(LIST_CACHE_CONTROL)
+                .body(ApiResponse.<List<Product>>success("Products retrieved successfully", products));
+    }
+
+    @GetMapping("/browse")
+    public ResponseEntity<ApiResponse<ProductPage>> browseProducts(
+            @RequestParam(value = "sort", defaultValue = "price") String sort,
+            @RequestParam(value = "order", required = false) String order,
+            @RequestParam(value = "minPrice", required = false) java.math.BigDecimal minPrice,
+            @RequestParam(value = "maxPrice", required = false) java.math.BigDecimal maxPrice,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        ProductPage page = productService.browseProducts(sort, order, minPrice, maxPrice, cursor, size);
+        return ResponseEntity.ok().cacheControl(LIST_CACHE_CONTROL)
+                .body(ApiResponse.<ProductPage>success("Products retrieved successfully", page));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Product>> getProductById(@PathVariable Long id) {
         log.info("Fetching product with id: {}", id);
         Product product = productService.getProductById(id);
+        productAccessLog.record(id);
         return ResponseEntity.ok(ApiResponse.<Product>success("Product retrieved successfully", product));
     }
 
+    @GetMapping("/{id}/price-history")
+    public ResponseEntity<ApiResponse<List<PricePoint>>> getPriceHistory(
+            @PathVariable Long id,
+            @RequestParam(value = "days", defaultValue = "90") int days,
+            @RequestParam(value = "points", defaultValue = "100") int points) {
+        List<PricePoint> history = productService.getPriceHistory(id, days, points);
+        return ResponseEntity.ok(ApiResponse.<List<PricePoint>>success("Price history retrieved successfully", history));
+    }
+
     @GetMapping("/sku/{sku}")
     public ResponseEntity<ApiResponse<Product>> getProductBySku(@PathVariable String sku) {
         log.info("Fetching product with SKU: {}", sku);
@@ -88,18 +128,28 @@ public class ProductController {
     @PostMapping("/{id}/stock/reduce")
     public ResponseEntity<ApiResponse<Void>> reduceStock(
             @PathVariable Long id, 
-            @RequestParam int quantity) {
+            @RequestParam int quantity,
+            @RequestParam(value = "reservation", required = false) String reservation) {
         log.info("Reducing stock for product {} by quantity {}", id, quantity);
-        productService.reduceStock(id, quantity);
+        if (reservation != null) {
+            productService.reserveStock(id, quantity, reservation);
+        } else {
+            productService.reduceStock(id, quantity);
+        }
         return ResponseEntity.ok(ApiResponse.<Void>success("Stock reduced successfully", null));
     }
 
     @PostMapping("/{id}/stock/add")
     public ResponseEntity<ApiResponse<Void>> addStock(
             @PathVariable Long id, 
-            @RequestParam int quantity) {
+            @RequestParam int quantity,
+            @RequestParam(value = "reservation", required = false) String reservation) {
         log.info("Adding stock for product {} by quantity {}", id, quantity);
-        productService.addStock(id, quantity);
+        if (reservation != null) {
+            productService.releaseStock(id, quantity, reservation);
+        } else {
+            productService.addStock(id, quantity);
+        }
         return ResponseEntity.ok(ApiResponse.<Void>success("Stock added successfully", null));
     }
 
@@ -116,7 +166,8 @@ public class ProductController {
     public ResponseEntity<ApiResponse<List<Product>>> getProductsByCategory(@PathVariable String category) {
         log.info("Fetching products by category: {}", category);
         List<Product> products = productService.getProductsByCategory(category);
-        return ResponseEntity.ok(ApiResponse.<List<Product>>success("Products retrieved successfully", products));
+        return ResponseEntity.ok().cacheControl(LIST_CACHE_CONTROL)
+                .body(ApiResponse.<List<Product>>success("Products retrieved successfully", products));
     }
 
     @GetMapping("/low-stock")
@@ -0,0 +1,94 @@
+package com.valven.ecommerce.productservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheKeyAnalyticsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CacheKeyAnalytics analytics;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        analytics = new CacheKeyAnalytics(meterRegistry, 4, 1024, 10, Duration.ZERO);
+        cache = new InstrumentedCacheManager(new ConcurrentMapCacheManager("products"), analytics).getCache("products");
+    }
+
+    @Test
+    void prefixOf_ShouldClassifyProductCacheKeys() {
+        assertEquals("sku_", CacheKeyAnalytics.prefixOf("sku_ABC-1"));
+        assertEquals("category_", CacheKeyAnalytics.prefixOf("category_Books"));
+        assertEquals("search_", CacheKeyAnalytics.prefixOf("search_phone"));
+        assertEquals("low_stock_", CacheKeyAnalytics.prefixOf("low_stock_10"));
+        assertEquals("all", CacheKeyAnalytics.prefixOf("all"));
+        assertEquals("id", CacheKeyAnalytics.prefixOf(42L));
+        assertEquals("other", CacheKeyAnalytics.prefixOf("something"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void instrumentedCache_ShouldRecordHitsMissesAndHotKeys() {
+        assertNull(cache.get("sku_A"));
+        cache.put("sku_A", "product");
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(cache.get("sku_A"));
+        }
+        cache.get(7L);
+
+        Map<String, Object> snapshot = analytics.snapshot(5);
+        Map<String, Object> sku = (Map<String, Object>) ((Map<String, Object>) snapshot.get("prefixes")).get("sku_");
+        assertEquals(5L, sku.get("hits"));
+        assertEquals(1L, sku.get("misses"));
+
+        List<Map<String, Object>> top = (List<Map<String, Object>>) snapshot.get("topKeys");
+        assertEquals("products::sku_A", top.get(0).get("key"));
+        assertEquals(6L, top.get(0).get("count"));
+        assertEquals(5.0, meterRegistry.get("cache.key.requests")
+                .tag("prefix", "sku_").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void instrumentedCache_ShouldReportRepopulationAfterClear() {
+        cache.get("all");
+        cache.put("all", List.of());
+        cache.clear();
+        cache.get("all");
+        cache.put("all", List.of());
+        cache.evict("all");
+
+        Map<String, Object> churn = (Map<String, Object>) analytics.snapshot(5).get("churn");
+        assertEquals(2L, churn.get("puts"));
+        assertEquals(1L, churn.get("repopulations"));
+        assertEquals(1L, churn.get("repeatMisses"));
+        assertEquals(1L, churn.get("clears"));
+        assertEquals(1L, churn.get("explicitEvictions"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void instrumentedCache_ShouldRecordAsyncRetrieval() {
+        assertEquals("loaded", cache.retrieve("sku_B", () -> CompletableFuture.completedFuture("loaded")).join());
+        assertEquals("loaded", cache.retrieve("sku_B", () -> CompletableFuture.completedFuture("again")).join());
+        assertNotNull(cache.retrieve("sku_B"));
+        assertNull(cache.retrieve("sku_C"));
+
+        Map<String, Object> sku = (Map<String, Object>) ((Map<String, Object>) analytics.snapshot(5)
+                .get("prefixes")).get("sku_");
+        assertEquals(2L, sku.get("hits"));
+        assertEquals(2L, sku.get("misses"));
+        assertEquals(1L, ((Map<String, Object>) analytics.snapshot(5).get("churn")).get("puts"));
+    }
+}
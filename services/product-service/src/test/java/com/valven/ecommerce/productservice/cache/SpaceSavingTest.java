@@ -0,0 +1,82 @@
+package com.valven.ecommerce.productservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void top_ShouldFindHeavyHittersInSkewedStream() {
+        SpaceSaving<String> summary = new SpaceSaving<>(20);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            // 30% "hot", 20% "warm", the rest spread over 10k cold keys
+            double roll = random.nextDouble();
+            summary.offer(roll < 0.3 ? "hot" : roll < 0.5 ? "warm" : "cold_" + random.nextInt(10_000));
+        }
+
+        List<SpaceSaving.Entry<String>> top = summary.top(2);
+        assertEquals("hot", top.get(0).key());
+        assertEquals("warm", top.get(1).key());
+        assertTrue(top.get(0).count() - top.get(0).error() <= 30_500);
+        assertEquals(20, summary.size());
+    }
+
+    @Test
+    void decay_ShouldHalveCountsAndDropColdKeys() {
+        SpaceSaving<String> summary = new SpaceSaving<>(4);
+        for (int i = 0; i < 10; i++) {
+            summary.offer("a");
+        }
+        summary.offer("b");
+
+        summary.decay();
+
+        assertEquals(1, summary.size());
+        assertEquals(5, summary.top(1).get(0).count());
+    }
+
+    @Test
+    void offer_ShouldReplaceMinimumAndInheritItsCountAsError() {
+        SpaceSaving<String> summary = new SpaceSaving<>(3);
+        for (String key : List.of("a", "a", "a", "b", "b", "c")) {
+            summary.offer(key);
+        }
+        assertEquals(1, summary.minCount());
+
+        summary.offer("d");
+        summary.offer("e");
+
+        List<SpaceSaving.Entry<String>> top = summary.top(3);
+        assertEquals(Set.of(new SpaceSaving.Entry<>("a", 3L, 0L), new SpaceSaving.Entry<>("e", 3L, 2L)),
+                Set.copyOf(top.subList(0, 2)));
+        assertEquals(new SpaceSaving.Entry<>("b", 2L, 0L), top.get(2));
+        assertEquals(2, summary.minCount());
+    }
+
+    @Test
+    void countMinSketch_ShouldNeverUndercountAndStayCloseForHotKeys() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        for (int i = 0; i < 50_000; i++) {
+            sketch.add("key_" + (i % 5_000));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add("hot");
+        }
+
+        assertTrue(sketch.estimate("key_42") >= 10);
+        assertTrue(sketch.estimate("hot") >= 5_000);
+        assertTrue(sketch.estimate("hot") <= 5_000 + 55_000 * Math.E / 1024);
+        assertEquals(4 * 1024 * Long.BYTES, sketch.memoryBytes());
+    }
+
+    @Test
+    void countMinSketch_ShouldRejectWidthThatIsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(4, 1000));
+    }
+}
@@ -0,0 +1,59 @@
+package com.valven.ecommerce.productservice.config;
+
+import com.valven.ecommerce.productservice.domain.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticCatalogTest {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Test
+    void productAt_ShouldBeDeterministicForSameSeedAndIndex() {
+        SyntheticCatalog first = new SyntheticCatalog(42, EPOCH);
+        SyntheticCatalog second = new SyntheticCatalog(42, EPOCH);
+
+        for (long i = 0; i < 100; i++) {
+            Product a = first.productAt(i);
+            Product b = second.productAt(i);
+            assertEquals(a.getSku(), b.getSku());
+            assertEquals(a.getName(), b.getName());
+            assertEquals(a.getPrice(), b.getPrice());
+            assertEquals(a.getStock(), b.getStock());
+            assertEquals(a.getCategory(), b.getCategory());
+            assertEquals(a.getCreatedAt(), b.getCreatedAt());
+        }
+    }
+
+    @Test
+    void productAt_ShouldProduceValidProductsWithRealisticSpread() {
+        SyntheticCatalog catalog = new SyntheticCatalog(7, EPOCH);
+        Map<String, Integer> perCategory = new HashMap<>();
+        int outOfStock = 0;
+
+        for (long i = 0; i < 10_000; i++) {
+            Product product = catalog.productAt(i);
+            assertTrue(product.getPrice().compareTo(BigDecimal.ZERO) > 0);
+            assertTrue(product.getPrice().scale() <= 2);
+            assertTrue(product.getStock() >= 0);
+            assertTrue(product.getSku().length() <= 50);
+            assertFalse(product.getCreatedAt().isAfter(EPOCH));
+            assertTrue(Arrays.asList(SyntheticCatalog.categories()).contains(product.getCategory()));
+            perCategory.merge(product.getCategory(), 1, Integer::sum);
+            if (product.getStock() == 0) {
+                outOfStock++;
+            }
+        }
+
+        assertEquals(SyntheticCatalog.categories().length, perCategory.size());
+        assertTrue(perCategory.get("Electronics") > perCategory.get("Grocery"));
+        assertTrue(outOfStock > 400 && outOfStock < 1200);
+    }
+}
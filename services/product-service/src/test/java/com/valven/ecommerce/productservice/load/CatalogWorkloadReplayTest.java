@@ -0,0 +1,136 @@
+package com.valven.ecommerce.productservice.load;
+
+import com.valven.ecommerce.productservice.ProductServiceApplication;
+import com.valven.ecommerce.productservice.config.SyntheticCatalog;
+import com.valven.ecommerce.productservice.exception.InsufficientStockException;
+import com.valven.ecommerce.productservice.repository.ProductRepository;
+import com.valven.ecommerce.productservice.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a fixed request mix against a generated catalog and prints per-operation latency.
+ * <p>
+ * Disabled by default; run with
+ * {@code mvn test -pl services/product-service -Dtest=CatalogWorkloadReplayTest -Dcatalog.replay=true
+ * -Dcatalog.replay.size=1000000 -Dcatalog.replay.ops=200000}.
+ */
+@SpringBootTest(classes = ProductServiceApplication.class, properties = {
+        "catalog.generator.size=${catalog.replay.size:100000}",
+        "catalog.generator.batch-size=5000"
+})
+@ActiveProfiles({"test", "large-catalog"})
+@EnabledIfSystemProperty(named = "catalog.replay", matches = "true")
+class CatalogWorkloadReplayTest {
+
+    enum Operation { LOOKUP, SEARCH, FILTER, CATEGORY, REDUCE_STOCK }
+
+    // Cumulative thresholds for LOOKUP 70%, SEARCH 12%, FILTER 8%, CATEGORY 2%, REDUCE_STOCK 8%.
+    private static final double[] MIX = {0.70, 0.82, 0.90, 0.92, 1.00};
+    private static final long SEED = 7L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void replayRequestMix() {
+        long catalogSize = productRepository.count();
+        int operations = Integer.getInteger("catalog.replay.ops", 50_000);
+        int warmup = operations / 10;
+
+        ZipfianGenerator ids = new ZipfianGenerator(catalogSize, 0.99, SEED);
+        SplittableRandom random = new SplittableRandom(SEED);
+        String[] categories = SyntheticCatalog.categories();
+
+        Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new long[operations]);
+            counts.put(op, 0);
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < warmup + operations; i++) {
+            Operation op = pick(random.nextDouble());
+            long begin = System.nanoTime();
+            execute(op, ids, random, categories, catalogSize);
+            long elapsed = System.nanoTime() - begin;
+            if (i == warmup) {
+                started = System.nanoTime();
+            }
+            if (i >= warmup) {
+                int n = counts.get(op);
+                latencies.get(op)[n] = elapsed;
+                counts.put(op, n + 1);
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        StringBuilder report = new StringBuilder(String.format(
+                "%nCatalog replay: %d products, %d ops, %.0f ops/s%n", catalogSize, operations, operations / seconds));
+        report.append(String.format("%-14s %8s %10s %10s %10s%n", "operation", "count", "p50(us)", "p99(us)", "max(us)"));
+        for (Operation op : Operation.values()) {
+            int n = counts.get(op);
+            if (n == 0) {
+                continue;
+            }
+            long[] sorted = Arrays.copyOf(latencies.get(op), n);
+            Arrays.sort(sorted);
+            report.append(String.format("%-14s %8d %10d %10d %10d%n", op, n,
+                    sorted[(int) (n * 0.50)] / 1000, sorted[Math.min(n - 1, (int) (n * 0.99))] / 1000,
+                    sorted[n - 1] / 1000));
+        }
+        System.out.println(report);
+
+        assertTrue(catalogSize > 0);
+    }
+
+    private static Operation pick(double roll) {
+        for (int i = 0; i < MIX.length; i++) {
+            if (roll < MIX[i]) {
+                return Operation.values()[i];
+            }
+        }
+        return Operation.LOOKUP;
+    }
+
+    private void execute(Operation op, ZipfianGenerator ids, SplittableRandom random,
+                         String[] categories, long catalogSize) {
+        switch (op) {
+            case LOOKUP -> productService.getProductById(hotId(ids.next(), catalogSize));
+            case SEARCH -> productService.searchProducts(String.valueOf(random.nextLong(catalogSize)));
+            case FILTER -> {
+                BigDecimal min = BigDecimal.valueOf(random.nextInt(500));
+                productService.findProductsWithFilters(null, categories[random.nextInt(categories.length)],
+                        min, min.add(BigDecimal.valueOf(50)), true);
+            }
+            case CATEGORY -> productService.getProductsByCategory(categories[random.nextInt(categories.length)]);
+            case REDUCE_STOCK -> {
+                try {
+                    productService.reduceStock(hotId(ids.next(), catalogSize), 1);
+                } catch (InsufficientStockException ignored) {
+                    // Hot items sell out over a long replay; that is part of the workload.
+                }
+            }
+        }
+    }
+
+    // Scatter zipf ranks over the id space so the hottest products are not all the oldest rows.
+    private static long hotId(long rank, long catalogSize) {
+        return 1 + Math.floorMod(rank * 2_654_435_761L, catalogSize);
+    }
+}
@@ -0,0 +1,48 @@
+package com.valven.ecommerce.productservice.load;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zipf-distributed ranks in {@code [0, items)} using Gray et al.'s constant-time sampler
+ * (the same construction YCSB uses). Rank 0 is the hottest item.
+ */
+class ZipfianGenerator {
+
+    private final long items;
+    private final double theta;
+    private final double alpha;
+    private final double zetan;
+    private final double eta;
+    private final SplittableRandom random;
+
+    ZipfianGenerator(long items, double theta, long seed) {
+        this.items = items;
+        this.theta = theta;
+        this.random = new SplittableRandom(seed);
+        this.zetan = zeta(items, theta);
+        double zeta2 = zeta(2, theta);
+        this.alpha = 1.0 / (1.0 - theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetan);
+    }
+
+    long next() {
+        double u = random.nextDouble();
+        double uz = u * zetan;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < 1.0 + Math.pow(0.5, theta)) {
+            return 1;
+        }
+        long rank = (long) (items * Math.pow(eta * u - eta + 1, alpha));
+        return Math.min(rank, items - 1);
+    }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1.0 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
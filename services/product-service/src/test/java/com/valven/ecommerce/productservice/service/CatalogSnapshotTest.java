@@ -0,0 +1,97 @@
+package com.valven.ecommerce.productservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        // ids 1..6, with a price tie between ids 2 and 5
+        long[] ids = {1, 2, 3, 4, 5, 6};
+        long[] prices = {5000, 1999, 9999, 2500, 1999, 12000};
+        long[] createdAt = {100, 600, 300, 500, 200, 400};
+        snapshot = new CatalogSnapshot(1, ids, prices, createdAt);
+    }
+
+    @Test
+    void page_ShouldOrderByPriceThenIdAscending() {
+        CatalogSnapshot.Page page = snapshot.page(CatalogSnapshot.SortKey.PRICE, false, null, null, null, 10);
+
+        assertEquals(List.of(2L, 5L, 4L, 1L, 3L, 6L), page.ids());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void page_ShouldWalkAllPagesWithCursorWithoutGapsOrDuplicates() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CatalogSnapshot.Page page = snapshot.page(CatalogSnapshot.SortKey.PRICE, false, null, null, cursor, 2);
+            seen.addAll(page.ids());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(2L, 5L, 4L, 1L, 3L, 6L), seen);
+    }
+
+    @Test
+    void page_ShouldWalkDescendingPagesWithinPriceRange() {
+        CatalogSnapshot.Page first = snapshot.page(CatalogSnapshot.SortKey.PRICE, true, 1999L, 9999L, null, 2);
+        CatalogSnapshot.Page second = snapshot.page(CatalogSnapshot.SortKey.PRICE, true, 1999L, 9999L, first.nextCursor(), 2);
+        CatalogSnapshot.Page third = snapshot.page(CatalogSnapshot.SortKey.PRICE, true, 1999L, 9999L, second.nextCursor(), 2);
+
+        assertEquals(List.of(3L, 1L), first.ids());
+        assertEquals(List.of(4L, 5L), second.ids());
+        assertEquals(List.of(2L), third.ids());
+        assertNull(third.nextCursor());
+    }
+
+    @Test
+    void page_ShouldSortNewestFirst() {
+        CatalogSnapshot.Page page = snapshot.page(CatalogSnapshot.SortKey.CREATED_AT, true, null, null, null, 3);
+
+        assertEquals(List.of(2L, 4L, 6L), page.ids());
+        assertNotNull(page.nextCursor());
+    }
+
+    @Test
+    void countInRange_ShouldUseInclusiveBounds() {
+        assertEquals(4, snapshot.countInRange(CatalogSnapshot.SortKey.PRICE, 1999L, 5000L));
+        assertEquals(List.of(2L, 5L), snapshot.idsInRange(CatalogSnapshot.SortKey.PRICE, null, 1999L));
+    }
+
+    @Test
+    void withChanges_ShouldMatchSnapshotBuiltFromScratch() {
+        CatalogSnapshot changed = snapshot.withChanges(2, List.of(
+                new CatalogSnapshot.Row(4, 1000, 500),
+                new CatalogSnapshot.Row(7, 2500, 50),
+                new CatalogSnapshot.Row(0, 99999, 700)), List.of(3L, 42L));
+        CatalogSnapshot rebuilt = new CatalogSnapshot(2, new long[]{0, 1, 2, 4, 5, 6, 7},
+                new long[]{99999, 5000, 1999, 1000, 1999, 12000, 2500},
+                new long[]{700, 100, 600, 500, 200, 400, 50});
+
+        assertEquals(7, changed.size());
+        for (CatalogSnapshot.SortKey sortKey : CatalogSnapshot.SortKey.values()) {
+            for (boolean descending : new boolean[]{false, true}) {
+                assertEquals(rebuilt.page(sortKey, descending, null, null, null, 10).ids(),
+                        changed.page(sortKey, descending, null, null, null, 10).ids());
+            }
+        }
+        assertEquals(List.of(4L, 2L, 5L, 7L), changed.idsInRange(CatalogSnapshot.SortKey.PRICE, null, 2500L));
+        assertEquals(6, snapshot.size());
+    }
+
+    @Test
+    void page_ShouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> snapshot.page(CatalogSnapshot.SortKey.PRICE, false, null, null, "bogus", 2));
+    }
+}
@@ -0,0 +1,80 @@
+package com.valven.ecommerce.productservice.service;
+
+import com.valven.ecommerce.productservice.domain.Product;
+import com.valven.ecommerce.productservice.exception.ProductNotFoundException;
+import com.valven.ecommerce.productservice.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogWarmupTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CatalogIndex catalogIndex;
+
+    @Mock
+    private ProductAccessLog accessLog;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CatalogWarmup warmup(Duration deadline) {
+        return new CatalogWarmup(productService, productRepository, catalogIndex, accessLog,
+                meterRegistry, true, deadline, 10, 5);
+    }
+
+    @Test
+    void run_ShouldPreloadAllCategoriesHotIdsAndSearches() {
+        when(productRepository.findDistinctCategories()).thenReturn(List.of("Books", "Sports"));
+        when(accessLog.loadPersisted(10)).thenReturn(List.of(3L, 7L));
+        when(accessLog.loadPersistedSearches(5)).thenReturn(List.of("phone"));
+        when(productService.getProductById(3L)).thenReturn(new Product());
+        when(productService.getProductById(7L)).thenThrow(new ProductNotFoundException(7L));
+        CatalogWarmup warmup = warmup(Duration.ofSeconds(5));
+
+        assertFalse(warmup.isReady());
+        warmup.run(new DefaultApplicationArguments());
+
+        assertEquals(CatalogWarmup.State.COMPLETED, warmup.getState());
+        assertTrue(warmup.isReady());
+        assertEquals(7, warmup.getCompletedSteps());
+        verify(catalogIndex).current();
+        verify(productService).getAllProducts();
+        verify(productService).getProductsByCategory("Books");
+        verify(productService).getProductsByCategory("Sports");
+        verify(productService).findProductsWithFilters("phone", null, null, null, null);
+        assertEquals(1.0, meterRegistry.get("catalog.warmup.progress").gauge().value());
+        assertEquals(1, meterRegistry.get("catalog.warmup.duration").tag("outcome", "completed").timer().count());
+    }
+
+    @Test
+    void run_ShouldBecomeReadyWhenDeadlinePasses() {
+        when(productRepository.findDistinctCategories()).thenReturn(List.of("Books"));
+        when(accessLog.loadPersisted(10)).thenReturn(List.of());
+        when(productService.getAllProducts()).thenAnswer(invocation -> {
+            Thread.sleep(2_000);
+            return List.of();
+        });
+        CatalogWarmup warmup = warmup(Duration.ofMillis(100));
+
+        warmup.run(new DefaultApplicationArguments());
+
+        assertEquals(CatalogWarmup.State.TIMED_OUT, warmup.getState());
+        assertTrue(warmup.isReady());
+    }
+}
@@ -0,0 +1,142 @@
+package com.valven.ecommerce.productservice.service;
+
+import com.valven.ecommerce.productservice.dto.PricePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceHistoryStoreTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private PriceHistoryStore store;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (store != null) {
+            store.stop();
+        }
+    }
+
+    @Test
+    void history_ShouldReturnRecordedChangesInRange() throws InterruptedException {
+        store = newStore(1_048_576);
+        store.record(7L, T0, 1999);
+        store.record(7L, T0.plusSeconds(3_600), 1799);
+        store.record(7L, T0.plusSeconds(7_200), 2199);
+        store.record(8L, T0, 500);
+        assertTrue(store.flush(Duration.ofSeconds(5)));
+
+        List<PricePoint> history = store.history(7L, T0.minusSeconds(1), T0.plusSeconds(10_000), 100);
+
+        assertEquals(3, history.size());
+        assertEquals(new BigDecimal("19.99"), history.get(0).getPrice());
+        assertEquals(new BigDecimal("17.99"), history.get(1).getPrice());
+        assertEquals(T0.plusSeconds(7_200), history.get(2).getTimestamp());
+    }
+
+    @Test
+    void history_ShouldStartWithPriceInEffectAtWindowStart() throws InterruptedException {
+        store = newStore(1_048_576);
+        store.record(1L, T0, 1000);
+        store.record(1L, T0.plusSeconds(100), 900);
+        store.record(1L, T0.plusSeconds(500), 800);
+        store.flush(Duration.ofSeconds(5));
+
+        List<PricePoint> history = store.history(1L, T0.plusSeconds(200), T0.plusSeconds(1_000), 100);
+
+        assertEquals(2, history.size());
+        assertEquals(T0.plusSeconds(200), history.get(0).getTimestamp());
+        assertEquals(new BigDecimal("9.00"), history.get(0).getPrice());
+        assertEquals(new BigDecimal("8.00"), history.get(1).getPrice());
+    }
+
+    @Test
+    void history_ShouldDownsampleWithMinAndMaxPerBucket() throws InterruptedException {
+        store = newStore(1_048_576);
+        for (int i = 0; i < 1_000; i++) {
+            store.record(2L, T0.plusSeconds(i * 60L), 10_000 + (i % 10) * 100);
+        }
+        store.flush(Duration.ofSeconds(5));
+
+        List<PricePoint> history = store.history(2L, T0, T0.plusSeconds(60_000), 10);
+
+        assertTrue(history.size() <= 10);
+        assertEquals(new BigDecimal("100.00"), history.get(0).getMinPrice());
+        assertEquals(new BigDecimal("109.00"), history.get(0).getMaxPrice());
+    }
+
+    @Test
+    void record_ShouldRollSegmentsAndSurviveRestart() throws Exception {
+        store = newStore(64);
+        for (int i = 0; i < 100; i++) {
+            store.record(3L, T0.plusSeconds(i), 100 + i);
+        }
+        store.flush(Duration.ofSeconds(5));
+        store.stop();
+
+        try (var files = Files.list(directory.resolve("0"))) {
+            assertTrue(files.count() > 1);
+        }
+
+        store = newStore(64);
+        store.record(3L, T0.plusSeconds(100), 42);
+        store.flush(Duration.ofSeconds(5));
+
+        List<PricePoint> history = store.history(3L, T0, T0.plusSeconds(1_000), 1_000);
+        assertEquals(101, history.size());
+        assertEquals(new BigDecimal("1.99"), history.get(99).getPrice());
+        assertEquals(new BigDecimal("0.42"), history.get(100).getPrice());
+    }
+
+    @Test
+    void record_ShouldDropTornTrailingRecord() throws Exception {
+        store = newStore(1_048_576);
+        store.record(4L, T0, 1000);
+        store.flush(Duration.ofSeconds(5));
+        store.stop();
+
+        Path segment = directory.resolve("0").resolve("4.0.seg");
+        Files.write(segment, new byte[]{(byte) 0x80}, StandardOpenOption.APPEND);
+
+        store = newStore(1_048_576);
+        store.record(4L, T0.plusSeconds(10), 1100);
+        store.flush(Duration.ofSeconds(5));
+
+        List<PricePoint> history = store.history(4L, T0, T0.plusSeconds(60), 100);
+        assertEquals(2, history.size());
+        assertEquals(new BigDecimal("11.00"), history.get(1).getPrice());
+    }
+
+    @Test
+    void varLong_ShouldRoundTripNegativeAndLargeDeltas() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        long[] values = {0, 1, -1, 300, -300, T0.getEpochSecond(), -99_999_999L};
+        for (long value : values) {
+            PriceHistoryStore.writeVarLong(buffer, value);
+        }
+        buffer.flip();
+        for (long value : values) {
+            assertEquals(value, PriceHistoryStore.readVarLong(buffer));
+        }
+    }
+
+    private PriceHistoryStore newStore(long segmentBytes) {
+        return new PriceHistoryStore(directory, segmentBytes, 1_000, new SimpleMeterRegistry());
+    }
+}
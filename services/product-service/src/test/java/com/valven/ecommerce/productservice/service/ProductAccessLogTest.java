@@ -0,0 +1,40 @@
+package com.valven.ecommerce.productservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductAccessLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void persist_ShouldRoundTripHottestIdsAndSearches() {
+        ProductAccessLog accessLog = accessLog();
+        accessLog.record(7L);
+        accessLog.record(7L);
+        accessLog.record(3L);
+        accessLog.recordSearch("lamp");
+        accessLog.recordSearch("phone");
+        accessLog.recordSearch("phone");
+        accessLog.recordSearch("multi\nline");
+        accessLog.recordSearch(" ");
+        accessLog.persist();
+
+        ProductAccessLog restarted = accessLog();
+        assertEquals(List.of(7L, 3L), restarted.loadPersisted(10));
+        assertEquals(List.of("phone", "lamp"), restarted.loadPersistedSearches(10));
+        assertEquals(List.of("phone"), restarted.loadPersistedSearches(1));
+    }
+
+    private ProductAccessLog accessLog() {
+        return new ProductAccessLog(dir.resolve("hot-products.log"), dir.resolve("hot-searches.log"),
+                100, 10, Duration.ZERO);
+    }
+}
@@ -1,9 +1,11 @@
 package com.valven.ecommerce.productservice.service;
 
 import com.valven.ecommerce.productservice.domain.Product;
+import com.valven.ecommerce.productservice.domain.StockReservation;
 import com.valven.ecommerce.productservice.exception.InsufficientStockException;
 import com.valven.ecommerce.productservice.exception.ProductNotFoundException;
 import com.valven.ecommerce.productservice.repository.ProductRepository;
+import com.valven.ecommerce.productservice.repository.StockReservationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,12 +14,15 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +32,18 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private CatalogIndex catalogIndex;
+
+    @Mock
+    private PriceHistoryStore priceHistoryStore;
+
+    @Mock
+    private CatalogChangePublisher catalogChangePublisher;
+
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+
     @InjectMocks
     private ProductService productService;
 
@@ -115,6 +132,21 @@ class ProductServiceTest {
         assertEquals("Updated Product", result.getName());
         verify(productRepository).findById(1L);
         verify(productRepository).save(any(Product.class));
+        verify(priceHistoryStore).record(1L, new BigDecimal("149.99"));
+    }
+
+    @Test
+    void updateProduct_ShouldNotRecordPriceHistory_WhenPriceUnchanged() {
+        Product updatedProduct = new Product();
+        updatedProduct.setSku("TEST-001");
+        updatedProduct.setPrice(new BigDecimal("99.990"));
+
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+
+        productService.updateProduct(1L, updatedProduct);
+
+        verify(priceHistoryStore, never()).record(anyLong(), any(BigDecimal.class));
     }
 
     @Test
@@ -164,6 +196,7 @@ class ProductServiceTest {
         
         verify(productRepository).findById(1L);
         verify(productRepository).save(any(Product.class));
+        verify(catalogChangePublisher).productChanged(1L);
     }
 
     @Test
@@ -175,6 +208,7 @@ class ProductServiceTest {
         assertThrows(InsufficientStockException.class, () -> productService.reduceStock(1L, 15));
         verify(productRepository).findById(1L);
         verify(productRepository, never()).save(any(Product.class));
+        verify(catalogChangePublisher, never()).productChanged(anyLong());
     }
 
     @Test
@@ -189,6 +223,51 @@ class ProductServiceTest {
         
         verify(productRepository).findById(1L);
         verify(productRepository).save(any(Product.class));
+        verify(catalogChangePublisher).productChanged(1L);
+    }
+
+    @Test
+    void reserveStock_ShouldApplyEachReservationKeyOnce() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(stockReservationRepository.findById("checkout-1:0"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new StockReservation("checkout-1:0", 1L, 4, false)));
+
+        productService.reserveStock(1L, 4, "checkout-1:0");
+        productService.reserveStock(1L, 4, "checkout-1:0");
+
+        assertEquals(6, testProduct.getStock());
+        verify(stockReservationRepository).save(any(StockReservation.class));
+    }
+
+    @Test
+    void releaseStock_ShouldRestoreReservedQuantityOnce() {
+        StockReservation reservation = new StockReservation("checkout-1:0", 1L, 4, false);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(stockReservationRepository.findById("checkout-1:0")).thenReturn(Optional.of(reservation));
+
+        productService.releaseStock(1L, 4, "checkout-1:0");
+        productService.releaseStock(1L, 4, "checkout-1:0");
+
+        assertEquals(14, testProduct.getStock());
+        assertTrue(reservation.isReleased());
+    }
+
+    @Test
+    void releaseStock_BeforeReserve_ShouldMakeTheLateReserveANoOp() {
+        when(stockReservationRepository.findById("checkout-2:0")).thenReturn(Optional.empty());
+
+        productService.releaseStock(1L, 3, "checkout-2:0");
+
+        verify(stockReservationRepository).save(argThat(StockReservation::isReleased));
+        verify(productRepository, never()).save(any(Product.class));
+
+        when(stockReservationRepository.findById("checkout-2:0"))
+                .thenReturn(Optional.of(new StockReservation("checkout-2:0", 1L, 3, true)));
+        productService.reserveStock(1L, 3, "checkout-2:0");
+
+        assertEquals(10, testProduct.getStock());
+        verify(productRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -244,4 +323,45 @@ class ProductServiceTest {
         assertEquals(1, result.size());
         verify(productRepository).findByCategoryIgnoreCase("Electronics");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findProductsWithFilters_ShouldRecheckPricesServedFromIndex() {
+        CatalogSnapshot snapshot = new CatalogSnapshot(1, new long[]{3, 1, 2},
+                new long[]{1_500, 1_000, 1_200}, new long[]{1, 2, 3});
+        when(catalogIndex.current()).thenReturn(snapshot);
+        Product repriced = product(2L, "50.00");
+        when(productRepository.findAllById(Set.of(1L, 2L, 3L)))
+                .thenReturn(List.of(product(3L, "15.00"), repriced, product(1L, "10.00")));
+
+        List<Product> result = productService.findProductsWithFilters(null, null,
+                new BigDecimal("10.00"), new BigDecimal("20.00"), null);
+
+        assertEquals(List.of(1L, 3L), result.stream().map(Product::getId).toList());
+        verify(productRepository, never()).findProductsWithFilters(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void findProductsWithFilters_ShouldIncludeProductsRepricedIntoRangeSinceSnapshot() {
+        LocalDateTime changedSince = LocalDateTime.of(2026, 1, 1, 12, 0);
+        CatalogSnapshot snapshot = new CatalogSnapshot(1, new long[]{1, 2},
+                new long[]{1_000, 5_000}, new long[]{1, 2});
+        when(catalogIndex.changedSince()).thenReturn(changedSince);
+        when(catalogIndex.current()).thenReturn(snapshot);
+        BigDecimal min = new BigDecimal("10.00");
+        BigDecimal max = new BigDecimal("20.00");
+        when(productRepository.findIdsInPriceRangeChangedSince(changedSince, min, max)).thenReturn(List.of(2L));
+        when(productRepository.findAllById(Set.of(1L, 2L)))
+                .thenReturn(List.of(product(2L, "12.00"), product(1L, "10.00")));
+
+        List<Product> result = productService.findProductsWithFilters(null, null, min, max, null);
+
+        assertEquals(List.of(1L, 2L), result.stream().map(Product::getId).toList());
+    }
+
+    private static Product product(Long id, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+}
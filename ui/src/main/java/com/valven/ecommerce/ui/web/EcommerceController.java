@@ -10,6 +10,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.core.ParameterizedTypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -179,17 +180,6 @@ public class EcommerceController {
 
             log.info("Cart response: {}", cartResponse);
             
-            try {
-                productClient.post()
-                        .uri("/products/" + productId + "/stock/reduce?quantity=" + quantity)
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .block();
-                log.info("Stock reduced for product {} by quantity {}", productId, quantity);
-            } catch (Exception e) {
-                log.error("Failed to reduce stock for product {}: {}", productId, e.getMessage());
-            }
-            
             log.info("Product {} added to cart for user {} with quantity {}", productName, userId, quantity);
             
             return "redirect:/products?success=Product " + productName + " added to cart successfully!";
@@ -237,25 +227,6 @@ public class EcommerceController {
         }
         
         try {
-            String cartResponse = orderClient.get()
-                    .uri("/carts")
-                    .header("Authorization", "Bearer " + session.getAttribute("token"))
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            Cart cart = parseCartFromApiResponse(cartResponse);
-            int quantityToRestore = 0;
-            
-            if (cart != null && cart.getItems() != null) {
-                for (CartItem item : cart.getItems()) {
-                    if (item.getProductId().equals(productId)) {
-                        quantityToRestore = item.getQuantity();
-                        break;
-                    }
-                }
-            }
-            
             orderClient.delete()
                     .uri("/carts/items/" + productId)
                     .header("Authorization", "Bearer " + session.getAttribute("token"))
@@ -263,19 +234,6 @@ public class EcommerceController {
                     .bodyToMono(String.class)
                     .block();
             
-            if (quantityToRestore > 0) {
-                try {
-                    productClient.post()
-                            .uri("/products/" + productId + "/stock/add?quantity=" + quantityToRestore)
-                            .retrieve()
-                            .bodyToMono(String.class)
-                            .block();
-                    log.info("Stock restored for product {} by quantity {}", productId, quantityToRestore);
-                } catch (Exception e) {
-                    log.error("Failed to restore stock for product {}: {}", productId, e.getMessage());
-                }
-            }
-            
             log.info("Product {} removed from cart for user {}", productId, userId);
             return "redirect:/cart?success=Product removed from cart";
             
@@ -293,15 +251,6 @@ public class EcommerceController {
         }
         
         try {
-            String cartResponse = orderClient.get()
-                    .uri("/carts")
-                    .header("Authorization", "Bearer " + session.getAttribute("token"))
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            Cart cart = parseCartFromApiResponse(cartResponse);
-            
             orderClient.delete()
                     .uri("/carts")
                     .header("Authorization", "Bearer " + session.getAttribute("token"))
@@ -309,21 +258,6 @@ public class EcommerceController {
                     .bodyToMono(String.class)
                     .block();
             
-            if (cart != null && cart.getItems() != null) {
-                for (CartItem item : cart.getItems()) {
-                    try {
-                        productClient.post()
-                                .uri("/products/" + item.getProductId() + "/stock/add?quantity=" + item.getQuantity())
-                                .retrieve()
-                                .bodyToMono(String.class)
-                                .block();
-                        log.info("Stock restored for product {} by quantity {}", item.getProductId(), item.getQuantity());
-                    } catch (Exception e) {
-                        log.error("Failed to restore stock for product {}: {}", item.getProductId(), e.getMessage());
-                    }
-                }
-            }
-            
             log.info("Cart cleared for user {}", userId);
             return "redirect:/cart?success=All items removed from cart";
             
@@ -341,36 +275,23 @@ public class EcommerceController {
         }
         
         try {
-            Cart cart = orderClient.get()
-                    .uri("/carts")
+            // order-service prices the cart and reserves stock itself
+            Order createdOrder = orderClient.post()
+                    .uri("/orders/checkout")
                     .header("Authorization", "Bearer " + session.getAttribute("token"))
                     .retrieve()
-                    .bodyToMono(Cart.class)
+                    .bodyToMono(Order.class)
                     .block();
 
-            if (cart != null && !cart.getItems().isEmpty()) {
-                Order order = new Order();
-                order.setUserId(userId);
-                order.setItems(cart.getItems());
-                order.setTotalAmount(cart.getItems().stream()
-                        .mapToDouble(item -> item.getPrice() * item.getQuantity())
-                        .sum());
-
-                Order createdOrder = orderClient.post()
-                        .uri("/orders")
-                        .header("Authorization", "Bearer " + session.getAttribute("token"))
-                        .bodyValue(order)
-                        .retrieve()
-                        .bodyToMono(Order.class)
-                        .block();
-
-                model.addAttribute("order", createdOrder);
-                return "order-success";
-            }
+            model.addAttribute("order", createdOrder);
+            return "order-success";
+        } catch (WebClientResponseException e) {
+            log.error("Checkout failed for user {}: {}", userId, e.getResponseBodyAsString());
+            return "redirect:/cart?error=" + checkoutError(e);
         } catch (Exception e) {
-            model.addAttribute("error", "Failed to create order: " + e.getMessage());
+            log.error("Checkout failed for user {}: {}", userId, e.getMessage(), e);
+            return "redirect:/cart?error=Failed to create order";
         }
-        return "redirect:/cart";
     }
 
     @GetMapping("/orders")
@@ -397,6 +318,18 @@ public class EcommerceController {
         return "orders";
     }
     
+    private String checkoutError(WebClientResponseException e) {
+        try {
+            JsonNode message = objectMapper.readTree(e.getResponseBodyAsString()).get("message");
+            if (message != null) {
+                return message.asText();
+            }
+        } catch (Exception ignored) {
+            // fall through to the generic message
+        }
+        return "Failed to create order";
+    }
+
     private List<Product> parseProductsFromApiResponse(String response) {
         try {
             JsonNode rootNode = objectMapper.readTree(response);